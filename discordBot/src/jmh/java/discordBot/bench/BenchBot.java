@@ -0,0 +1,43 @@
+package discordBot.bench;
+
+import java.lang.reflect.InvocationTargetException;
+
+import javax.security.auth.login.LoginException;
+
+import discordBot.AbstractBot;
+import discordBot.exceptions.CommandException;
+import discordBot.exceptions.CommandNotFoundException;
+import discordBot.exceptions.ValidatorException;
+import discordBot.execution.ExecutionEngine;
+import net.dv8tion.jda.api.entities.MessageChannel;
+
+/**
+ * Bot never connected to discord, loading the commands of
+ * discordBot.bench.commands. Count the errors instead of answering them
+ */
+public class BenchBot extends AbstractBot {
+	public static final String COMMANDS = "discordBot.bench.commands";
+
+	public long notFound, failed, invalid;
+
+	public BenchBot() throws InstantiationException, IllegalAccessException, IllegalArgumentException,
+			InvocationTargetException, NoSuchMethodException, SecurityException, LoginException {
+		super(COMMANDS, "!", false);
+		setExecutionEngine(ExecutionEngine.direct());
+	}
+
+	@Override
+	protected void commandNotFoundException(MessageChannel channel, CommandNotFoundException e) {
+		notFound++;
+	}
+
+	@Override
+	protected void commandException(MessageChannel channel, CommandException e) {
+		failed++;
+	}
+
+	@Override
+	protected void validatorException(MessageChannel channel, ValidatorException e) {
+		invalid++;
+	}
+}
@@ -0,0 +1,134 @@
+package discordBot.bench;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import discordBot.command.AbstractCommand;
+import discordBot.command.CommandContext;
+import discordBot.command.args.ArgSchema;
+import discordBot.command.args.ArgType;
+import discordBot.command.args.Arguments;
+import discordBot.command.args.Param;
+import discordBot.command.validator.AbstractValidator;
+import discordBot.command.validator.ArgLengthValidator;
+import discordBot.command.validator.ValidatorChain;
+import discordBot.exceptions.CommandException;
+import discordBot.exceptions.CommandNotFoundException;
+import discordBot.exceptions.ValidatorException;
+import discordBot.offline.OfflineChannel;
+import discordBot.offline.OfflineEvents;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+
+/**
+ * What a command costs once found: params, validators and help rendering
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandBenchmark {
+	private BenchBot bot;
+	private MessageReceivedEvent echo, help, helpEcho, ban;
+	private ArgSchema banSchema;
+	private List<AbstractValidator> validators;
+	private ValidatorChain chain;
+
+	@Setup
+	public void setup() throws Exception {
+		bot = new BenchBot();
+		OfflineChannel offline = new OfflineChannel(1, 2);
+		offline.setKeepMessages(false);
+		echo = OfflineEvents.message(offline, 3, "!echo some params for the command");
+		help = OfflineEvents.message(offline, 3, "!help");
+		helpEcho = OfflineEvents.message(offline, 3, "!help echo");
+		ban = OfflineEvents.message(offline, 3, "!ban <@!123456789012345678> 3 90 spamming the channel");
+		banSchema = ArgSchema.of(Param.required("user", ArgType.USER), Param.required("days", ArgType.INT),
+				Param.required("time", ArgType.DURATION), Param.optional("reason", ArgType.TEXT));
+		validators = Arrays.<AbstractValidator>asList(new ArgLengthValidator(1, 10), new ArgLengthValidator(0, 8),
+				new ArgLengthValidator(5));
+		chain = ValidatorChain.EMPTY.with(validators.toArray(new AbstractValidator[0]));
+	}
+
+	@Benchmark
+	public String[] getParams() {
+		return AbstractCommand.getParams(echo);
+	}
+
+	@Benchmark
+	public boolean validatorChain() {
+		for (AbstractValidator validator : validators) {
+			if (!validator.check(echo)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Benchmark
+	public int contextParams() {
+		CommandContext context = new CommandContext(bot, echo);
+		int length = 0;
+		for (int i = 0; i < context.argCount(); i++) {
+			length += context.arg(i).length();
+		}
+		return length;
+	}
+
+	@Benchmark
+	public boolean validatorChainContext() {
+		CommandContext context = new CommandContext(bot, echo);
+		for (AbstractValidator validator : validators) {
+			if (!validator.check(context)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Benchmark
+	public boolean fusedValidatorChain() {
+		return chain.check(new CommandContext(bot, echo)) == null;
+	}
+
+	@Benchmark
+	public long handParsedArgs() {
+		String[] params = AbstractCommand.getParams(ban);
+		String user = params[0];
+		long id = Long.parseLong(user.substring(user.startsWith("<@!") ? 3 : 2, user.length() - 1));
+		int days = Integer.parseInt(params[1]);
+		long time = Long.parseLong(params[2]) * 1000;
+		String reason = String.join(" ", Arrays.copyOfRange(params, 3, params.length));
+		return id + days + time + reason.length();
+	}
+
+	@Benchmark
+	public long schemaParsedArgs() throws ValidatorException {
+		Arguments arguments = banSchema.parse(new CommandContext(bot, ban, "!", "ban", 4));
+		return arguments.getId("user") + arguments.getInt("days") + arguments.getDuration("time", TimeUnit.MILLISECONDS)
+				+ arguments.getString("reason").length();
+	}
+
+	@Benchmark
+	public void helpRendering() throws CommandNotFoundException, CommandException, ValidatorException {
+		bot.executeCommand("help", help);
+	}
+
+	@Benchmark
+	public void helpCommandRendering() throws CommandNotFoundException, CommandException, ValidatorException {
+		bot.executeCommand("help", helpEcho);
+	}
+}
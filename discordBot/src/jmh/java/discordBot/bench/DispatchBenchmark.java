@@ -0,0 +1,130 @@
+package discordBot.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import discordBot.DispatchResult;
+import discordBot.command.AbstractCommand;
+import discordBot.command.CommandContext;
+import discordBot.command.interceptor.AbstractInterceptor;
+import discordBot.exceptions.CommandNotFoundException;
+import discordBot.offline.OfflineChannel;
+import discordBot.offline.OfflineEvents;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+
+/**
+ * The path of a message: onMessageReceived -> processMessage -> dispatch ->
+ * AbstractCommand.run
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+	private BenchBot bot, intercepted;
+	private MessageChannel channel;
+	private MessageReceivedEvent chat, unknown, ping, echo;
+
+	@Setup
+	public void setup() throws Exception {
+		bot = new BenchBot();
+		intercepted = new BenchBot();
+		for (int i = 0; i < 3; i++) {
+			intercepted.addInterceptor(new AbstractInterceptor() {
+				@Override
+				public boolean before(CommandContext context) {
+					return context.argCount() >= 0;
+				}
+			});
+		}
+		OfflineChannel offline = new OfflineChannel(1, 2);
+		offline.setKeepMessages(false);
+		channel = offline.getChannel();
+		chat = OfflineEvents.message(offline, 3, "hello everyone, how are you doing today?");
+		unknown = OfflineEvents.message(offline, 3, "!nope this is not a command");
+		ping = OfflineEvents.message(offline, 3, "!ping");
+		echo = OfflineEvents.message(offline, 3, "!echo some params for the command");
+	}
+
+	@Benchmark
+	public void chatMessage() {
+		bot.onMessageReceived(chat);
+	}
+
+	@Benchmark
+	public void unknownCommand() {
+		bot.onMessageReceived(unknown);
+	}
+
+	@Benchmark
+	public DispatchResult unknownDispatch() {
+		return bot.dispatch("nope", unknown);
+	}
+
+	@Benchmark
+	public Object unknownExecuteCommand() {
+		try {
+			bot.executeCommand("nope", unknown);
+			return null;
+		} catch (CommandNotFoundException e) {
+			return e;
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Benchmark
+	public Object unknownSuggestions() {
+		try {
+			bot.executeCommand("pnig", unknown);
+			return null;
+		} catch (CommandNotFoundException e) {
+			return e.getSuggestions();
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Benchmark
+	public void pingCommand() {
+		bot.onMessageReceived(ping);
+	}
+
+	@Benchmark
+	public void echoCommand() {
+		bot.onMessageReceived(echo);
+	}
+
+	@Benchmark
+	public DispatchResult echoDispatch() {
+		return bot.dispatch("echo", echo);
+	}
+
+	@Benchmark
+	public DispatchResult echoDispatchIntercepted() {
+		return intercepted.dispatch("echo", echo);
+	}
+
+	@Benchmark
+	public boolean prefixMatching() {
+		return chat.getMessage().getContentRaw().startsWith(bot.getPrefix(channel));
+	}
+
+	@Benchmark
+	public AbstractCommand commandLookup() {
+		return bot.getCommand("echo");
+	}
+}
@@ -0,0 +1,42 @@
+package discordBot.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import discordBot.command.AbstractCommand;
+import discordBot.command.CommandIndex;
+
+/**
+ * Finding the commands at startup: the compile time index against the
+ * Reflections scan of the classpath. Single shot, each fork is a cold startup
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+public class StartupBenchmark {
+
+	@Benchmark
+	public List<Class<? extends AbstractCommand>> indexLoad() throws Exception {
+		return CommandIndex.load(BenchBot.COMMANDS, StartupBenchmark.class.getClassLoader());
+	}
+
+	@Benchmark
+	public List<Class<? extends AbstractCommand>> reflectionsScan() {
+		return CommandIndex.scan(BenchBot.COMMANDS, StartupBenchmark.class.getClassLoader());
+	}
+
+	@Benchmark
+	public BenchBot botStartup() throws Exception {
+		return new BenchBot();
+	}
+}
@@ -0,0 +1,71 @@
+package discordBot.bench;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import discordBot.timer.TimerWheel;
+
+/**
+ * Schedule then cancel a task while many timers are pending (reminders, timed
+ * mutes): the timer wheel against a ScheduledThreadPoolExecutor, whose heap
+ * costs O(log n)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimerBenchmark {
+	private static final Runnable NOTHING = () -> {
+	};
+
+	@Param({ "100000" })
+	public int pendingTimers;
+
+	private TimerWheel wheel;
+	private ScheduledThreadPoolExecutor executor;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		wheel = new TimerWheel(null);
+		executor = new ScheduledThreadPoolExecutor(1);
+		executor.setRemoveOnCancelPolicy(true);
+		for (int i = 0; i < pendingTimers; i++) {
+			wheel.schedule(NOTHING, 1 + i % 3600, TimeUnit.HOURS);
+			executor.schedule(NOTHING, 1 + i % 3600, TimeUnit.HOURS);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		wheel.stop();
+		executor.shutdownNow();
+	}
+
+	@Benchmark
+	public boolean wheelScheduleCancel() {
+		return wheel.schedule(NOTHING, 30, TimeUnit.MINUTES).cancel();
+	}
+
+	@Benchmark
+	public boolean executorScheduleCancel() {
+		ScheduledFuture<?> future = executor.schedule(NOTHING, 30, TimeUnit.MINUTES);
+		return future.cancel(false);
+	}
+}
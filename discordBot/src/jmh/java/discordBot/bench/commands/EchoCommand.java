@@ -0,0 +1,20 @@
+package discordBot.bench.commands;
+
+import discordBot.command.AbstractCommand;
+import discordBot.command.CommandContext;
+
+/**
+ * Read its params, like most of the real commands
+ */
+public class EchoCommand extends AbstractCommand {
+	public static int consumed;
+
+	public EchoCommand() {
+		super("echo", "Read the params", "echo <text>", "read the text", "echo <text> <text>", "read both texts");
+	}
+
+	@Override
+	protected void execute(CommandContext context) {
+		consumed += context.argCount();
+	}
+}
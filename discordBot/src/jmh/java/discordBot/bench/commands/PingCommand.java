@@ -0,0 +1,18 @@
+package discordBot.bench.commands;
+
+import discordBot.command.AbstractCommand;
+import discordBot.command.CommandContext;
+
+/**
+ * Cheapest possible command: do nothing
+ */
+public class PingCommand extends AbstractCommand {
+
+	public PingCommand() {
+		super("ping", "Do nothing", "ping", "do nothing");
+	}
+
+	@Override
+	protected void execute(CommandContext context) {
+	}
+}
@@ -2,38 +2,98 @@ package discordBot;
 
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import javax.security.auth.login.LoginException;
 
-import org.reflections.Reflections;
-
 import discordBot.command.AbstractCommand;
+import discordBot.command.CommandContext;
+import discordBot.command.CommandIndex;
+import discordBot.command.CommandRegistry;
+import discordBot.command.CommandRouter;
 import discordBot.command.HelpCommand;
+import discordBot.command.MoreCommand;
+import discordBot.command.ReloadReport;
+import discordBot.command.Requirement;
+import discordBot.command.SuggestionIndex;
+import discordBot.command.cache.ResultCache;
+import discordBot.command.interceptor.AbstractInterceptor;
+import discordBot.command.interceptor.InterceptorChain;
+import discordBot.config.ConfigStore;
 import discordBot.exceptions.CommandException;
 import discordBot.exceptions.CommandNotFoundException;
 import discordBot.exceptions.HelperException;
+import discordBot.exceptions.RateLimitException;
 import discordBot.exceptions.ValidatorException;
+import discordBot.execution.AdmissionControl;
+import discordBot.execution.ExecutionEngine;
+import discordBot.execution.Priority;
+import discordBot.metrics.Metrics;
+import discordBot.outbound.OutboundScheduler;
+import discordBot.outbound.PagedReply;
+import discordBot.prefix.PrefixStore;
+import discordBot.ratelimit.RateLimit;
+import discordBot.ratelimit.RateLimiter;
+import discordBot.replay.MessageRecorder;
+import discordBot.timer.TimerStore;
+import discordBot.timer.TimerWheel;
+import discordBot.util.ConcurrentLongMap;
 import net.dv8tion.jda.api.AccountType;
+import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.JDABuilder;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.GuildChannel;
 import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.events.GenericEvent;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder;
+import net.dv8tion.jda.api.sharding.ShardManager;
 
 public abstract class AbstractBot extends ListenerAdapter {
 
 	private static final String DEFAULTIDENTIFIER = "!";
 
-	private static AbstractBot INSTANCE;
+	private static volatile AbstractBot INSTANCE;
+	private static final OutboundScheduler OUTBOUND = new OutboundScheduler();
+	/** most channels whose next pages are kept, the least recently used are dropped */
+	private static final int MAX_PAGED_REPLIES = 4096;
 	
-	private Map<String, AbstractCommand> commandList;
-	private String prefix;
-	private Map<MessageChannel, String> prefixes;
+	private volatile CommandRegistry registry;
+	private final Object registryLock = new Object();
+	private volatile String packageName;
+	private volatile ClassLoader commandLoader;
+	// the class loader opened by reload(Path, String), closed by the next reload
+	private URLClassLoader jarLoader;
+	private volatile List<AbstractInterceptor> interceptors = Collections.emptyList();
+	private volatile String prefix;
+	private volatile PrefixStore prefixes;
+	private volatile ConfigStore config;
+	private volatile ExecutionEngine engine;
+	private volatile AdmissionControl admission;
+	private volatile RateLimiter userLimiter;
+	private volatile RateLimiter channelLimiter;
+	private final Metrics metrics = new Metrics();
+	private volatile JDA jda;
+	private volatile ShardManager shardManager;
+	private volatile LeanProfile leanProfile;
+	private volatile MessageRecorder recorder;
+	private final ConcurrentLongMap<PagedReply> pagedReplies = new ConcurrentLongMap<PagedReply>(
+			MAX_PAGED_REPLIES, (channel, reply) -> reply.close());
+	private volatile TimerWheel timers;
+	private volatile TimerStore timerStore;
+	private final Object timersLock = new Object();
 
 	/***
 	 * Abstract discord bot. Initialize the commands and the connection. Add a
@@ -60,16 +120,47 @@ public abstract class AbstractBot extends ListenerAdapter {
 	public AbstractBot(String packageName, String prefix)
 			throws InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException,
 			NoSuchMethodException, SecurityException, LoginException {
-		commandList = new HashMap<String, AbstractCommand>();
-		try {
-			addCommand(new HelpCommand(this));
-		} catch (HelperException e) {
-			System.err.println("There is a helper error in the help command lol: " + e.getMessage());
-		}
-		initCommands(packageName);
-		initConnexion();
+		this(packageName, prefix, true);
+	}
+
+	/***
+	 * Abstract discord bot. Initialize the commands, and the connection only if
+	 * connect is true. A bot built without connection can be fed with the events
+	 * of discordBot.offline (benchmarks, tests...)
+	 * 
+	 * @param packageName       Name of the package containing the commands. Use
+	 *                          reflection to load them
+	 * @param commandIdentifier String used to identify a command
+	 * @param connect           false to never connect to discord
+	 * @throws InstantiationException          Thrown if a command can't be
+	 *                                         instancied
+	 * @throws IllegalAccessException          Thrown if a command can't be
+	 *                                         instancied
+	 * @throws IllegalArgumentExceptionThrown  if a command can't be instancied
+	 * @throws InvocationTargetExceptionThrown if a command can't be instancied
+	 * @throws NoSuchMethodExceptionThrown     if a command can't be instancied
+	 * @throws SecurityException               Thrown if a command can't be
+	 *                                         instancied
+	 * @throws LoginException                  Thrown if the bot can't connect to
+	 *                                         discord
+	 */
+	protected AbstractBot(String packageName, String prefix, boolean connect)
+			throws InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException,
+			NoSuchMethodException, SecurityException, LoginException {
+		engine = new ExecutionEngine();
+		admission = new AdmissionControl();
+		metrics.setAdmission(admission);
 		this.prefix = prefix;
-		prefixes = new HashMap<MessageChannel, String>();
+		prefixes = new PrefixStore();
+		this.packageName = packageName;
+		this.commandLoader = getClass().getClassLoader();
+		registry = new CommandRegistry(initCommands(packageName, commandLoader), true, 1);
+		for (AbstractCommand command : registry.getCommands().values()) {
+			metrics.register(command.getMetrics());
+		}
+		if (connect) {
+			initConnexion();
+		}
 		_register(this);
 	}
 
@@ -97,9 +188,35 @@ public abstract class AbstractBot extends ListenerAdapter {
 		this(packageName, DEFAULTIDENTIFIER);
 	}
 	
+	/**
+	 * @return the last bot created
+	 * @deprecated a JVM can run several bots, use CommandContext.getBot() or
+	 *             AbstractBot.of(event)
+	 */
+	@Deprecated
 	public static AbstractBot getInstance() {
 		return INSTANCE;
 	}
+
+	/**
+	 * Find the bot receiving an event: the bot listening to the JDA (or the shard)
+	 * of the event
+	 * 
+	 * @param event an event
+	 * @return the bot, or the last bot created if none listen to the JDA of the
+	 *         event
+	 */
+	public static AbstractBot of(GenericEvent event) {
+		JDA jda = event.getJDA();
+		if (jda != null) {
+			for (Object listener : jda.getRegisteredListeners()) {
+				if (listener instanceof AbstractBot) {
+					return (AbstractBot) listener;
+				}
+			}
+		}
+		return INSTANCE;
+	}
 	
 	private static void _register(AbstractBot b) {
 		INSTANCE = b;
@@ -117,17 +234,86 @@ public abstract class AbstractBot extends ListenerAdapter {
 		return text.substring(prefix.length());
 	}
 	
+	/**
+	 * @param channel a channel
+	 * @return the prefix of the channel, or of its guild, or the default one
+	 */
 	public String getPrefix(MessageChannel channel) {
-		String prefix = prefixes.get(channel);
-		if(prefix == null) {
-			prefixes.put(channel, prefix);
-			prefix = getPrefix();
-		}
-		return prefix;
+		ConfigStore config = this.config;
+		String prefix = config != null ? config.getPrefix(guildId(channel), channel.getIdLong())
+				: prefixes.get(guildId(channel), channel.getIdLong());
+		return prefix == null ? this.prefix : prefix;
 	}
 	
+	/**
+	 * @param channel a channel
+	 * @param prefix  the prefix of the channel, null to use the one of its guild
+	 *                again
+	 */
 	public void setPrefix(MessageChannel channel, String prefix) {
-		prefixes.put(channel, prefix);
+		ConfigStore config = this.config;
+		if (config != null) {
+			config.setChannelPrefix(channel.getIdLong(), prefix);
+		} else {
+			prefixes.setChannelPrefix(channel.getIdLong(), prefix);
+		}
+	}
+
+	/**
+	 * @param guild  a guild
+	 * @param prefix the prefix of all the channels of the guild without their own
+	 *               prefix, null to use the default one again
+	 */
+	public void setPrefix(Guild guild, String prefix) {
+		ConfigStore config = this.config;
+		if (config != null) {
+			config.setGuildPrefix(guild.getIdLong(), prefix);
+		} else {
+			prefixes.setGuildPrefix(guild.getIdLong(), prefix);
+		}
+	}
+
+	private static long guildId(MessageChannel channel) {
+		return channel instanceof GuildChannel ? ((GuildChannel) channel).getGuild().getIdLong() : 0;
+	}
+
+	public PrefixStore getPrefixStore() {
+		return prefixes;
+	}
+
+	/**
+	 * Replace the store of the channel and guild prefixes, eg: by one backed by a
+	 * file to keep them across restarts
+	 * 
+	 * @param prefixes the new store
+	 */
+	public void setPrefixStore(PrefixStore prefixes) {
+		this.prefixes = prefixes;
+	}
+
+	public ConfigStore getConfigStore() {
+		return config;
+	}
+
+	/**
+	 * Keep the settings of the guilds and channels (prefix, disabled commands,
+	 * cooldowns) in a store, eg: one backed by a file to keep them across
+	 * restarts. The prefixes are then read from and written to it instead of
+	 * the prefix store
+	 * 
+	 * @param config the store, null to use the prefix store again
+	 */
+	public void setConfigStore(ConfigStore config) {
+		this.config = config;
+	}
+
+	/**
+	 * @return true if the command is disabled in the channel or its guild by the
+	 *         config store
+	 */
+	private boolean isDisabled(AbstractCommand command, MessageChannel channel) {
+		ConfigStore config = this.config;
+		return config != null && config.isDisabled(channel, command.getName());
 	}
 	
 	public String removePrefix(MessageChannel channel, String text) {
@@ -139,17 +325,131 @@ public abstract class AbstractBot extends ListenerAdapter {
 	}
 
 	/**
-	 * Initialize the connection to discord
+	 * Initialize the connection to discord. With more than one shard, all the
+	 * shards share this bot: its commands, its execution engine and its metrics
 	 * 
 	 * @throws LoginException If the bot can't connect to discord
 	 */
 	private void initConnexion() throws LoginException {
-		JDABuilder builder = new JDABuilder(AccountType.BOT);
-		String token = "";
-		token = getToken();
-		builder.setToken(token);
-		builder.addEventListeners(this);
-		builder.build();
+		String token = getToken();
+		int shards = getShardCount();
+		LeanProfile profile = isLean() ? LeanProfile.of(getCommands().values(), getRequirements()) : null;
+		leanProfile = profile;
+		if (shards == 1) {
+			JDABuilder builder = new JDABuilder(AccountType.BOT);
+			builder.setToken(token);
+			builder.addEventListeners(this);
+			if (profile != null) {
+				profile.apply(builder);
+			}
+			jda = builder.build();
+		} else {
+			DefaultShardManagerBuilder builder = new DefaultShardManagerBuilder();
+			builder.setToken(token);
+			builder.setShardsTotal(shards);
+			builder.addEventListeners(this);
+			if (profile != null) {
+				profile.apply(builder);
+			}
+			shardManager = builder.build();
+		}
+	}
+
+	/**
+	 * Connect with only the caches and events the commands require (see
+	 * AbstractCommand.require), instead of the JDA defaults caching every
+	 * member, presence, voice state and emote. Default is false, overload it to
+	 * use a lean connection
+	 * 
+	 * @return true for a lean connection
+	 */
+	public boolean isLean() {
+		return false;
+	}
+
+	/**
+	 * What the bot needs from the connection itself, outside of its commands (eg:
+	 * in its hooks), for a lean connection. Default is nothing
+	 * 
+	 * @return the requirements of the bot
+	 */
+	protected Set<Requirement> getRequirements() {
+		return Collections.emptySet();
+	}
+
+	/**
+	 * @return the configuration of the lean connection, or null if the bot isn't
+	 *         lean or isn't connected
+	 */
+	public LeanProfile getLeanProfile() {
+		return leanProfile;
+	}
+
+	/**
+	 * The number of shards (connections to discord) of the bot. Discord requires
+	 * sharding past 2500 guilds. Default is 1, overload it to shard the bot
+	 * 
+	 * @return the number of shards, or -1 for the number recommended by discord
+	 */
+	public int getShardCount() {
+		return 1;
+	}
+
+	/**
+	 * @return the connection of the bot when it isn't sharded, otherwise null
+	 */
+	public JDA getJDA() {
+		return jda;
+	}
+
+	/**
+	 * @return the shards of the bot when it is sharded, otherwise null
+	 */
+	public ShardManager getShardManager() {
+		return shardManager;
+	}
+
+	/**
+	 * Disconnect the bot and stop its execution engine and metrics exporters
+	 */
+	public void shutdown() {
+		if (jda != null) {
+			jda.shutdown();
+		}
+		if (shardManager != null) {
+			shardManager.shutdown();
+		}
+		engine.shutdown();
+		metrics.close();
+		ConfigStore config = this.config;
+		if (config != null) {
+			try {
+				config.close();
+			} catch (IOException e) {
+				System.err.println("Error closing the config store: " + e.getMessage());
+			}
+		}
+		TimerWheel timers = this.timers;
+		if (timers != null) {
+			timers.stop();
+		}
+		TimerStore timerStore = this.timerStore;
+		if (timerStore != null) {
+			try {
+				timerStore.close();
+			} catch (IOException e) {
+				System.err.println("Error closing the timer store: " + e.getMessage());
+			}
+		}
+		MessageRecorder recorder = this.recorder;
+		if (recorder != null) {
+			this.recorder = null;
+			try {
+				recorder.close();
+			} catch (IOException e) {
+				System.err.println("Error closing the message recorder: " + e.getMessage());
+			}
+		}
 	}
 
 	/**
@@ -169,11 +469,14 @@ public abstract class AbstractBot extends ListenerAdapter {
 	}
 
 	/**
-	 * Use reflection to initialize the command. It will instantiate all the classes
-	 * extending AbstractCommand that are contained in the "packageName" package and
-	 * it's sub-package
+	 * Initialize the commands. It will instantiate all the classes extending
+	 * AbstractCommand that are contained in the "packageName" package and it's
+	 * sub-package. They are read from the command index written at compile time
+	 * by CommandIndexProcessor, or found by reflection if there is no index
 	 * 
 	 * @param packageName The root package of the commands
+	 * @param loader      The class loader of the commands
+	 * @return the default help command followed by the commands of the package
 	 * @throws InstantiationException
 	 * @throws IllegalAccessException
 	 * @throws IllegalArgumentException
@@ -181,31 +484,259 @@ public abstract class AbstractBot extends ListenerAdapter {
 	 * @throws NoSuchMethodException
 	 * @throws SecurityException
 	 */
-	private void initCommands(String packageName) throws InstantiationException, IllegalAccessException,
-			IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException {
-		Reflections reflections = new Reflections(packageName);
-		Set<Class<? extends AbstractCommand>> allCommands = reflections.getSubTypesOf(AbstractCommand.class);
-		for (Class<? extends AbstractCommand> command : allCommands) {
-			if (Modifier.isAbstract(command.getModifiers())) {
-				continue;
+	private List<AbstractCommand> initCommands(String packageName, ClassLoader loader)
+			throws InstantiationException, IllegalAccessException, IllegalArgumentException,
+			InvocationTargetException, NoSuchMethodException, SecurityException {
+		List<AbstractCommand> commands = new ArrayList<AbstractCommand>();
+		try {
+			commands.add(new HelpCommand(this));
+		} catch (HelperException e) {
+			System.err.println("There is a helper error in the help command lol: " + e.getMessage());
+		}
+		commands.add(new MoreCommand(this));
+		for (Class<? extends AbstractCommand> command : CommandIndex.find(packageName, loader)) {
+			commands.add(CommandIndex.instantiate(command));
+		}
+		return commands;
+	}
+
+	/**
+	 * Instantiate again the commands of the package of the bot, eg: to reset
+	 * their state, without reconnecting. See reload(String, ClassLoader)
+	 * 
+	 * @return what changed
+	 * @throws ReflectiveOperationException if a command can't be instancied, the
+	 *                                       commands are left unchanged
+	 */
+	public ReloadReport reload() throws ReflectiveOperationException {
+		return reload(packageName, commandLoader);
+	}
+
+	/**
+	 * @return the class loader of the commands, the one of the last reload
+	 */
+	public ClassLoader getCommandLoader() {
+		return commandLoader;
+	}
+
+	/**
+	 * Replace the commands of the bot by the ones of an external jar. The jar
+	 * gets its own class loader, its classes must not be on the classpath of the
+	 * bot or the ones already loaded are used. The class loader of the previous
+	 * jar is closed (releasing the jar, so it can be replaced) once the commands
+	 * routed to it ended: what they left behind (timers, callbacks) can't load
+	 * new classes from it anymore
+	 * 
+	 * @param jar         the jar of the commands
+	 * @param packageName the root package of the commands in the jar
+	 * @return what changed
+	 * @throws IOException                   if the jar can't be opened
+	 * @throws ReflectiveOperationException if a command can't be instancied, the
+	 *                                       commands are left unchanged
+	 */
+	public ReloadReport reload(Path jar, String packageName) throws IOException, ReflectiveOperationException {
+		if (!Files.isRegularFile(jar)) {
+			throw new IOException("No jar at " + jar);
+		}
+		URLClassLoader loader = new URLClassLoader(new URL[] { jar.toUri().toURL() }, getClass().getClassLoader());
+		try {
+			return reload(packageName, loader, true);
+		} catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+			closeQuietly(loader);
+			throw e;
+		}
+	}
+
+	/**
+	 * Replace the commands of the bot by the ones of a package, without
+	 * reconnecting. The new commands are built aside and published at once: a
+	 * message is routed either to the old commands or to the new ones, never to a
+	 * mix, and the commands running end normally.
+	 * 
+	 * The commands are new instances: what was set on the old ones at runtime
+	 * is lost, eg: a ResultCache or a cooldown set from outside the command, the
+	 * results cached and the cooldown state of the users. The interceptors, the
+	 * rate limits of the bot and the config store are kept
+	 * 
+	 * @param packageName the root package of the commands
+	 * @param loader      the class loader of the commands, never closed by the
+	 *                    bot
+	 * @return what changed, and how long it took
+	 * @throws ReflectiveOperationException if a command can't be instancied, the
+	 *                                       commands are left unchanged
+	 */
+	public ReloadReport reload(String packageName, ClassLoader loader) throws ReflectiveOperationException {
+		return reload(packageName, loader, false);
+	}
+
+	/**
+	 * @param ownLoader true if the loader was opened by the bot, to close once
+	 *                  replaced
+	 */
+	private ReloadReport reload(String packageName, ClassLoader loader, boolean ownLoader)
+			throws ReflectiveOperationException {
+		long start = System.nanoTime();
+		List<AbstractCommand> commands = initCommands(packageName, loader);
+		long loaded = System.nanoTime();
+		synchronized (registryLock) {
+			CommandRegistry previous = registry;
+			CommandRegistry next = new CommandRegistry(commands, previous.isCaseSensitive(),
+					previous.getVersion() + 1);
+			compileInterceptors(next);
+			registry = next;
+			warnMissingRequirements(next);
+			this.packageName = packageName;
+			this.commandLoader = loader;
+			URLClassLoader previousJar = jarLoader;
+			if (ownLoader) {
+				jarLoader = (URLClassLoader) loader;
+			} else if (loader != previousJar) {
+				jarLoader = null;
+			}
+			if (previousJar != null && previousJar != jarLoader) {
+				previous.retire(() -> closeQuietly(previousJar));
+			}
+			for (AbstractCommand command : previous.getCommands().values()) {
+				metrics.unregister(command.getMetrics());
+			}
+			for (AbstractCommand command : next.getCommands().values()) {
+				metrics.register(command.getMetrics());
+			}
+			return new ReloadReport(previous.getCommands(), next.getCommands(), loaded - start,
+					System.nanoTime() - start);
+		}
+	}
+
+	private static void closeQuietly(URLClassLoader loader) {
+		try {
+			loader.close();
+		} catch (IOException e) {
+			System.err.println("Error closing the class loader of the previous commands: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * The connection can't change its caches: tell about the commands loaded
+	 * after the connection requiring more than a lean connection caches
+	 */
+	private void warnMissingRequirements(CommandRegistry registry) {
+		LeanProfile profile = leanProfile;
+		if (profile == null) {
+			return;
+		}
+		for (AbstractCommand command : registry.getCommands().values()) {
+			Set<Requirement> missing = profile.missing(command.getRequirements());
+			if (!missing.isEmpty()) {
+				System.err.println("The command " + command.getName() + " requires " + missing
+						+ ", not cached by the lean connection: restart the bot");
 			}
-			AbstractCommand newCommand = command.getDeclaredConstructor().newInstance();
-			addCommand(newCommand);
 		}
-	};
+	}
+
+	/**
+	 * @return the interceptors run around the commands, in their order
+	 */
+	public List<AbstractInterceptor> getInterceptors() {
+		return interceptors;
+	}
+
+	/**
+	 * Run an interceptor around the commands it applies to, after the
+	 * interceptors already added. The chain of each command is compiled here and
+	 * on each reload, not for each message
+	 * 
+	 * @param interceptor the interceptor
+	 */
+	public void addInterceptor(AbstractInterceptor interceptor) {
+		synchronized (registryLock) {
+			List<AbstractInterceptor> next = new ArrayList<AbstractInterceptor>(interceptors);
+			next.add(interceptor);
+			interceptors = Collections.unmodifiableList(next);
+			compileInterceptors(registry);
+		}
+	}
+
+	/**
+	 * @param interceptor the interceptor to remove
+	 * @return true if the interceptor was run around the commands
+	 */
+	public boolean removeInterceptor(AbstractInterceptor interceptor) {
+		synchronized (registryLock) {
+			List<AbstractInterceptor> next = new ArrayList<AbstractInterceptor>(interceptors);
+			if (!next.remove(interceptor)) {
+				return false;
+			}
+			interceptors = Collections.unmodifiableList(next);
+			compileInterceptors(registry);
+			return true;
+		}
+	}
+
+	/**
+	 * Give each command the chain of the interceptors applying to it
+	 */
+	private void compileInterceptors(CommandRegistry registry) {
+		List<AbstractInterceptor> interceptors = this.interceptors;
+		for (AbstractCommand command : registry.getCommands().values()) {
+			command.setInterceptors(InterceptorChain.of(interceptors, command));
+		}
+	}
 
-	private void addCommand(AbstractCommand command) {
-		commandList.put(command.getName(), command);
+	/**
+	 * @return the current commands of the bot. Read it once to work on a
+	 *         consistent set of commands, a reload publish a new registry
+	 */
+	public CommandRegistry getRegistry() {
+		return registry;
 	}
 
 	/**
-	 * Return the command named commandName from the commandList
+	 * @return the commands of the bot by name, read only
+	 */
+	public Map<String, AbstractCommand> getCommands() {
+		return registry.getCommands();
+	}
+
+	/**
+	 * @return a number changing each time the commands of the bot change, to
+	 *         invalidate what is computed from them
+	 */
+	public int getCommandsVersion() {
+		return registry.getVersion();
+	}
+
+	/**
+	 * @return the index suggesting the commands closest to an unknown one, built
+	 *         on the first unknown command after the commands change
+	 */
+	public SuggestionIndex getSuggestionIndex() {
+		return registry.getSuggestionIndex();
+	}
+
+	/**
+	 * Return the command named (or aliased) commandName
 	 * 
 	 * @param commandName The name of the command
 	 * @return the command named commandName or null if it doesn't exist
 	 */
 	public final AbstractCommand getCommand(String commandName) {
-		return commandList.get(commandName);
+		return registry.get(commandName);
+	}
+
+	public boolean isCaseSensitive() {
+		return registry.isCaseSensitive();
+	}
+
+	/**
+	 * Match or not the command names whatever their case ("!HELP" is "!help").
+	 * Default is case sensitive
+	 * 
+	 * @param caseSensitive
+	 */
+	public void setCaseSensitive(boolean caseSensitive) {
+		synchronized (registryLock) {
+			registry = registry.withCaseSensitive(caseSensitive);
+		}
 	}
 
 	/**
@@ -218,59 +749,344 @@ public abstract class AbstractBot extends ListenerAdapter {
 	 */
 	@Override
 	public void onMessageReceived(MessageReceivedEvent event) {
-		MessageChannel channel = event.getChannel();
-		String prefix = prefixes.get(channel);
-		if(prefix == null) {
-			prefixes.put(channel, prefix);
-			prefix = getPrefix();
+		MessageRecorder recorder = this.recorder;
+		if (recorder != null) {
+			record(recorder, event);
 		}
-		processMessage(event, prefix);
+		processMessage(event, getPrefix(event.getChannel()));
 	}
-	
-	public void processMessage(MessageReceivedEvent event, String prefix) {
-		if (event.getAuthor().isBot()) {
-			return;
+
+	private void record(MessageRecorder recorder, MessageReceivedEvent event) {
+		try {
+			recorder.record(event);
+		} catch (IOException e) {
+			System.err.println("Error recording a message, recording stopped: " + e.getMessage());
+			if (this.recorder == recorder) {
+				this.recorder = null;
+			}
 		}
+	}
+
+	public MessageRecorder getRecorder() {
+		return recorder;
+	}
+
+	/**
+	 * Record all the messages received, commands or not, to replay them later
+	 * with discordBot.replay.Replay. The recorder is closed by shutdown
+	 * 
+	 * @param recorder the recorder, null to stop recording
+	 */
+	public void setRecorder(MessageRecorder recorder) {
+		this.recorder = recorder;
+	}
+	
+	/**
+	 * Find and execute the command of a message. The prefix and the command name
+	 * are matched in one pass by the router, a message not starting with the
+	 * prefix cost a single comparison. The command is then handed to the
+	 * execution engine, through the admission control
+	 * 
+	 * @param event  the message received
+	 * @param prefix the prefix identifying a command
+	 * @return IGNORED, NOT_FOUND, DISABLED, SHED or QUEUED. The outcome of the
+	 *         command itself is given to the hooks
+	 */
+	public DispatchResult processMessage(MessageReceivedEvent event, String prefix) {
 		String message = event.getMessage().getContentRaw();
-		if (!message.startsWith(prefix)) {
-			return;
+		if (!message.startsWith(prefix) || event.getAuthor().isBot()) {
+			metrics.message(true);
+			return DispatchResult.IGNORED;
 		}
-		message = removePrefix(event.getChannel(), message);
-		String command = message.split(" ", 0)[0];
+		metrics.message(false);
+		long start = System.nanoTime();
+		CommandRegistry registry = enterRegistry();
+		boolean handedOff = false;
 		try {
-			executeCommand(command, event);
-		} catch (CommandNotFoundException e) {
-			commandNotFoundException(event.getChannel(), e);
-		} catch (CommandException e) {
-			commandException(event.getChannel(), e);
-		} catch (ValidatorException e) {
-			validatorException(event.getChannel(), e);
+			CommandRouter.Route route = registry.getRouter().route(message, prefix.length());
+			if (route == null) {
+				return notFound(event.getChannel(), commandName(message, prefix.length()));
+			}
+			AbstractCommand command = route.getCommand();
+			if (isDisabled(command, event.getChannel())) {
+				return DispatchResult.DISABLED;
+			}
+			CommandContext context = context(event, prefix, route);
+			long queued = System.nanoTime();
+			metrics.recordRouting(queued - start);
+			MessageChannel channel = event.getChannel();
+			ExecutionEngine engine = this.engine;
+			AdmissionControl admission = this.admission;
+			if (admission == null) {
+				engine.submit(channel, () -> {
+					try {
+						metrics.recordQueueWait(System.nanoTime() - queued);
+						dispatch(command, context);
+					} finally {
+						registry.exit();
+					}
+				});
+				handedOff = true;
+				return DispatchResult.QUEUED;
+			}
+			Priority priority = command.getPriority();
+			// admitted by lane: a guild only takes a slot for the command its lane runs
+			long key = engine.key(channel);
+			Runnable task = () -> {
+				try {
+					metrics.recordQueueWait(System.nanoTime() - queued);
+					dispatch(command, context);
+				} finally {
+					admission.done(key, priority);
+					registry.exit();
+				}
+			};
+			Runnable submit = () -> {
+				try {
+					engine.submit(key, task);
+				} catch (RuntimeException e) {
+					// never run (the engine is stopped): give its slot back
+					System.err.println("Can't run the command " + command.getName() + ": " + e);
+					admission.done(key, priority);
+					registry.exit();
+				}
+			};
+			AdmissionControl.Admission admitted = admission.offer(key, priority, submit, () -> {
+				registry.exit();
+				commandShed(channel, command);
+			});
+			handedOff = true;
+			return admitted == AdmissionControl.Admission.SHED ? DispatchResult.SHED : DispatchResult.QUEUED;
+		} finally {
+			if (!handedOff) {
+				registry.exit();
+			}
 		}
 	}
-	
-	public void processMessage(MessageReceivedEvent event) {
-		if (event.getAuthor().isBot()) {
-			return;
-		}
-		String message = event.getMessage().getContentRaw();
-		if (!message.startsWith(prefix)) {
-			return;
+
+	/**
+	 * @return the current registry, counting a message routed with it. Read
+	 *         again if a reload published another one meanwhile, so a replaced
+	 *         registry never gets a new message once retired
+	 */
+	private CommandRegistry enterRegistry() {
+		while (true) {
+			CommandRegistry current = registry;
+			current.enter();
+			if (current == registry) {
+				return current;
+			}
+			current.exit();
 		}
-		message = removePrefix(message);
-		String command = message.split(" ", 0)[0];
+	}
+
+	/**
+	 * Call the commandNotFoundException hook. The exception has no stack trace:
+	 * an unknown command is a common case ("!" is common punctuation), not a bug
+	 */
+	private DispatchResult notFound(MessageChannel channel, String commandName) {
+		metrics.notFound();
+		commandNotFoundException(channel, new CommandNotFoundException(commandName, true, getSuggestionIndex()));
+		return DispatchResult.NOT_FOUND;
+	}
+
+	/**
+	 * Run a command and route its errors to the hooks
+	 */
+	private DispatchResult dispatch(AbstractCommand command, CommandContext context) {
 		try {
-			executeCommand(command, event);
-		} catch (CommandNotFoundException e) {
-			commandNotFoundException(event.getChannel(), e);
+			return command.run(context) ? DispatchResult.OK : DispatchResult.INTERCEPTED;
+		} catch (RateLimitException e) {
+			rateLimitExceeded(context.getChannel(), e);
+			return DispatchResult.RATE_LIMITED;
 		} catch (CommandException e) {
-			commandException(event.getChannel(), e);
+			commandException(context.getChannel(), e);
+			return DispatchResult.FAILED;
 		} catch (ValidatorException e) {
-			validatorException(event.getChannel(), e);
+			validatorException(context.getChannel(), e);
+			return DispatchResult.VALIDATION_FAILED;
 		}
 	}
 
+	private CommandContext context(MessageReceivedEvent event, String prefix, CommandRouter.Route route) {
+		return new CommandContext(this, event, prefix, route.getName(), prefix.length() + route.length());
+	}
+
+	public DispatchResult processMessage(MessageReceivedEvent event) {
+		return processMessage(event, prefix);
+	}
+
 	/**
-	 * Execute the function commandName within the context of event
+	 * @return the first word of the message after the prefix
+	 */
+	private static String commandName(String message, int from) {
+		int end = message.indexOf(' ', from);
+		return message.substring(from, end < 0 ? message.length() : end);
+	}
+
+	/**
+	 * @return the rate at which each user can use the commands, or null if there
+	 *         is no limit
+	 */
+	public RateLimit getUserRateLimit() {
+		RateLimiter limiter = userLimiter;
+		return limiter == null ? null : limiter.getLimit();
+	}
+
+	/**
+	 * Limit the rate at which each user can use the commands, all commands and
+	 * channels together. Default is no limit
+	 * 
+	 * @param limit the rate allowed, null for no limit
+	 */
+	public void setUserRateLimit(RateLimit limit) {
+		userLimiter = limit == null ? null : new RateLimiter(limit);
+	}
+
+	/**
+	 * @return the rate at which the commands can be used in each channel, or null
+	 *         if there is no limit
+	 */
+	public RateLimit getChannelRateLimit() {
+		RateLimiter limiter = channelLimiter;
+		return limiter == null ? null : limiter.getLimit();
+	}
+
+	/**
+	 * Limit the rate at which the commands can be used in each channel, all users
+	 * together. Default is no limit
+	 * 
+	 * @param limit the rate allowed, null for no limit
+	 */
+	public void setChannelRateLimit(RateLimit limit) {
+		channelLimiter = limit == null ? null : new RateLimiter(limit);
+	}
+
+	/**
+	 * Check the rate limits of the author and the channel of a command, called by
+	 * AbstractCommand.run before the validators
+	 * 
+	 * @param context the command
+	 * @throws RateLimitException if the author or the channel is over its limit
+	 */
+	public void checkRateLimits(CommandContext context) throws RateLimitException {
+		RateLimiter limiter = userLimiter;
+		if (limiter != null) {
+			long wait = limiter.tryAcquire(context.getAuthor().getIdLong());
+			if (wait > 0) {
+				throw new RateLimitException(RateLimitException.Scope.USER, TimeUnit.NANOSECONDS.toMillis(wait) + 1);
+			}
+		}
+		limiter = channelLimiter;
+		if (limiter != null) {
+			long wait = limiter.tryAcquire(context.getChannel().getIdLong());
+			if (wait > 0) {
+				throw new RateLimitException(RateLimitException.Scope.CHANNEL, TimeUnit.NANOSECONDS.toMillis(wait) + 1);
+			}
+		}
+	}
+
+	/**
+	 * @return the measures of the bot and of its commands. Add an exporter to
+	 *         publish them (eg: metrics.addExporter(new HttpExporter(9100)))
+	 */
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * @return the timer of the bot, for the delayed work of the commands
+	 *         (reminders, timed mutes...). Started on the first call, its tasks
+	 *         run on a pool of daemon threads
+	 */
+	public TimerWheel getTimers() {
+		TimerWheel timers = this.timers;
+		if (timers == null) {
+			synchronized (timersLock) {
+				timers = this.timers;
+				if (timers == null) {
+					int threads = Runtime.getRuntime().availableProcessors();
+					timers = new TimerWheel(ExecutionEngine.defaultExecutor(threads));
+					metrics.setTimers(timers);
+					this.timers = timers;
+				}
+			}
+		}
+		return timers;
+	}
+
+	/**
+	 * Run a task after a delay, after the commands of its channel (or guild)
+	 * received before it expires, see ExecutionEngine
+	 * 
+	 * @param channel the channel of the task
+	 * @param task    the task
+	 * @param delay   the delay
+	 * @param unit    unit of delay
+	 * @return the handle of the task, to cancel it
+	 */
+	public TimerWheel.Timeout schedule(MessageChannel channel, Runnable task, long delay, TimeUnit unit) {
+		return getTimers().schedule(() -> engine.submit(channel, task), delay, unit);
+	}
+
+	/**
+	 * @return the durable tasks of the timer, or null if there is none
+	 */
+	public TimerStore getTimerStore() {
+		return timerStore;
+	}
+
+	/**
+	 * Keep the durable tasks across restarts: the pending tasks of the store are
+	 * scheduled on the timer of the bot, set the handlers of the store before
+	 * 
+	 * @param timerStore the store, closed with the bot
+	 */
+	public void setTimerStore(TimerStore timerStore) {
+		synchronized (timersLock) {
+			if (this.timerStore != null) {
+				throw new IllegalStateException("The bot already has a timer store");
+			}
+			timerStore.attach(getTimers());
+			this.timerStore = timerStore;
+		}
+	}
+
+	public ExecutionEngine getExecutionEngine() {
+		return engine;
+	}
+
+	public AdmissionControl getAdmissionControl() {
+		return admission;
+	}
+
+	/**
+	 * Replace the admission control bounding the commands handed to the
+	 * execution engine, eg: to change its bounds or its policy. The commands
+	 * already admitted release their slot in the admission control which
+	 * admitted them
+	 * 
+	 * @param admission the new admission control, null to hand all the commands
+	 *                  to the engine
+	 */
+	public void setAdmissionControl(AdmissionControl admission) {
+		this.admission = admission;
+		metrics.setAdmission(admission);
+	}
+
+	/**
+	 * Replace the engine running the commands found by processMessage, eg: by
+	 * ExecutionEngine.direct() to run them on the JDA event thread
+	 * 
+	 * @param engine the new engine
+	 */
+	public void setExecutionEngine(ExecutionEngine engine) {
+		this.engine = engine;
+	}
+
+	/**
+	 * Execute the function commandName within the context of event, on the
+	 * calling thread
 	 * 
 	 * @param commandName Name of the command to execute
 	 * @param event       Context of the function
@@ -281,21 +1097,200 @@ public abstract class AbstractBot extends ListenerAdapter {
 	 */
 	public void executeCommand(String commandName, MessageReceivedEvent event)
 			throws CommandNotFoundException, CommandException, ValidatorException {
-		AbstractCommand command = commandList.get(commandName);
-		if (command == null) {
-			throw new CommandNotFoundException(commandName);
+		// counted as in flight: a reload doesn't close the jar of a running command
+		CommandRegistry registry = enterRegistry();
+		try {
+			AbstractCommand command = registry.get(commandName);
+			if (command == null) {
+				throw new CommandNotFoundException(commandName, false, getSuggestionIndex());
+			}
+			command.run(context(registry, command, event));
+		} finally {
+			registry.exit();
 		}
-		command.run(event);
 	}
 
 	/**
-	 * Send a message from the bot to the channel specified
+	 * Execute the function commandName within the context of event, on the
+	 * calling thread. Same as executeCommand, but the errors are given to the
+	 * hooks instead of being thrown
+	 * 
+	 * @param commandName Name of the command to execute
+	 * @param event       Context of the function
+	 * @return OK, NOT_FOUND, DISABLED, VALIDATION_FAILED, FAILED or
+	 *         INTERCEPTED
+	 */
+	public DispatchResult dispatch(String commandName, MessageReceivedEvent event) {
+		CommandRegistry registry = enterRegistry();
+		try {
+			AbstractCommand command = registry.get(commandName);
+			if (command == null) {
+				return notFound(event.getChannel(), commandName);
+			}
+			if (isDisabled(command, event.getChannel())) {
+				return DispatchResult.DISABLED;
+			}
+			return dispatch(command, context(registry, command, event));
+		} finally {
+			registry.exit();
+		}
+	}
+
+	/**
+	 * @return the context of the message, parsed by the router when it names the
+	 *         command
+	 */
+	private CommandContext context(CommandRegistry registry, AbstractCommand command, MessageReceivedEvent event) {
+		String prefix = getPrefix(event.getChannel());
+		String message = event.getMessage().getContentRaw();
+		CommandRouter.Route route = message.startsWith(prefix) ? registry.getRouter().route(message, prefix.length())
+				: null;
+		if (route == null || route.getCommand() != command) {
+			return new CommandContext(this, event);
+		}
+		return context(event, prefix, route);
+	}
+
+	/**
+	 * Send a message from the bot to the channel specified. The messages sent to
+	 * a same channel in a burst are merged by the outbound scheduler
 	 * 
 	 * @param channel the channel to use
 	 * @param message the message to send
 	 */
 	public static void message(MessageChannel channel, String message) {
-		channel.sendMessage(message).queue();
+		ResultCache.sent(channel, message);
+		OUTBOUND.send(channel, message);
+	}
+
+	/**
+	 * Send a message built with DiscordHelper.Builder, split in messages of at
+	 * most 2000 chars
+	 * 
+	 * @param channel the channel to use
+	 * @param message the message to send
+	 */
+	public static void message(MessageChannel channel, DiscordHelper.Builder message) {
+		for (String chunk : message.chunks()) {
+			message(channel, chunk);
+		}
+	}
+
+	/**
+	 * Send a long answer line by line, without holding it: the lines are pulled
+	 * from their iterator a page at a time, each page is sent as a message
+	 * 
+	 * @param channel the channel to use
+	 * @param lines   the lines of the answer
+	 */
+	public static void message(MessageChannel channel, Iterator<? extends CharSequence> lines) {
+		try (PagedReply reply = new PagedReply(lines)) {
+			for (String page = reply.nextPage(); page != null; page = reply.nextPage()) {
+				message(channel, page);
+			}
+		}
+	}
+
+	/**
+	 * Send the first page of a long answer. The next pages are rendered only
+	 * when they are asked for with the more command. The answer is dropped when
+	 * another one is paged in the channel, or after
+	 * PagedReply.DEFAULT_TTL_MINUTES without a page asked
+	 * 
+	 * @param channel the channel to use
+	 * @param lines   the lines of the answer, pulled lazily. Closed once dropped
+	 *                if they are AutoCloseable
+	 */
+	public void page(MessageChannel channel, Iterator<? extends CharSequence> lines) {
+		page(channel, lines, lines instanceof AutoCloseable ? (AutoCloseable) lines : null);
+	}
+
+	/**
+	 * Send the first page of a long answer, see page(MessageChannel, Iterator).
+	 * The command paging isn't cached by its ResultCache: a hit would send the
+	 * first page without the next ones
+	 * 
+	 * @param channel the channel to use
+	 * @param lines   the lines of the answer, pulled lazily
+	 * @param source  where the lines come from (a cursor, a stream...), closed
+	 *                once the last page is sent or the answer is dropped. null
+	 *                for nothing to close
+	 */
+	public void page(MessageChannel channel, Iterator<? extends CharSequence> lines, AutoCloseable source) {
+		ResultCache.skip();
+		long id = channel.getIdLong();
+		String footer = "\n*" + getPrefix(channel) + "more for the next page*";
+		PagedReply reply = new PagedReply(lines, source, DiscordHelper.Builder.MAX_LENGTH, footer);
+		try {
+			String first = reply.nextPage();
+			if (first != null) {
+				message(channel, first);
+			}
+		} catch (RuntimeException e) {
+			reply.close();
+			throw e;
+		}
+		PagedReply previous;
+		if (reply.hasNext()) {
+			previous = pagedReplies.put(id, reply);
+			expireLater(id, reply);
+		} else {
+			previous = pagedReplies.remove(id);
+		}
+		if (previous != null) {
+			previous.close();
+		}
+	}
+
+	/**
+	 * Close a paged answer once it expired, if it wasn't dropped before
+	 */
+	private void expireLater(long channel, PagedReply reply) {
+		getTimers().schedule(() -> {
+			if (reply.isClosed()) {
+				return;
+			}
+			if (!reply.isExpired()) {
+				// a page was asked for meanwhile
+				expireLater(channel, reply);
+				return;
+			}
+			pagedReplies.remove(channel, reply);
+			reply.close();
+		}, reply.getExpiresIn(TimeUnit.MILLISECONDS) + 1, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Send the next page of the last answer paged in a channel
+	 * 
+	 * @param channel the channel
+	 * @return false if there is no page left, or the answer expired
+	 */
+	public boolean nextPage(MessageChannel channel) {
+		// the next page depends on the pages sent before: never cached
+		ResultCache.skip();
+		PagedReply reply = pagedReplies.get(channel.getIdLong());
+		if (reply == null) {
+			return false;
+		}
+		String page = reply.isExpired() ? null : reply.nextPage();
+		if (page == null || !reply.hasNext()) {
+			pagedReplies.remove(channel.getIdLong(), reply);
+			reply.close();
+		}
+		if (page == null) {
+			return false;
+		}
+		message(channel, page);
+		return true;
+	}
+
+	/**
+	 * @return the scheduler sending the messages of all the bots, and its
+	 *         counters
+	 */
+	public static OutboundScheduler getOutbound() {
+		return OUTBOUND;
 	}
 	
 	/**
@@ -309,7 +1304,8 @@ public abstract class AbstractBot extends ListenerAdapter {
 	}
 
 	/**
-	 * Command executed whenever a command is not found.
+	 * Command executed whenever a command is not found. e.getSuggestions() gives
+	 * the closest commands, if any
 	 * 
 	 * @param e
 	 */
@@ -328,4 +1324,24 @@ public abstract class AbstractBot extends ListenerAdapter {
 	 * @param e
 	 */
 	protected abstract void validatorException(MessageChannel channel, ValidatorException e);
+
+	/**
+	 * Command executed whenever a command is refused by a rate limit. Does
+	 * nothing by default: answering each refused command would spend the
+	 * messages the limit is saving
+	 * 
+	 * @param e
+	 */
+	protected void rateLimitExceeded(MessageChannel channel, RateLimitException e) {
+	}
+
+	/**
+	 * Command executed whenever a command is dropped because the bot is
+	 * overloaded, see AdmissionControl. Does nothing by default
+	 * 
+	 * @param channel the channel of the command
+	 * @param command the command dropped
+	 */
+	protected void commandShed(MessageChannel channel, AbstractCommand command) {
+	}
 }
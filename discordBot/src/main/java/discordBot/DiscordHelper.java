@@ -1,5 +1,9 @@
 package discordBot;
 
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
 /**
  * Helper for discord message formating
  * @author Emmathie
@@ -69,4 +73,412 @@ public abstract class DiscordHelper {
 	public static String colorRed(String text) {
 		return "```css\n[" + text.trim() + "]\n```";
 	}
+	
+	/**
+	 * Build a message in a single buffer, formatting included, then split it in
+	 * messages of at most 2000 chars. The split is done lazily, preferably at a
+	 * new line, and the formatting (code blocks, colored blocks, bold...) cut by
+	 * a split is closed at the end of a message and opened again at the start of
+	 * the next one.
+	 * 
+	 * The formatting methods trim their text, like the static helpers. A builder
+	 * is a CharSequence, its whole message: it can be formatted by another
+	 * builder, bold(new Builder().italic(x)), keeping the formatting of both
+	 * across the splits. A builder can be reused after clear().
+	 */
+	public static class Builder implements Appendable, CharSequence {
+		/** maximum length of a discord message */
+		public static final int MAX_LENGTH = 2000;
+
+		private static final String[] OPEN = { "**", "*", "__", "~~", "```", "```ini\n[", "```css\n[" };
+		private static final String[] CLOSE = { "**", "*", "__", "~~", "```", "]\n```", "]\n```" };
+		// a code block opened again after a split starts with a new line, else a
+		// first line made of one word would be read as the language of the block
+		private static final String[] REOPEN = { "**", "*", "__", "~~", "```\n", "```ini\n[", "```css\n[" };
+		private static final int BOLD = 0, ITALIC = 1, UNDERLINE = 2, STRIKE = 3, CODE = 4, BLUE = 5, RED = 6;
+
+		private final StringBuilder text;
+		// formatted parts of the text: start, end (exclusive) and kind, in start
+		// order. -1 as end for a block still open
+		private int[] starts = new int[8];
+		private int[] ends = new int[8];
+		private int[] kinds = new int[8];
+		private int spans;
+		private int[] openBlocks = new int[4];
+		private int depth;
+		// the whole message, rendered for the CharSequence methods
+		private String rendered;
+
+		public Builder() {
+			this(256);
+		}
+
+		/**
+		 * @param capacity the length expected, to size the buffer once
+		 */
+		public Builder(int capacity) {
+			this.text = new StringBuilder(capacity);
+		}
+
+		/**
+		 * @param csq the text to append, a builder keeps its formatting
+		 */
+		@Override
+		public Builder append(CharSequence csq) {
+			rendered = null;
+			if (csq instanceof Builder) {
+				Builder other = (Builder) csq;
+				appendFormatted(other, 0, other.text.length());
+			} else {
+				text.append(csq);
+			}
+			return this;
+		}
+
+		@Override
+		public Builder append(CharSequence csq, int start, int end) {
+			rendered = null;
+			text.append(csq, start, end);
+			return this;
+		}
+
+		@Override
+		public Builder append(char c) {
+			rendered = null;
+			text.append(c);
+			return this;
+		}
+
+		public Builder newLine() {
+			rendered = null;
+			text.append('\n');
+			return this;
+		}
+
+		public Builder bold(CharSequence text) {
+			return format(BOLD, text);
+		}
+
+		public Builder italic(CharSequence text) {
+			return format(ITALIC, text);
+		}
+
+		public Builder underline(CharSequence text) {
+			return format(UNDERLINE, text);
+		}
+
+		public Builder strike(CharSequence text) {
+			return format(STRIKE, text);
+		}
+
+		/**
+		 * @param text the text of a code block
+		 */
+		public Builder codeBlock(CharSequence text) {
+			return format(CODE, text);
+		}
+
+		/**
+		 * @param text the text of a code block colored in blue
+		 */
+		public Builder colorBlue(CharSequence text) {
+			return format(BLUE, text);
+		}
+
+		/**
+		 * @param text the text of a code block colored in red
+		 */
+		public Builder colorRed(CharSequence text) {
+			return format(RED, text);
+		}
+
+		/**
+		 * Open a code block, the text appended until endBlock is in it. Unlike
+		 * codeBlock, the text isn't trimmed
+		 */
+		public Builder startCodeBlock() {
+			return startBlock(CODE);
+		}
+
+		public Builder startColorBlue() {
+			return startBlock(BLUE);
+		}
+
+		public Builder startColorRed() {
+			return startBlock(RED);
+		}
+
+		/**
+		 * Close the last block opened
+		 */
+		public Builder endBlock() {
+			if (depth == 0) {
+				throw new IllegalStateException("No block to end");
+			}
+			rendered = null;
+			int span = openBlocks[--depth];
+			ends[span] = text.length();
+			if (ends[span] == starts[span]) {
+				// empty block: keep its markers as text
+				removeSpan(span);
+				text.append(OPEN[kinds[span]]).append(CLOSE[kinds[span]]);
+			}
+			return this;
+		}
+
+		private Builder startBlock(int kind) {
+			rendered = null;
+			int span = addSpan(kind, text.length(), -1);
+			if (depth == openBlocks.length) {
+				openBlocks = Arrays.copyOf(openBlocks, depth * 2);
+			}
+			openBlocks[depth++] = span;
+			return this;
+		}
+
+		private Builder format(int kind, CharSequence formatted) {
+			if (formatted == this) {
+				throw new IllegalArgumentException("A builder can't format itself");
+			}
+			rendered = null;
+			// a builder is trimmed on its text, its formatting is kept
+			CharSequence raw = formatted instanceof Builder ? ((Builder) formatted).text : formatted;
+			int start = 0, end = raw.length();
+			while (start < end && raw.charAt(start) <= ' ') {
+				start++;
+			}
+			while (end > start && raw.charAt(end - 1) <= ' ') {
+				end--;
+			}
+			if (start == end) {
+				text.append(OPEN[kind]).append(CLOSE[kind]);
+				return this;
+			}
+			// added before the spans of a builder: opened before and closed after them
+			int span = addSpan(kind, text.length(), -1);
+			if (formatted instanceof Builder) {
+				appendFormatted((Builder) formatted, start, end);
+			} else {
+				text.append(formatted, start, end);
+			}
+			ends[span] = text.length();
+			return this;
+		}
+
+		/**
+		 * Append the text of another builder between start and end, with its
+		 * formatting cut to it
+		 */
+		private void appendFormatted(Builder other, int start, int end) {
+			if (other == this) {
+				throw new IllegalArgumentException("A builder can't append itself");
+			}
+			int offset = text.length() - start;
+			text.append(other.text, start, end);
+			for (int span = 0; span < other.spans; span++) {
+				int from = Math.max(other.starts[span], start);
+				int to = Math.min(other.end(span), end);
+				if (to > from) {
+					addSpan(other.kinds[span], from + offset, to + offset);
+				}
+			}
+		}
+
+		private int addSpan(int kind, int start, int end) {
+			if (spans == starts.length) {
+				starts = Arrays.copyOf(starts, spans * 2);
+				ends = Arrays.copyOf(ends, spans * 2);
+				kinds = Arrays.copyOf(kinds, spans * 2);
+			}
+			starts[spans] = start;
+			ends[spans] = end;
+			kinds[spans] = kind;
+			return spans++;
+		}
+
+		private void removeSpan(int span) {
+			// only the last spans can be empty blocks, nothing was formatted in them
+			spans = span;
+		}
+
+		/**
+		 * @return the length of the whole message, formatting included
+		 */
+		@Override
+		public int length() {
+			return toString().length();
+		}
+
+		@Override
+		public char charAt(int index) {
+			return toString().charAt(index);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return toString().subSequence(start, end);
+		}
+
+		/**
+		 * Empty the builder, to build another message with the same buffers
+		 */
+		public Builder clear() {
+			rendered = null;
+			text.setLength(0);
+			spans = 0;
+			depth = 0;
+			return this;
+		}
+
+		/**
+		 * @return the whole message, not split
+		 */
+		@Override
+		public String toString() {
+			String rendered = this.rendered;
+			if (rendered == null) {
+				rendered = render(0, text.length());
+				this.rendered = rendered;
+			}
+			return rendered;
+		}
+
+		/**
+		 * @return the messages of at most 2000 chars, built one at a time while
+		 *         iterating. None if the builder is empty
+		 */
+		public Iterable<String> chunks() {
+			return chunks(MAX_LENGTH);
+		}
+
+		/**
+		 * @param maxLength the maximum length of a message
+		 * @return the messages of at most maxLength chars, built one at a time
+		 *         while iterating
+		 */
+		public Iterable<String> chunks(int maxLength) {
+			return () -> new Iterator<String>() {
+				private int from = 0;
+
+				@Override
+				public boolean hasNext() {
+					return from < text.length();
+				}
+
+				@Override
+				public String next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					int to = chunkEnd(from, maxLength);
+					String chunk = render(from, to);
+					from = to;
+					return chunk;
+				}
+			};
+		}
+
+		private int end(int span) {
+			return ends[span] < 0 ? Integer.MAX_VALUE : ends[span];
+		}
+
+		private int markers(int span, boolean reopened) {
+			return (reopened ? REOPEN : OPEN)[kinds[span]].length() + CLOSE[kinds[span]].length();
+		}
+
+		/**
+		 * Find where the message starting at from ends: as far as possible within
+		 * maxLength once formatted, preferably after a new line, else after a
+		 * space
+		 */
+		private int chunkEnd(int from, int maxLength) {
+			int length = text.length();
+			int overhead = 0;
+			int next = 0;
+			// the formatting open at from is opened again
+			while (next < spans && starts[next] <= from) {
+				if (end(next) > from) {
+					overhead += markers(next, starts[next] < from);
+				}
+				next++;
+			}
+			int end = from;
+			int lastLine = -1, lastSpace = -1;
+			while (end < length) {
+				int added = 0;
+				int span = next;
+				while (span < spans && starts[span] <= end) {
+					added += markers(span, false);
+					span++;
+				}
+				if (end + 1 - from + overhead + added > maxLength) {
+					break;
+				}
+				overhead += added;
+				next = span;
+				char c = text.charAt(end++);
+				if (c == '\n') {
+					lastLine = end;
+				} else if (c == ' ') {
+					lastSpace = end;
+				}
+			}
+			if (end == length) {
+				return end;
+			}
+			if (end == from) {
+				throw new IllegalArgumentException("maxLength too small for the formatting: " + maxLength);
+			}
+			// don't leave a tiny message for a far new line
+			if (lastLine > from + (end - from) / 2) {
+				return lastLine;
+			}
+			if (lastSpace > from + (end - from) / 2) {
+				return lastSpace;
+			}
+			if (Character.isHighSurrogate(text.charAt(end - 1)) && end - 1 > from) {
+				return end - 1;
+			}
+			return end;
+		}
+
+		/**
+		 * Render the text between from and to, with the formatting of the spans
+		 * crossing it
+		 */
+		private String render(int from, int to) {
+			StringBuilder out = new StringBuilder(to - from + 32);
+			int[] stack = new int[Math.max(depth, 4) + 4];
+			int top = 0;
+			int next = 0;
+			while (next < spans && starts[next] <= from) {
+				if (end(next) > from) {
+					if (top == stack.length) {
+						stack = Arrays.copyOf(stack, top * 2);
+					}
+					stack[top++] = next;
+					out.append((starts[next] < from ? REOPEN : OPEN)[kinds[next]]);
+				}
+				next++;
+			}
+			for (int i = from; i < to; i++) {
+				while (top > 0 && end(stack[top - 1]) == i) {
+					out.append(CLOSE[kinds[stack[--top]]]);
+				}
+				while (next < spans && starts[next] == i) {
+					if (top == stack.length) {
+						stack = Arrays.copyOf(stack, top * 2);
+					}
+					stack[top++] = next;
+					out.append(OPEN[kinds[next]]);
+					next++;
+				}
+				out.append(text.charAt(i));
+			}
+			while (top > 0) {
+				out.append(CLOSE[kinds[stack[--top]]]);
+			}
+			return out.toString();
+		}
+	}
 }
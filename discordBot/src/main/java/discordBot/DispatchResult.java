@@ -0,0 +1,38 @@
+package discordBot;
+
+/**
+ * What happened to a message given to the bot. Returned by AbstractBot.dispatch
+ * and AbstractBot.processMessage, so the callers don't have to catch exceptions
+ * to know whether a command ran. The hooks of the bot are still called on
+ * errors.
+ */
+public enum DispatchResult {
+	/** not a command: no prefix, or sent by a bot */
+	IGNORED,
+	/** the prefix is followed by an unknown command */
+	NOT_FOUND,
+	/** the command is disabled in the channel or its guild by the config store */
+	DISABLED,
+	/** the command was handed to the execution engine */
+	QUEUED,
+	/** the command ran without error */
+	OK,
+	/** an interceptor stopped the command, or handled its error */
+	INTERCEPTED,
+	/** the command syntax is wrong, validatorException was called */
+	VALIDATION_FAILED,
+	/** the command threw an exception, commandException was called */
+	FAILED,
+	/** the command was used too fast, rateLimitExceeded was called */
+	RATE_LIMITED,
+	/** the bot was overloaded and dropped the command, commandShed was called */
+	SHED;
+
+	/**
+	 * @return true if the message named a command that wasn't run successfully
+	 */
+	public boolean isError() {
+		return this == NOT_FOUND || this == VALIDATION_FAILED || this == FAILED || this == RATE_LIMITED
+				|| this == SHED;
+	}
+}
@@ -0,0 +1,112 @@
+package discordBot;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import discordBot.command.AbstractCommand;
+import discordBot.command.Requirement;
+import net.dv8tion.jda.api.JDABuilder;
+import net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder;
+import net.dv8tion.jda.api.utils.ChunkingFilter;
+import net.dv8tion.jda.api.utils.cache.CacheFlag;
+
+/**
+ * The JDA configuration of a lean bot: only the caches and the events its
+ * commands require. By default JDA caches every member with its activities,
+ * client status and voice state, the emotes, and downloads all the members of
+ * each guild (chunking). A bot only reading messages needs none of it.
+ *
+ * Immutable.
+ */
+public final class LeanProfile {
+	private final Set<Requirement> requirements;
+
+	/**
+	 * @param requirements what the bot needs
+	 */
+	public LeanProfile(Set<Requirement> requirements) {
+		EnumSet<Requirement> copy = EnumSet.noneOf(Requirement.class);
+		copy.addAll(requirements);
+		this.requirements = Collections.unmodifiableSet(copy);
+	}
+
+	/**
+	 * @param commands the commands of the bot
+	 * @param bot      what the bot needs itself, outside of its commands
+	 * @return the profile meeting all the requirements
+	 */
+	public static LeanProfile of(Collection<AbstractCommand> commands, Set<Requirement> bot) {
+		EnumSet<Requirement> requirements = EnumSet.noneOf(Requirement.class);
+		requirements.addAll(bot);
+		for (AbstractCommand command : commands) {
+			requirements.addAll(command.getRequirements());
+		}
+		return new LeanProfile(requirements);
+	}
+
+	public Set<Requirement> getRequirements() {
+		return requirements;
+	}
+
+	/**
+	 * @return the caches no requirement needs
+	 */
+	public EnumSet<CacheFlag> getDisabledCacheFlags() {
+		EnumSet<CacheFlag> disabled = EnumSet.allOf(CacheFlag.class);
+		for (Requirement requirement : requirements) {
+			if (requirement.getCacheFlag() != null) {
+				disabled.remove(requirement.getCacheFlag());
+			}
+		}
+		return disabled;
+	}
+
+	/**
+	 * @return ALL if all the members are required, NONE otherwise
+	 */
+	public ChunkingFilter getChunkingFilter() {
+		return requirements.contains(Requirement.MEMBERS) ? ChunkingFilter.ALL : ChunkingFilter.NONE;
+	}
+
+	/**
+	 * @return true if the presence and member updates are required
+	 */
+	public boolean isGuildSubscriptions() {
+		for (Requirement requirement : requirements) {
+			if (requirement.needsGuildSubscriptions()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param required what some commands need
+	 * @return the requirements this profile doesn't meet
+	 */
+	public Set<Requirement> missing(Set<Requirement> required) {
+		EnumSet<Requirement> missing = EnumSet.noneOf(Requirement.class);
+		missing.addAll(required);
+		missing.removeAll(requirements);
+		return missing;
+	}
+
+	public JDABuilder apply(JDABuilder builder) {
+		return builder.setDisabledCacheFlags(getDisabledCacheFlags()).setChunkingFilter(getChunkingFilter())
+				.setGuildSubscriptionsEnabled(isGuildSubscriptions());
+	}
+
+	public DefaultShardManagerBuilder apply(DefaultShardManagerBuilder builder) {
+		return builder.setDisabledCacheFlags(getDisabledCacheFlags()).setChunkingFilter(getChunkingFilter())
+				.setGuildSubscriptionsEnabled(isGuildSubscriptions());
+	}
+
+	@Override
+	public String toString() {
+		return "LeanProfile " + requirements + ": disabled caches " + getDisabledCacheFlags() + ", chunking "
+				+ (getChunkingFilter() == ChunkingFilter.ALL ? "all" : "none") + ", guild subscriptions "
+				+ isGuildSubscriptions();
+	}
+}
@@ -1,19 +1,47 @@
 package discordBot.command;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import discordBot.AbstractBot;
+import discordBot.command.args.ArgSchema;
+import discordBot.command.args.Param;
+import discordBot.command.cache.ResultCache;
+import discordBot.command.interceptor.InterceptorChain;
 import discordBot.command.validator.AbstractValidator;
+import discordBot.command.validator.ValidatorChain;
+import discordBot.config.ConfigStore;
 import discordBot.exceptions.CommandException;
 import discordBot.exceptions.HelperException;
+import discordBot.exceptions.RateLimitException;
 import discordBot.exceptions.ValidatorException;
+import discordBot.execution.Priority;
+import discordBot.metrics.CommandMetrics;
+import discordBot.ratelimit.RateLimit;
+import discordBot.ratelimit.RateLimiter;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 
+@IndexedCommand
 public abstract class AbstractCommand {
+	private static final String[] NO_ALIASES = new String[0];
+
 	private String name;
+	private String[] aliases = NO_ALIASES;
 	private CommandHelp help;
-	private List<AbstractValidator> validators;
+	private ArgSchema argSchema;
+	private ValidatorChain validators = ValidatorChain.EMPTY;
+	private volatile RateLimiter cooldown;
+	private volatile ResultCache resultCache;
+	private volatile Priority priority = Priority.NORMAL;
+	private Set<Requirement> requirements = Collections.emptySet();
+	private volatile InterceptorChain interceptors = InterceptorChain.EMPTY;
+	// bound once, so running the chain costs no allocation
+	private final InterceptorChain.Body body = this::runCommand;
+	private final CommandMetrics metrics;
 
 	/**
 	 * A command with a helper
@@ -25,6 +53,7 @@ public abstract class AbstractCommand {
 	public AbstractCommand(String name, CommandHelp help) {
 		this.name = name;
 		this.help = help;
+		this.metrics = new CommandMetrics(name);
 	}
 
 	/**
@@ -71,53 +100,351 @@ public abstract class AbstractCommand {
 		return name;
 	}
 
+	/**
+	 * @return The other names of the command
+	 */
+	public String[] getAliases() {
+		return aliases.clone();
+	}
+
+	/**
+	 * Give other names to the command (eg: "h" and "?" for "help"). Must be called
+	 * before the command is registered, usually in the constructor
+	 * 
+	 * @param aliases the other names of the command
+	 */
+	protected void setAliases(String... aliases) {
+		this.aliases = aliases.clone();
+	}
+
 	/**
 	 * @return The help of the command
 	 */
 	public CommandHelp getHelp() {
 		return help;
 	}
+
+	/**
+	 * @return the typed arguments of the command, or null if it reads them itself
+	 */
+	public ArgSchema getArgSchema() {
+		return argSchema;
+	}
+
+	/**
+	 * Declare the typed arguments of the command. Must be called before the
+	 * command is registered, usually in the constructor. The message is read
+	 * before the validators, its arguments are given by
+	 * CommandContext.getArguments: there is no need of an ArgLengthValidator. If
+	 * the help has no use case, the syntax of the arguments is added to it
+	 * 
+	 * @param params the arguments, in the order of the message
+	 */
+	protected void setArgSchema(Param... params) {
+		setArgSchema(ArgSchema.of(params));
+	}
+
+	/**
+	 * @param argSchema the typed arguments of the command, null to read them in
+	 *                  the command
+	 */
+	protected void setArgSchema(ArgSchema argSchema) {
+		this.argSchema = argSchema;
+		if (argSchema != null && help != null && help.getUseCase().isEmpty()) {
+			help = help.withUseCase(argSchema.usage(name), argSchema.describe());
+		}
+	}
+
+	/**
+	 * Add validators to the command. Must be called before the command is
+	 * registered, usually in the constructor: they are compiled into a single
+	 * chain, checked from the cheapest to the most expensive
+	 * 
+	 * @param validators the validators to add
+	 */
+	protected void addValidator(AbstractValidator... validators) {
+		this.validators = this.validators.with(validators);
+	}
+
+	/**
+	 * @return The validators of the command, in their registration order
+	 */
+	public List<AbstractValidator> getValidators() {
+		return validators.getValidators();
+	}
+
+	/**
+	 * @return the measures of the runs of the command
+	 */
+	public CommandMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * @return what the command needs from the connection, beyond the messages
+	 */
+	public Set<Requirement> getRequirements() {
+		return requirements;
+	}
+
+	/**
+	 * Declare what the command needs from the connection (members, voice
+	 * states...). A lean bot only caches what its commands require, call it in
+	 * the constructor
+	 * 
+	 * @param requirements what the command needs
+	 */
+	protected void require(Requirement... requirements) {
+		EnumSet<Requirement> all = EnumSet.noneOf(Requirement.class);
+		all.addAll(this.requirements);
+		Collections.addAll(all, requirements);
+		this.requirements = Collections.unmodifiableSet(all);
+	}
+
+	/**
+	 * @return how the command is served when the bot is overloaded
+	 */
+	public Priority getPriority() {
+		return priority;
+	}
+
+	/**
+	 * Set how the command is served when the bot is overloaded: HIGH for the
+	 * cheap ones, LOW for the heavy ones. Default is NORMAL
+	 * 
+	 * @param priority the priority
+	 */
+	protected void setPriority(Priority priority) {
+		this.priority = priority;
+	}
+
+	/**
+	 * @return the rate at which each user can use the command, or null if there
+	 *         is no limit
+	 */
+	public RateLimit getCooldown() {
+		RateLimiter cooldown = this.cooldown;
+		return cooldown == null ? null : cooldown.getLimit();
+	}
+
+	/**
+	 * Limit the rate at which each user can use the command (eg: 3 uses per 10
+	 * seconds). The uses beyond it are given to AbstractBot.rateLimitExceeded
+	 * 
+	 * @param cooldown the rate allowed, null for no limit
+	 */
+	public void setCooldown(RateLimit cooldown) {
+		this.cooldown = cooldown == null ? null : new RateLimiter(cooldown);
+	}
+
+	/**
+	 * @param uses   number of uses allowed in a burst
+	 * @param period time for all the uses to come back
+	 * @param unit   unit of period
+	 */
+	protected void setCooldown(int uses, long period, TimeUnit unit) {
+		setCooldown(new RateLimit(uses, period, unit));
+	}
 	
+	public ResultCache getResultCache() {
+		return resultCache;
+	}
+
+	/**
+	 * Cache the messages sent by the command by arguments, and send them again
+	 * instead of executing the command. Only for the commands answering the same
+	 * text to the same arguments (lookups, help...), replying with
+	 * AbstractBot.message on the executing thread: see ResultCache
+	 * 
+	 * @param ttl      how long a result is kept
+	 * @param unit     unit of ttl
+	 * @param maxSize  maximum number of results kept
+	 * @param perGuild true if the result depends on the guild too
+	 */
+	protected void setResultCache(long ttl, TimeUnit unit, int maxSize, boolean perGuild) {
+		setResultCache(new ResultCache(ttl, unit, maxSize, perGuild));
+	}
+
+	/**
+	 * @param resultCache the cache of the results of the command, null for none
+	 */
+	public void setResultCache(ResultCache resultCache) {
+		this.resultCache = resultCache;
+	}
+
+	/**
+	 * @return the interceptors run around the command
+	 */
+	public InterceptorChain getInterceptors() {
+		return interceptors;
+	}
+
+	/**
+	 * Set the interceptors run around the command. Called by the bot when its
+	 * interceptors or its commands change, see AbstractBot.addInterceptor
+	 * 
+	 * @param interceptors the chain compiled for the command
+	 */
+	public void setInterceptors(InterceptorChain interceptors) {
+		this.interceptors = interceptors == null ? InterceptorChain.EMPTY : interceptors;
+	}
+
+	/**
+	 * Run the command, see run(CommandContext)
+	 * 
+	 * @param event the message
+	 * @throws CommandException   if an exception occur during the execution
+	 * @throws ValidatorException if the command syntax is wrong
+	 */
 	public final void run(MessageReceivedEvent event) throws CommandException, ValidatorException {
-		preExecute(event);
-		execute(event);
+		run(new CommandContext(AbstractBot.of(event), event));
 	}
 
 	/**
-	 * Check the syntax and the parameters of the command
-	 * @param event context of the command
-	 * @throws CommandException if an exception occur during the execution
-	 * @throws ValidatorException 
+	 * Run the interceptors around the command: check the rate limits, validate
+	 * then execute it. The message is parsed once, in the context, for the
+	 * interceptors, the validators and the command
+	 * 
+	 * @param context the message parsed
+	 * @return false if an interceptor stopped the command or handled its error
+	 * @throws RateLimitException if the author, the channel or the command is
+	 *                            used too fast
+	 * @throws CommandException   if an exception occur during the execution
+	 * @throws ValidatorException if the command syntax is wrong
+	 */
+	public final boolean run(CommandContext context) throws CommandException, ValidatorException {
+		InterceptorChain chain = interceptors;
+		if (chain.isEmpty()) {
+			runCommand(context);
+			return true;
+		}
+		switch (chain.run(context, body)) {
+		case STOPPED:
+			metrics.intercepted();
+			return false;
+		case HANDLED:
+			return false;
+		default:
+			return true;
+		}
+	}
+
+	/**
+	 * Check the rate limits, validate then execute the command
+	 */
+	private void runCommand(CommandContext context) throws CommandException, ValidatorException {
+		long start = System.nanoTime();
+		try {
+			checkRateLimits(context);
+			preExecute(context);
+		} catch (RateLimitException e) {
+			metrics.rateLimited();
+			throw e;
+		} catch (ValidatorException e) {
+			metrics.validationFailed();
+			throw e;
+		}
+		long validated = System.nanoTime();
+		try {
+			ResultCache cache = resultCache;
+			if (cache == null) {
+				execute(context);
+			} else {
+				executeCached(cache, context);
+			}
+		} catch (CommandException | RuntimeException e) {
+			metrics.failed();
+			throw e;
+		} finally {
+			metrics.recordRun(validated - start, System.nanoTime() - validated);
+		}
+	}
+
+	/**
+	 * Send the cached messages of the arguments, or execute the command and cache
+	 * its messages
 	 */
-	private void preExecute(MessageReceivedEvent event) throws ValidatorException {
-		// FIXME validators musn't be null 
-		if(validators == null) {
+	private void executeCached(ResultCache cache, CommandContext context) throws CommandException {
+		String key = cache.key(context);
+		List<String> messages = cache.get(key);
+		if (messages != null) {
+			for (String message : messages) {
+				AbstractBot.message(context.getChannel(), message);
+			}
 			return;
 		}
-		for(AbstractValidator validator:validators) {
-			if(!validator.check(event)) {
-				throw validator.getFailException();
+		ResultCache.Capture capture = ResultCache.start(context.getChannel());
+		boolean succeeded = false;
+		try {
+			execute(context);
+			succeeded = true;
+		} finally {
+			cache.end(key, capture, succeeded);
+		}
+	}
+
+	/**
+	 * Check the rate limits of the bot (user, channel) then the cooldown of the
+	 * command, or the one set for the channel or the guild in the config store
+	 * 
+	 * @param context context of the command
+	 * @throws RateLimitException
+	 */
+	private void checkRateLimits(CommandContext context) throws RateLimitException {
+		AbstractBot bot = context.getBot();
+		RateLimiter cooldown = this.cooldown;
+		if (bot != null) {
+			bot.checkRateLimits(context);
+			ConfigStore config = bot.getConfigStore();
+			RateLimiter override = config == null ? null : config.getCooldown(context.getChannel(), name);
+			if (override != null) {
+				cooldown = override;
+			}
+		}
+		if (cooldown != null) {
+			long wait = cooldown.tryAcquire(context.getAuthor().getIdLong());
+			if (wait > 0) {
+				throw new RateLimitException(RateLimitException.Scope.COMMAND, TimeUnit.NANOSECONDS.toMillis(wait) + 1);
 			}
 		}
 	}
-	
+
+	/**
+	 * Read the typed arguments, then check the syntax and the parameters of the
+	 * command
+	 * @param context context of the command
+	 * @throws ValidatorException 
+	 */
+	private void preExecute(CommandContext context) throws ValidatorException {
+		ArgSchema argSchema = this.argSchema;
+		if (argSchema != null) {
+			context.setArguments(argSchema.parse(context));
+		}
+		AbstractValidator failed = validators.check(context);
+		if (failed != null) {
+			throw failed.getFailException();
+		}
+	}
+
 	/**
-	 * Execute the command withing the context event
+	 * Execute the command withing the context of a parsed message. The event is
+	 * given by context.getEvent()
 	 * 
-	 * @param event context of the command
+	 * @param context context of the command
 	 * @throws CommandException if an exception occur during the execution
 	 */
-	protected abstract void execute(MessageReceivedEvent event) throws CommandException;
+	protected abstract void execute(CommandContext context) throws CommandException;
 
 	/**
 	 * Get the params of the command as an array of string containing all the
-	 * keywords passed to the command
+	 * keywords passed to the command. Parse the message each time it's called,
+	 * prefer CommandContext.getParams
 	 * 
 	 * @param event the context of the command
 	 * @return a String array with all the keywords after the command name
 	 */
 	public static String[] getParams(MessageReceivedEvent event) {
-		String message = AbstractBot.getInstance().removePrefix(event.getChannel(), event.getMessage().getContentRaw());
+		String message = AbstractBot.of(event).removePrefix(event.getChannel(), event.getMessage().getContentRaw());
 		String[] splitted = message.split(" ");
 		return Arrays.copyOfRange(splitted, 1, splitted.length);
 	}
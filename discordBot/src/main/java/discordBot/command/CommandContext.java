@@ -0,0 +1,254 @@
+package discordBot.command;
+
+import discordBot.AbstractBot;
+import discordBot.command.args.Arguments;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+
+/**
+ * A message parsed once for a command. The prefix and the command name are
+ * resolved when the message is routed, the arguments are split lazily, on the
+ * first access, and are views on the raw content (no copy). The same context is
+ * given to the validators and to the command, so a message is never parsed
+ * twice.
+ *
+ * The arguments follow the rules of getParams: they are separated by single
+ * spaces and the trailing empty ones are dropped.
+ */
+public class CommandContext {
+	private static final int[] NO_BOUNDS = new int[0];
+
+	private final AbstractBot bot;
+	private final MessageReceivedEvent event;
+	private final String content;
+	private final String prefix;
+	private final String commandName;
+	private final int argsStart;
+
+	private int[] bounds;
+	private CharSequence[] args;
+	private String[] params;
+	private Arguments arguments;
+
+	/**
+	 * A context for a message already routed
+	 *
+	 * @param bot         the bot receiving the message
+	 * @param event       the message
+	 * @param prefix      the prefix used by the message
+	 * @param commandName the command name (or alias) matched, as registered
+	 * @param nameEnd     index of the char following the command name in the raw
+	 *                    content
+	 */
+	public CommandContext(AbstractBot bot, MessageReceivedEvent event, String prefix, String commandName,
+			int nameEnd) {
+		this.bot = bot;
+		this.event = event;
+		this.content = event.getMessage().getContentRaw();
+		this.prefix = prefix;
+		this.commandName = commandName;
+		this.argsStart = Math.min(nameEnd + 1, content.length());
+	}
+
+	/**
+	 * A context for a message not routed yet: the command name is the first word
+	 * after the prefix of the channel
+	 *
+	 * @param bot   the bot receiving the message
+	 * @param event the message
+	 */
+	public CommandContext(AbstractBot bot, MessageReceivedEvent event) {
+		this.bot = bot;
+		this.event = event;
+		this.content = event.getMessage().getContentRaw();
+		this.prefix = bot.getPrefix(event.getChannel());
+		int start = content.startsWith(prefix) ? prefix.length() : 0;
+		int end = content.indexOf(' ', start);
+		end = end < 0 ? content.length() : end;
+		this.commandName = content.substring(start, end);
+		this.argsStart = Math.min(end + 1, content.length());
+	}
+
+	public AbstractBot getBot() {
+		return bot;
+	}
+
+	public MessageReceivedEvent getEvent() {
+		return event;
+	}
+
+	public MessageChannel getChannel() {
+		return event.getChannel();
+	}
+
+	public User getAuthor() {
+		return event.getAuthor();
+	}
+
+	/**
+	 * @return the raw content of the message
+	 */
+	public String getContent() {
+		return content;
+	}
+
+	public String getPrefix() {
+		return prefix;
+	}
+
+	/**
+	 * @return the command name (or alias) the router matched, as it was
+	 *         registered: not in the case of the message when the registry
+	 *         isn't case sensitive. For a context not routed yet, the first word
+	 *         after the prefix
+	 */
+	public String getCommandName() {
+		return commandName;
+	}
+
+	/**
+	 * @return everything after the command name, without copy
+	 */
+	public CharSequence getArgs() {
+		return new Slice(content, argsStart, content.length());
+	}
+
+	/**
+	 * @return the index of the arguments in the raw content
+	 */
+	public int getArgsStart() {
+		return argsStart;
+	}
+
+	/**
+	 * @return the typed arguments, read by the schema of the command before its
+	 *         validators, or null if the command has no schema
+	 */
+	public Arguments getArguments() {
+		return arguments;
+	}
+
+	void setArguments(Arguments arguments) {
+		this.arguments = arguments;
+	}
+
+	/**
+	 * @return the number of arguments
+	 */
+	public int argCount() {
+		return bounds().length / 2;
+	}
+
+	/**
+	 * @param index index of the argument, starting at 0
+	 * @return a view of the argument, without copy
+	 */
+	public CharSequence arg(int index) {
+		int[] bounds = bounds();
+		if (index < 0 || index >= bounds.length / 2) {
+			throw new IndexOutOfBoundsException("No argument " + index + ", there are " + bounds.length / 2);
+		}
+		if (args == null) {
+			args = new CharSequence[bounds.length / 2];
+		}
+		if (args[index] == null) {
+			args[index] = new Slice(content, bounds[index * 2], bounds[index * 2 + 1]);
+		}
+		return args[index];
+	}
+
+	/**
+	 * @return the arguments as strings, the same as AbstractCommand.getParams but
+	 *         computed once
+	 */
+	public String[] getParams() {
+		if (params == null) {
+			int count = argCount();
+			String[] newParams = new String[count];
+			for (int i = 0; i < count; i++) {
+				newParams[i] = content.substring(bounds[i * 2], bounds[i * 2 + 1]);
+			}
+			params = newParams;
+		}
+		return params.clone();
+	}
+
+	/**
+	 * Split the arguments in one pass: start and end index of each argument
+	 */
+	private int[] bounds() {
+		if (bounds != null) {
+			return bounds;
+		}
+		int end = content.length();
+		while (end > argsStart && content.charAt(end - 1) == ' ') {
+			end--;
+		}
+		if (end <= argsStart) {
+			bounds = NO_BOUNDS;
+			return bounds;
+		}
+		int count = 1;
+		for (int i = argsStart; i < end; i++) {
+			if (content.charAt(i) == ' ') {
+				count++;
+			}
+		}
+		int[] newBounds = new int[count * 2];
+		int start = argsStart;
+		int arg = 0;
+		for (int i = argsStart; i < end; i++) {
+			if (content.charAt(i) == ' ') {
+				newBounds[arg++] = start;
+				newBounds[arg++] = i;
+				start = i + 1;
+			}
+		}
+		newBounds[arg++] = start;
+		newBounds[arg] = end;
+		bounds = newBounds;
+		return bounds;
+	}
+
+	/**
+	 * A view of a part of a string
+	 */
+	private static final class Slice implements CharSequence {
+		private final String text;
+		private final int start;
+		private final int end;
+
+		private Slice(String text, int start, int end) {
+			this.text = text;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public int length() {
+			return end - start;
+		}
+
+		@Override
+		public char charAt(int index) {
+			if (index < 0 || index >= end - start) {
+				throw new IndexOutOfBoundsException(String.valueOf(index));
+			}
+			return text.charAt(start + index);
+		}
+
+		@Override
+		public CharSequence subSequence(int from, int to) {
+			if (from < 0 || to > end - start || from > to) {
+				throw new IndexOutOfBoundsException(from + ", " + to);
+			}
+			return new Slice(text, start + from, start + to);
+		}
+
+		@Override
+		public String toString() {
+			return text.substring(start, end);
+		}
+	}
+}
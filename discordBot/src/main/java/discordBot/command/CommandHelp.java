@@ -1,24 +1,32 @@
 package discordBot.command;
 
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import discordBot.exceptions.HelperException;
 
+/**
+ * The help of a command: a description and its use cases, in the order they
+ * were given. Immutable, the help message is rendered once at creation
+ */
 public class CommandHelp {
-	private String description;
-	private Map<String, String> useCase;
+	private final String description;
+	private final Map<String, String> useCase;
+	private final String text;
 	
 	public CommandHelp(String description, String... useCaseList) throws HelperException {
 		if (useCaseList.length % 2 == 1) {
 			throw new HelperException("UseCase length mismatch");
 		}
 		this.description = description;
-		this.useCase = new HashMap<String, String>();
+		Map<String, String> useCase = new LinkedHashMap<String, String>();
 		for (int i = 0; i < useCaseList.length; i += 2) {
 			useCase.put(useCaseList[i], useCaseList[i+ 1]);
 		}
+		this.useCase = Collections.unmodifiableMap(useCase);
+		this.text = render();
 	}
 	
 	public CommandHelp(String... help) throws HelperException {
@@ -29,11 +37,50 @@ public class CommandHelp {
 		this(description, new String[0]);
 	}
 	
+	/**
+	 * @param syntax      the syntax of the use case
+	 * @param description what it does
+	 * @return a help with the use cases of this one and the new one
+	 */
+	public CommandHelp withUseCase(String syntax, String description) {
+		String[] useCases = new String[useCase.size() * 2 + 2];
+		int i = 0;
+		for (Map.Entry<String, String> entry : useCase.entrySet()) {
+			useCases[i++] = entry.getKey();
+			useCases[i++] = entry.getValue();
+		}
+		useCases[i++] = syntax;
+		useCases[i] = description;
+		try {
+			return new CommandHelp(this.description, useCases);
+		} catch (HelperException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
 	public String getDescription() {
 		return description;
 	}
 
+	/**
+	 * @return the use cases (syntax -> description), in the order they were given
+	 */
 	public Map<String, String> getUseCase() {
 		return useCase;
 	}
+
+	/**
+	 * @return the help message: the description then a line per use case
+	 */
+	public String getText() {
+		return text;
+	}
+
+	private String render() {
+		StringBuilder message = new StringBuilder(description);
+		for (Map.Entry<String, String> entry : useCase.entrySet()) {
+			message.append("\n\t").append(entry.getKey()).append(": ").append(entry.getValue());
+		}
+		return message.toString();
+	}
 }
@@ -0,0 +1,151 @@
+package discordBot.command;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.reflections.Reflections;
+
+/**
+ * Find the commands of a package. The index written at compile time by
+ * CommandIndexProcessor is read first, the classpath is scanned with
+ * Reflections only when there is no index for the package. Only the indexes
+ * of the class loader itself are read, not the ones of its parents: a jar
+ * reloaded without index is scanned, rather than loading the classes listed
+ * by the index of the application.
+ */
+public abstract class CommandIndex {
+	/** the index written by CommandIndexProcessor, one class name per line */
+	public static final String RESOURCE = "META-INF/discordBot/commands.index";
+
+	private static final MethodType NO_ARG = MethodType.methodType(void.class);
+
+	/**
+	 * @param packageName the root package of the commands
+	 * @param loader      the class loader of the commands
+	 * @return the concrete commands of the package and its sub-packages
+	 */
+	public static List<Class<? extends AbstractCommand>> find(String packageName, ClassLoader loader) {
+		List<Class<? extends AbstractCommand>> commands = null;
+		try {
+			commands = load(packageName, loader);
+		} catch (IOException e) {
+			System.err.println("Error reading the command index: " + e.getMessage());
+		}
+		return commands != null ? commands : scan(packageName, loader);
+	}
+
+	/**
+	 * Read the command indexes of the class loader, not inherited from its parent
+	 *
+	 * @param packageName the root package of the commands
+	 * @param loader      the class loader of the commands
+	 * @return the commands of the package, or null if no index list any
+	 * @throws IOException if an index can't be read
+	 */
+	public static List<Class<? extends AbstractCommand>> load(String packageName, ClassLoader loader)
+			throws IOException {
+		Set<String> names = new LinkedHashSet<String>();
+		for (URL index : ownIndexes(loader)) {
+			try (BufferedReader reader = new BufferedReader(
+					new InputStreamReader(index.openStream(), StandardCharsets.UTF_8))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					line = line.trim();
+					if (line.startsWith(packageName + ".")) {
+						names.add(line);
+					}
+				}
+			}
+		}
+		if (names.isEmpty()) {
+			return null;
+		}
+		List<Class<? extends AbstractCommand>> commands = new ArrayList<Class<? extends AbstractCommand>>();
+		for (String name : names) {
+			try {
+				Class<?> type = Class.forName(name, false, loader);
+				if (AbstractCommand.class.isAssignableFrom(type)) {
+					commands.add(type.asSubclass(AbstractCommand.class));
+				}
+			} catch (ClassNotFoundException | LinkageError e) {
+				System.err.println("Command of the index not found, index outdated? " + name);
+			}
+		}
+		return commands;
+	}
+
+	/**
+	 * @return the indexes found by the class loader and not by its parent. The
+	 *         URLs are compared as text, URL.equals resolves the host names
+	 */
+	private static List<URL> ownIndexes(ClassLoader loader) throws IOException {
+		Set<String> inherited = new HashSet<String>();
+		ClassLoader parent = loader.getParent();
+		if (parent != null) {
+			Enumeration<URL> indexes = parent.getResources(RESOURCE);
+			while (indexes.hasMoreElements()) {
+				inherited.add(indexes.nextElement().toExternalForm());
+			}
+		}
+		List<URL> own = new ArrayList<URL>();
+		Enumeration<URL> indexes = loader.getResources(RESOURCE);
+		while (indexes.hasMoreElements()) {
+			URL index = indexes.nextElement();
+			if (!inherited.contains(index.toExternalForm())) {
+				own.add(index);
+			}
+		}
+		return own;
+	}
+
+	/**
+	 * Scan the classpath for the commands, slow
+	 *
+	 * @param packageName the root package of the commands
+	 * @param loader      the class loader of the commands
+	 * @return the concrete commands of the package and its sub-packages
+	 */
+	public static List<Class<? extends AbstractCommand>> scan(String packageName, ClassLoader loader) {
+		Reflections reflections = new Reflections(packageName, loader);
+		List<Class<? extends AbstractCommand>> commands = new ArrayList<Class<? extends AbstractCommand>>();
+		for (Class<? extends AbstractCommand> command : reflections.getSubTypesOf(AbstractCommand.class)) {
+			if (!Modifier.isAbstract(command.getModifiers())) {
+				commands.add(command);
+			}
+		}
+		return commands;
+	}
+
+	/**
+	 * Instantiate a command through its no-arg constructor handle
+	 *
+	 * @param type the command
+	 * @return the new command
+	 * @throws NoSuchMethodException     if there is no public no-arg constructor
+	 * @throws IllegalAccessException    if the class isn't public
+	 * @throws InvocationTargetException if the constructor throws
+	 */
+	public static AbstractCommand instantiate(Class<? extends AbstractCommand> type)
+			throws NoSuchMethodException, IllegalAccessException, InvocationTargetException {
+		MethodHandle constructor = MethodHandles.publicLookup().findConstructor(type, NO_ARG);
+		try {
+			return (AbstractCommand) constructor.invoke();
+		} catch (Throwable e) {
+			throw new InvocationTargetException(e);
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package discordBot.command;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation processor writing the command index at compile time: the list of
+ * the concrete subclasses of AbstractCommand with a public no-arg constructor.
+ * The bot then load its commands from the index instead of scanning the
+ * classpath.
+ *
+ * The processor only asks for IndexedCommand, inherited from AbstractCommand,
+ * so it is not called on the compilations without command.
+ *
+ * To use it, add the library to the annotation processors of the bot project:
+ * annotationProcessor 'discordBot:discordBot:...' with gradle. The index is
+ * complete after a full build, an incremental build only sees the classes it
+ * recompiles.
+ */
+@SupportedAnnotationTypes("discordBot.command.IndexedCommand")
+public class CommandIndexProcessor extends AbstractProcessor {
+	// by name: the processor runs without JDA on its classpath
+	private static final String ABSTRACT_COMMAND = "discordBot.command.AbstractCommand";
+
+	private final Set<String> commands = new TreeSet<String>();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		TypeElement abstractCommand = processingEnv.getElementUtils().getTypeElement(ABSTRACT_COMMAND);
+		if (abstractCommand == null) {
+			return false;
+		}
+		TypeMirror commandType = processingEnv.getTypeUtils().erasure(abstractCommand.asType());
+		for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+			collect(type, commandType);
+		}
+		if (roundEnv.processingOver()) {
+			write();
+		}
+		return false;
+	}
+
+	private void collect(TypeElement type, TypeMirror commandType) {
+		if (isCommand(type, commandType)) {
+			commands.add(processingEnv.getElementUtils().getBinaryName(type).toString());
+		}
+		for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+			if (nested.getModifiers().contains(Modifier.STATIC)) {
+				collect(nested, commandType);
+			}
+		}
+	}
+
+	private boolean isCommand(TypeElement type, TypeMirror commandType) {
+		if (type.getKind() != ElementKind.CLASS || !type.getModifiers().contains(Modifier.PUBLIC)
+				|| type.getModifiers().contains(Modifier.ABSTRACT)
+				|| !processingEnv.getTypeUtils().isSubtype(processingEnv.getTypeUtils().erasure(type.asType()),
+						commandType)) {
+			return false;
+		}
+		for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+			if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void write() {
+		if (commands.isEmpty()) {
+			return;
+		}
+		try {
+			FileObject index = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+					CommandIndex.RESOURCE, new Element[0]);
+			try (Writer writer = index.openWriter()) {
+				for (String command : commands) {
+					writer.write(command);
+					writer.write('\n');
+				}
+			}
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+					"Can't write the command index: " + e.getMessage());
+		}
+	}
+}
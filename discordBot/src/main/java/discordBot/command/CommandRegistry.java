@@ -0,0 +1,159 @@
+package discordBot.command;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The commands of a bot: by name, their router and their suggestion index.
+ * Immutable once built, a bot changes its commands by building a new registry
+ * and publishing it in one write, so a message is always routed against a
+ * complete set of commands and the lookups take no lock.
+ *
+ * A registry counts the messages routed with it until their command ends, so
+ * the bot knows when the commands it replaced are no longer running (see
+ * retire).
+ */
+public final class CommandRegistry {
+	private final Map<String, AbstractCommand> commands;
+	private final CommandRouter router;
+	private final int version;
+	private volatile SuggestionIndex suggestions;
+	private final Usage usage;
+
+	/**
+	 * The messages routed and not finished, shared by the registries of the same
+	 * commands
+	 */
+	private static final class Usage {
+		private final AtomicInteger inFlight = new AtomicInteger();
+		private final AtomicReference<Runnable> whenDrained = new AtomicReference<Runnable>();
+		private volatile boolean retired;
+
+		private void drained() {
+			Runnable task = whenDrained.getAndSet(null);
+			if (task != null) {
+				task.run();
+			}
+		}
+	}
+
+	/**
+	 * @param commands      the commands, a command replace the previous ones of
+	 *                      the same name
+	 * @param caseSensitive false to match the names whatever their case
+	 * @param version       the version of the registry, see getVersion
+	 */
+	public CommandRegistry(Collection<AbstractCommand> commands, boolean caseSensitive, int version) {
+		this(commands, caseSensitive, version, new Usage());
+	}
+
+	private CommandRegistry(Collection<AbstractCommand> commands, boolean caseSensitive, int version, Usage usage) {
+		Map<String, AbstractCommand> byName = new LinkedHashMap<String, AbstractCommand>();
+		for (AbstractCommand command : commands) {
+			byName.put(command.getName(), command);
+		}
+		CommandRouter router = new CommandRouter(caseSensitive);
+		for (AbstractCommand command : byName.values()) {
+			router.add(command);
+		}
+		this.commands = Collections.unmodifiableMap(byName);
+		this.router = router;
+		this.version = version;
+		this.usage = usage;
+	}
+
+	/**
+	 * @param caseSensitive false to match the names whatever their case
+	 * @return a registry of the same commands
+	 */
+	public CommandRegistry withCaseSensitive(boolean caseSensitive) {
+		return new CommandRegistry(commands.values(), caseSensitive, version + 1, usage);
+	}
+
+	/**
+	 * Count a message routed with this registry. exit must be called once its
+	 * command ended, or was dropped
+	 */
+	public void enter() {
+		usage.inFlight.incrementAndGet();
+	}
+
+	/**
+	 * The command of a message routed with this registry ended, or was dropped
+	 */
+	public void exit() {
+		if (usage.inFlight.decrementAndGet() == 0 && usage.retired) {
+			usage.drained();
+		}
+	}
+
+	/**
+	 * @return the number of messages routed with this registry whose command
+	 *         didn't end yet
+	 */
+	public int getInFlight() {
+		return usage.inFlight.get();
+	}
+
+	/**
+	 * The registry was replaced: run a task once no command routed with it is
+	 * running, now if there is none. The work a command left behind (timers,
+	 * callbacks of JDA) isn't counted
+	 *
+	 * @param whenDrained the task, eg: closing the class loader of the commands
+	 */
+	public void retire(Runnable whenDrained) {
+		usage.whenDrained.set(whenDrained);
+		usage.retired = true;
+		if (usage.inFlight.get() == 0) {
+			usage.drained();
+		}
+	}
+
+	/**
+	 * @return the commands by name, read only
+	 */
+	public Map<String, AbstractCommand> getCommands() {
+		return commands;
+	}
+
+	/**
+	 * @param name a command name or alias
+	 * @return the command, or null if it doesn't exist
+	 */
+	public AbstractCommand get(String name) {
+		return router.get(name);
+	}
+
+	public CommandRouter getRouter() {
+		return router;
+	}
+
+	public boolean isCaseSensitive() {
+		return router.isCaseSensitive();
+	}
+
+	/**
+	 * @return a number increasing each time the commands of the bot change, to
+	 *         invalidate what is computed from them
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return the index of the names and aliases, built on the first call
+	 */
+	public SuggestionIndex getSuggestionIndex() {
+		SuggestionIndex index = suggestions;
+		if (index == null) {
+			index = SuggestionIndex.of(commands.values());
+			suggestions = index;
+		}
+		return index;
+	}
+}
@@ -0,0 +1,179 @@
+package discordBot.command;
+
+import java.util.Arrays;
+
+/**
+ * Char trie of the command names, built when the commands are registered. It
+ * match the prefix and the command name of a raw message in one pass, without
+ * allocation: a chat message is rejected at its first char, a command is found
+ * in O(name length).
+ *
+ * A name can contain single spaces to register a subcommand (eg: "config
+ * prefix set"), the longest name ending on a word boundary wins. Aliases are
+ * just other names of the same command.
+ */
+public class CommandRouter {
+	private final boolean caseSensitive;
+	private final Node root;
+
+	/**
+	 * A matched command name. Immutable and shared by all the messages matching
+	 * it
+	 */
+	public static final class Route {
+		private final String name;
+		private final AbstractCommand command;
+
+		private Route(String name, AbstractCommand command) {
+			this.name = name;
+			this.command = command;
+		}
+
+		/**
+		 * @return the name (or alias) matched, as registered
+		 */
+		public String getName() {
+			return name;
+		}
+
+		public AbstractCommand getCommand() {
+			return command;
+		}
+
+		/**
+		 * @return the number of chars of the name matched
+		 */
+		public int length() {
+			return name.length();
+		}
+	}
+
+	private static final class Node {
+		private char[] keys = new char[0];
+		private Node[] children = new Node[0];
+		private Route route;
+
+		private Node child(char c) {
+			int i = Arrays.binarySearch(keys, c);
+			return i < 0 ? null : children[i];
+		}
+
+		private Node getOrCreate(char c) {
+			int i = Arrays.binarySearch(keys, c);
+			if (i >= 0) {
+				return children[i];
+			}
+			i = -i - 1;
+			Node node = new Node();
+			char[] newKeys = new char[keys.length + 1];
+			Node[] newChildren = new Node[children.length + 1];
+			System.arraycopy(keys, 0, newKeys, 0, i);
+			System.arraycopy(children, 0, newChildren, 0, i);
+			newKeys[i] = c;
+			newChildren[i] = node;
+			System.arraycopy(keys, i, newKeys, i + 1, keys.length - i);
+			System.arraycopy(children, i, newChildren, i + 1, children.length - i);
+			keys = newKeys;
+			children = newChildren;
+			return node;
+		}
+	}
+
+	/**
+	 * @param caseSensitive false to match "!Help" and "!HELP" with "help"
+	 */
+	public CommandRouter(boolean caseSensitive) {
+		this.caseSensitive = caseSensitive;
+		this.root = new Node();
+	}
+
+	public boolean isCaseSensitive() {
+		return caseSensitive;
+	}
+
+	/**
+	 * Register a command under a name. A name already registered is replaced
+	 *
+	 * @param name    the name, or an alias, of the command. Subcommands words are
+	 *                separated by a single space
+	 * @param command the command
+	 */
+	public void add(String name, AbstractCommand command) {
+		if (name == null || name.isEmpty()) {
+			throw new IllegalArgumentException("Command name can't be empty");
+		}
+		Node node = root;
+		for (int i = 0; i < name.length(); i++) {
+			node = node.getOrCreate(fold(name.charAt(i)));
+		}
+		node.route = new Route(name, command);
+	}
+
+	/**
+	 * Register a command under its name and all its aliases
+	 *
+	 * @param command the command
+	 */
+	public void add(AbstractCommand command) {
+		add(command.getName(), command);
+		for (String alias : command.getAliases()) {
+			add(alias, command);
+		}
+	}
+
+	/**
+	 * Find the command of a raw message
+	 *
+	 * @param content the raw content of the message
+	 * @param prefix  the prefix identifying a command
+	 * @return the route matched, or null if the message isn't a known command
+	 */
+	public Route route(String content, String prefix) {
+		if (!content.startsWith(prefix)) {
+			return null;
+		}
+		return route(content, prefix.length());
+	}
+
+	/**
+	 * Find the longest command name starting at from and ending on a space or at
+	 * the end of the content
+	 *
+	 * @param content the raw content of the message
+	 * @param from    index of the first char of the command name
+	 * @return the route matched, or null if there is none
+	 */
+	public Route route(CharSequence content, int from) {
+		Node node = root;
+		Route best = null;
+		for (int i = from, n = content.length(); i < n; i++) {
+			char c = content.charAt(i);
+			if (c == ' ' && node.route != null) {
+				best = node.route;
+			}
+			node = node.child(fold(c));
+			if (node == null) {
+				return best;
+			}
+		}
+		return node.route != null ? node.route : best;
+	}
+
+	/**
+	 * Find a command by its exact name or alias
+	 *
+	 * @param name the name of the command
+	 * @return the command, or null if no command is named like that
+	 */
+	public AbstractCommand get(CharSequence name) {
+		Node node = root;
+		for (int i = 0, n = name.length(); i < n && node != null; i++) {
+			node = node.child(fold(name.charAt(i)));
+		}
+		return node == null || node.route == null ? null : node.route.getCommand();
+	}
+
+	private char fold(char c) {
+		return caseSensitive ? c : Character.toLowerCase(c);
+	}
+}
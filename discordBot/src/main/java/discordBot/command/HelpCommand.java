@@ -1,29 +1,52 @@
 package discordBot.command;
 
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
 import discordBot.AbstractBot;
+import discordBot.DiscordHelper;
+import discordBot.command.args.ArgType;
+import discordBot.command.args.Arguments;
+import discordBot.command.args.Param;
 import discordBot.exceptions.CommandException;
 import discordBot.exceptions.HelperException;
+import discordBot.execution.Priority;
 import net.dv8tion.jda.api.entities.MessageChannel;
-import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 
 public class HelpCommand extends AbstractCommand {
-	private static final String DEFAULT_NOCOMMAND = "Command not found: ", DEFAULT_HELP = "No help provided for: ";
+	private static final String DEFAULT_NOCOMMAND = "Command not found: ", DEFAULT_HELP = "No help provided for: ",
+			DEFAULT_LIST = "Commands:";
 
 	private AbstractBot bot;
+	private volatile Listing listing;
+
+	private static final class Listing {
+		private final int version;
+		private final AbstractCommand[] commands;
+
+		private Listing(int version, AbstractCommand[] commands) {
+			this.version = version;
+			this.commands = commands;
+		}
+	}
 
 	public HelpCommand(AbstractBot bot) throws HelperException {
-		super("help", "Display the help of a command", "help", "display this message", "help <command>",
-				"display the help of the command specified");
+		super("help", "Display the help of a command", "help", "display this message and the list of the commands",
+				"help <command>", "display the help of the command specified");
 		this.bot = bot;
+		// the whole text, for the names made of several words
+		setArgSchema(Param.optional("command", ArgType.TEXT));
+		setPriority(Priority.HIGH);
 	}
 
-	public void execute(MessageReceivedEvent event) throws CommandException {
-		String[] params = getParams(event);
-		if (params.length == 0) {
-			getHelp(event.getChannel(), this, getName());
+	@Override
+	protected void execute(CommandContext context) throws CommandException {
+		Arguments arguments = context.getArguments();
+		if (!arguments.has("command")) {
+			bot.page(context.getChannel(), overview());
 		} else {
-			String commandName = params[0];
-			getHelp(event.getChannel(), commandName);
+			getHelp(context.getChannel(), arguments.getString("command"));
 		}
 	}
 
@@ -33,23 +56,61 @@ public class HelpCommand extends AbstractCommand {
 	}
 
 	private void getHelp(MessageChannel chan, AbstractCommand command, String commandName) {
-		StringBuilder message = new StringBuilder();
+		String message;
 		if (command == null) {
-			message.append(DEFAULT_NOCOMMAND + commandName);
+			message = DEFAULT_NOCOMMAND + commandName;
 		} else if (command.getHelp() == null) {
-			message.append(DEFAULT_HELP + commandName);
+			message = DEFAULT_HELP + commandName;
 		} else {
-			CommandHelp helper = command.getHelp();
-			message.append(helper.getDescription());
-			for (String useCase : helper.getUseCase().keySet()) {
-				message.append("\n\t");
-				message.append(useCase + ": " + helper.getUseCase().get(useCase));
-			}
+			message = command.getHelp().getText();
 		}
-		printHelp(chan, message.toString());
+		printHelp(chan, message);
+	}
+
+	/**
+	 * The help of this command followed by the list of all the commands, a line
+	 * per command. The lines are rendered as the pages need them, the commands
+	 * are sorted once, then again only when the commands of the bot change
+	 */
+	private Iterator<String> overview() {
+		Listing current = listing;
+		CommandRegistry registry = bot.getRegistry();
+		if (current == null || current.version != registry.getVersion()) {
+			current = new Listing(registry.getVersion(), new TreeMap<String, AbstractCommand>(registry.getCommands())
+					.values().toArray(new AbstractCommand[0]));
+			listing = current;
+		}
+		AbstractCommand[] commands = current.commands;
+		return new Iterator<String>() {
+			private int next = -1;
+
+			@Override
+			public boolean hasNext() {
+				return next < commands.length;
+			}
+
+			@Override
+			public String next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				if (next++ < 0) {
+					return getHelp().getText() + "\n" + DEFAULT_LIST;
+				}
+				AbstractCommand command = commands[next - 1];
+				CommandHelp help = command.getHelp();
+				String line = "\t" + command.getName();
+				return help == null ? line : line + ": " + help.getDescription();
+			}
+		};
 	}
 
 	private void printHelp(MessageChannel chan, String message) {
-		AbstractBot.message(chan, message);
+		if (message.length() > DiscordHelper.Builder.MAX_LENGTH) {
+			// too long for one message once there are many commands
+			AbstractBot.message(chan, new DiscordHelper.Builder(message.length()).append(message));
+		} else {
+			AbstractBot.message(chan, message);
+		}
 	}
 }
@@ -0,0 +1,20 @@
+package discordBot.command;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Mark the classes looked at by CommandIndexProcessor. It is on
+ * AbstractCommand and inherited, so the commands don't need to declare it: the
+ * processor only runs on the compilations having commands
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface IndexedCommand {
+}
@@ -0,0 +1,29 @@
+package discordBot.command;
+
+import discordBot.AbstractBot;
+import discordBot.execution.Priority;
+
+/**
+ * Send the next page of the last long answer of the channel, see
+ * AbstractBot.page
+ */
+public class MoreCommand extends AbstractCommand {
+	private static final String DEFAULT_NOTHING = "Nothing more to display";
+
+	private AbstractBot bot;
+
+	public MoreCommand(AbstractBot bot) {
+		super("more", "Display the next page of the last long answer of the channel", "more",
+				"display the next page");
+		this.bot = bot;
+		setAliases("next");
+		setPriority(Priority.HIGH);
+	}
+
+	@Override
+	protected void execute(CommandContext context) {
+		if (!bot.nextPage(context.getChannel())) {
+			AbstractBot.message(context.getChannel(), DEFAULT_NOTHING);
+		}
+	}
+}
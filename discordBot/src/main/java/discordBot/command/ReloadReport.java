@@ -0,0 +1,89 @@
+package discordBot.command;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What a reload of the commands changed, see AbstractBot.reload. Immutable.
+ */
+public final class ReloadReport {
+	private final List<String> added;
+	private final List<String> removed;
+	private final List<String> replaced;
+	private final long loadNanos;
+	private final long totalNanos;
+
+	/**
+	 * @param before     the commands before the reload
+	 * @param after      the commands after the reload
+	 * @param loadNanos  time spent finding and instantiating the commands
+	 * @param totalNanos time of the whole reload
+	 */
+	public ReloadReport(Map<String, AbstractCommand> before, Map<String, AbstractCommand> after, long loadNanos,
+			long totalNanos) {
+		List<String> added = new ArrayList<String>();
+		List<String> removed = new ArrayList<String>();
+		List<String> replaced = new ArrayList<String>();
+		for (String name : after.keySet()) {
+			(before.containsKey(name) ? replaced : added).add(name);
+		}
+		for (String name : before.keySet()) {
+			if (!after.containsKey(name)) {
+				removed.add(name);
+			}
+		}
+		Collections.sort(added);
+		Collections.sort(removed);
+		Collections.sort(replaced);
+		this.added = Collections.unmodifiableList(added);
+		this.removed = Collections.unmodifiableList(removed);
+		this.replaced = Collections.unmodifiableList(replaced);
+		this.loadNanos = loadNanos;
+		this.totalNanos = totalNanos;
+	}
+
+	/**
+	 * @return the names of the new commands, sorted
+	 */
+	public List<String> getAdded() {
+		return added;
+	}
+
+	/**
+	 * @return the names of the commands that don't exist anymore, sorted
+	 */
+	public List<String> getRemoved() {
+		return removed;
+	}
+
+	/**
+	 * @return the names of the commands replaced by a new instance, sorted
+	 */
+	public List<String> getReplaced() {
+		return replaced;
+	}
+
+	/**
+	 * @return the time spent finding and instantiating the commands
+	 */
+	public long getLoadTime(TimeUnit unit) {
+		return unit.convert(loadNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * @return the time of the whole reload, swap included
+	 */
+	public long getTotalTime(TimeUnit unit) {
+		return unit.convert(totalNanos, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public String toString() {
+		return "Reloaded in " + TimeUnit.NANOSECONDS.toMillis(totalNanos) + " ms (load "
+				+ TimeUnit.NANOSECONDS.toMillis(loadNanos) + " ms): added " + added + ", removed " + removed
+				+ ", replaced " + replaced;
+	}
+}
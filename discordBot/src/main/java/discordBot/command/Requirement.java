@@ -0,0 +1,43 @@
+package discordBot.command;
+
+import net.dv8tion.jda.api.utils.cache.CacheFlag;
+
+/**
+ * What a command needs from the connection to discord, beyond the messages.
+ * Declared with AbstractCommand.require, a lean bot only caches what its
+ * commands require (see AbstractBot.isLean)
+ */
+public enum Requirement {
+	/** the activities of the members (playing...), kept up to date */
+	ACTIVITY(CacheFlag.ACTIVITY, true),
+	/** the voice states of the members (who is in which voice channel) */
+	VOICE_STATE(CacheFlag.VOICE_STATE, false),
+	/** the custom emotes of the guilds */
+	EMOTE(CacheFlag.EMOTE, false),
+	/** the status of the members on each client (desktop, mobile, web) */
+	CLIENT_STATUS(CacheFlag.CLIENT_STATUS, true),
+	/** all the members of the guilds, not only the ones seen in messages */
+	MEMBERS(null, true);
+
+	private final CacheFlag cacheFlag;
+	private final boolean guildSubscriptions;
+
+	private Requirement(CacheFlag cacheFlag, boolean guildSubscriptions) {
+		this.cacheFlag = cacheFlag;
+		this.guildSubscriptions = guildSubscriptions;
+	}
+
+	/**
+	 * @return the JDA cache needed, or null if none
+	 */
+	public CacheFlag getCacheFlag() {
+		return cacheFlag;
+	}
+
+	/**
+	 * @return true if the presence and member updates of the guilds are needed
+	 */
+	public boolean needsGuildSubscriptions() {
+		return guildSubscriptions;
+	}
+}
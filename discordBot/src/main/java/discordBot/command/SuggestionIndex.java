@@ -0,0 +1,222 @@
+package discordBot.command;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * BK-tree of the command names and aliases, to suggest the closest ones to an
+ * unknown command ("did you mean"). Immutable, built once when the commands
+ * change, see AbstractBot.getSuggestionIndex.
+ *
+ * Names are compared by Levenshtein distance, ignoring case. A lookup only
+ * visits the subtrees that can hold a name close enough, and a name too long
+ * to be close to any command is rejected without visiting the tree.
+ */
+public class SuggestionIndex {
+	/**
+	 * Default number of suggestions
+	 */
+	public static final int DEFAULT_LIMIT = 3;
+	/**
+	 * Maximum distance of a suggestion, a shorter name allow less typos
+	 */
+	public static final int MAX_DISTANCE = 2;
+
+	private final Node root;
+	private final int maxLength;
+	private final int size;
+
+	private static final class Node {
+		private final String name;
+		private final String key;
+		private int[] distances = new int[0];
+		private Node[] children = new Node[0];
+
+		private Node(String name) {
+			this.name = name;
+			this.key = name.toLowerCase();
+		}
+
+		private void add(Node node, int distance) {
+			int count = children.length;
+			int[] newDistances = new int[count + 1];
+			Node[] newChildren = new Node[count + 1];
+			System.arraycopy(distances, 0, newDistances, 0, count);
+			System.arraycopy(children, 0, newChildren, 0, count);
+			newDistances[count] = distance;
+			newChildren[count] = node;
+			distances = newDistances;
+			children = newChildren;
+		}
+	}
+
+	private static final class Match implements Comparable<Match> {
+		private final Node node;
+		private final int distance;
+
+		private Match(Node node, int distance) {
+			this.node = node;
+			this.distance = distance;
+		}
+
+		@Override
+		public int compareTo(Match other) {
+			int byDistance = Integer.compare(distance, other.distance);
+			return byDistance != 0 ? byDistance : node.key.compareTo(other.node.key);
+		}
+	}
+
+	/**
+	 * @param names the names and aliases of the commands. The names only
+	 *              differing by their case are suggested once
+	 */
+	public SuggestionIndex(Collection<String> names) {
+		Node root = null;
+		int maxLength = 0;
+		int size = 0;
+		for (String name : names) {
+			if (name == null || name.isEmpty()) {
+				continue;
+			}
+			Node node = new Node(name);
+			if (root == null) {
+				root = node;
+			} else if (!insert(root, node)) {
+				continue;
+			}
+			maxLength = Math.max(maxLength, node.key.length());
+			size++;
+		}
+		this.root = root;
+		this.maxLength = maxLength;
+		this.size = size;
+	}
+
+	/**
+	 * Build the index of the names and aliases of commands
+	 *
+	 * @param commands the commands
+	 * @return the index
+	 */
+	public static SuggestionIndex of(Collection<AbstractCommand> commands) {
+		List<String> names = new ArrayList<String>(commands.size() * 2);
+		for (AbstractCommand command : commands) {
+			names.add(command.getName());
+			Collections.addAll(names, command.getAliases());
+		}
+		return new SuggestionIndex(names);
+	}
+
+	private static boolean insert(Node root, Node node) {
+		int[] row = new int[node.key.length() + 1];
+		int[] previous = new int[row.length];
+		Node parent = root;
+		while (true) {
+			int distance = distance(node.key, parent.key, previous, row);
+			if (distance == 0) {
+				return false;
+			}
+			Node next = null;
+			for (int i = 0; i < parent.children.length; i++) {
+				if (parent.distances[i] == distance) {
+					next = parent.children[i];
+					break;
+				}
+			}
+			if (next == null) {
+				parent.add(node, distance);
+				return true;
+			}
+			parent = next;
+		}
+	}
+
+	/**
+	 * @param name an unknown command name
+	 * @return the DEFAULT_LIMIT closest command names, closest first
+	 */
+	public List<String> suggest(CharSequence name) {
+		return suggest(name, DEFAULT_LIMIT);
+	}
+
+	/**
+	 * @param name  an unknown command name
+	 * @param limit maximum number of suggestions
+	 * @return the closest command names, closest first then alphabetical. Empty
+	 *         if no name is close enough
+	 */
+	public List<String> suggest(CharSequence name, int limit) {
+		int maxDistance = maxDistance(name.length());
+		if (root == null || limit <= 0 || name.length() > maxLength + maxDistance) {
+			return Collections.emptyList();
+		}
+		String query = name.toString().toLowerCase();
+		int[] row = new int[query.length() + 1];
+		int[] previous = new int[row.length];
+		List<Match> found = new ArrayList<Match>();
+		Node[] stack = new Node[size];
+		int top = 0;
+		stack[top++] = root;
+		while (top > 0) {
+			Node node = stack[--top];
+			int distance = distance(query, node.key, previous, row);
+			if (distance <= maxDistance) {
+				found.add(new Match(node, distance));
+			}
+			// triangle inequality: only these children can be close enough
+			for (int i = 0; i < node.children.length; i++) {
+				if (Math.abs(node.distances[i] - distance) <= maxDistance) {
+					stack[top++] = node.children[i];
+				}
+			}
+		}
+		if (found.isEmpty()) {
+			return Collections.emptyList();
+		}
+		Collections.sort(found);
+		List<String> suggestions = new ArrayList<String>(Math.min(limit, found.size()));
+		for (int i = 0; i < found.size() && i < limit; i++) {
+			suggestions.add(found.get(i).node.name);
+		}
+		return suggestions;
+	}
+
+	/**
+	 * @return the number of names indexed
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * One typo allowed up to 5 chars, two after
+	 */
+	static int maxDistance(int length) {
+		return length <= 5 ? 1 : MAX_DISTANCE;
+	}
+
+	/**
+	 * Levenshtein distance, with two rows of query.length() + 1 ints given by the
+	 * caller
+	 */
+	static int distance(String query, String key, int[] previous, int[] row) {
+		int n = query.length();
+		for (int j = 0; j <= n; j++) {
+			previous[j] = j;
+		}
+		for (int i = 1; i <= key.length(); i++) {
+			char c = key.charAt(i - 1);
+			row[0] = i;
+			for (int j = 1; j <= n; j++) {
+				int cost = query.charAt(j - 1) == c ? 0 : 1;
+				row[j] = Math.min(Math.min(row[j - 1], previous[j]) + 1, previous[j - 1] + cost);
+			}
+			int[] swap = previous;
+			previous = row;
+			row = swap;
+		}
+		return previous[n];
+	}
+}
@@ -0,0 +1,356 @@
+package discordBot.command.args;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import discordBot.command.CommandContext;
+import discordBot.exceptions.ValidatorException;
+
+/**
+ * The typed arguments of a command, declared once. The schema is compiled when
+ * it is built: each argument gets its slot in the primitives or in the
+ * strings of Arguments, so parse reads the message in a single pass, without
+ * splitting it first, and checks the number of arguments on the way.
+ *
+ * The arguments are separated by spaces, several spaces count as one. The
+ * optional arguments follow the required ones, a TEXT argument is the last
+ * one. Immutable.
+ */
+public final class ArgSchema {
+	private static final long[] NO_VALUES = new long[0];
+	private static final String[] NO_STRINGS = new String[0];
+
+	private static final long SECOND = 1000, MINUTE = 60 * SECOND, HOUR = 60 * MINUTE, DAY = 24 * HOUR;
+
+	private final Param[] params;
+	private final ArgType[] types;
+	private final int[] slots;
+	private final int required;
+	private final int primitives;
+	private final int strings;
+
+	private ArgSchema(Param[] params) {
+		if (params.length > 64) {
+			throw new IllegalArgumentException("A command can't have more than 64 arguments");
+		}
+		this.params = params;
+		this.types = new ArgType[params.length];
+		this.slots = new int[params.length];
+		int required = 0, primitives = 0, strings = 0;
+		boolean optional = false;
+		for (int i = 0; i < params.length; i++) {
+			Param param = params[i];
+			if (indexOf(param.getName()) != i) {
+				throw new IllegalArgumentException("Two arguments are named " + param.getName());
+			}
+			if (param.getType() == ArgType.TEXT && i != params.length - 1) {
+				throw new IllegalArgumentException("The text argument " + param.getName() + " must be the last one");
+			}
+			if (param.isOptional()) {
+				optional = true;
+			} else if (optional) {
+				throw new IllegalArgumentException(
+						"The required argument " + param.getName() + " follows an optional one");
+			} else {
+				required++;
+			}
+			types[i] = param.getType();
+			slots[i] = param.getType().isPrimitive() ? primitives++ : strings++;
+		}
+		this.required = required;
+		this.primitives = primitives;
+		this.strings = strings;
+	}
+
+	/**
+	 * @param params the arguments, in the order of the message
+	 * @return the schema
+	 * @throws IllegalArgumentException if two arguments have the same name, a
+	 *                                  required argument follows an optional one
+	 *                                  or a text argument isn't the last one
+	 */
+	public static ArgSchema of(Param... params) {
+		return new ArgSchema(params.clone());
+	}
+
+	/**
+	 * Read the arguments of a message
+	 *
+	 * @param context the message
+	 * @return the arguments
+	 * @throws ValidatorException if an argument is missing, malformed, or if
+	 *                            there are too many
+	 */
+	public Arguments parse(CommandContext context) throws ValidatorException {
+		String content = context.getContent();
+		int end = content.length();
+		int pos = context.getArgsStart();
+		long[] values = primitives == 0 ? NO_VALUES : new long[primitives];
+		String[] texts = strings == 0 ? NO_STRINGS : new String[strings];
+		long present = 0;
+		for (int i = 0; i < types.length; i++) {
+			pos = skipSpaces(content, pos, end);
+			if (pos >= end) {
+				if (i < required) {
+					throw new ValidatorException("Missing " + params[i].getName() + ": expected "
+							+ types[i].getDescription() + "\nUsage: " + usage(context.getCommandName()), true);
+				}
+				break;
+			}
+			ArgType type = types[i];
+			int slot = slots[i];
+			if (type == ArgType.TEXT) {
+				int textEnd = end;
+				while (content.charAt(textEnd - 1) == ' ') {
+					textEnd--;
+				}
+				texts[slot] = content.substring(pos, textEnd);
+				pos = end;
+			} else if (type == ArgType.QUOTED && content.charAt(pos) == '"') {
+				int close = content.indexOf('"', pos + 1);
+				if (close < 0 || (close + 1 < end && content.charAt(close + 1) != ' ')) {
+					throw invalid(i, content, pos, end);
+				}
+				texts[slot] = content.substring(pos + 1, close);
+				pos = close + 1;
+			} else {
+				int wordEnd = content.indexOf(' ', pos);
+				wordEnd = wordEnd < 0 ? end : wordEnd;
+				if (type.isPrimitive()) {
+					values[slot] = parsePrimitive(i, content, pos, wordEnd);
+				} else {
+					texts[slot] = content.substring(pos, wordEnd);
+				}
+				pos = wordEnd;
+			}
+			present |= 1L << i;
+		}
+		if (skipSpaces(content, pos, end) < end) {
+			throw new ValidatorException("Too many arguments\nUsage: " + usage(context.getCommandName()), true);
+		}
+		return new Arguments(this, values, texts, present);
+	}
+
+	private long parsePrimitive(int i, String content, int from, int to) throws ValidatorException {
+		switch (types[i]) {
+		case INT:
+			long value = parseLong(i, content, from, to);
+			if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+				throw invalid(i, content, from, to);
+			}
+			return value;
+		case LONG:
+			return parseLong(i, content, from, to);
+		case DOUBLE:
+			try {
+				double number = Double.parseDouble(content.substring(from, to));
+				if (Double.isNaN(number) || Double.isInfinite(number)) {
+					throw invalid(i, content, from, to);
+				}
+				return Double.doubleToRawLongBits(number);
+			} catch (NumberFormatException e) {
+				throw invalid(i, content, from, to);
+			}
+		case BOOLEAN:
+			return parseBoolean(i, content, from, to);
+		case USER:
+			return parseSnowflake(i, content, from, to, "<@");
+		case CHANNEL:
+			return parseSnowflake(i, content, from, to, "<#");
+		case ROLE:
+			return parseSnowflake(i, content, from, to, "<@&");
+		case DURATION:
+			return parseDuration(i, content, from, to);
+		default:
+			throw new IllegalStateException("Not a primitive: " + types[i]);
+		}
+	}
+
+	private long parseLong(int i, String content, int from, int to) throws ValidatorException {
+		boolean negative = content.charAt(from) == '-';
+		int start = negative || content.charAt(from) == '+' ? from + 1 : from;
+		long value = parseDigits(i, content, start, to);
+		return negative ? -value : value;
+	}
+
+	/**
+	 * @return the positive number written from from to to, without sign
+	 */
+	private long parseDigits(int i, String content, int from, int to) throws ValidatorException {
+		if (from >= to) {
+			throw invalid(i, content, from, to);
+		}
+		long value = 0;
+		for (int c = from; c < to; c++) {
+			int digit = content.charAt(c) - '0';
+			if (digit < 0 || digit > 9 || value > (Long.MAX_VALUE - digit) / 10) {
+				throw invalid(i, content, from, to);
+			}
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+
+	private long parseBoolean(int i, String content, int from, int to) throws ValidatorException {
+		int length = to - from;
+		if (is(content, from, length, "true") || is(content, from, length, "yes") || is(content, from, length, "on")
+				|| is(content, from, length, "1")) {
+			return 1;
+		}
+		if (is(content, from, length, "false") || is(content, from, length, "no")
+				|| is(content, from, length, "off") || is(content, from, length, "0")) {
+			return 0;
+		}
+		throw invalid(i, content, from, to);
+	}
+
+	private static boolean is(String content, int from, int length, String word) {
+		return length == word.length() && content.regionMatches(true, from, word, 0, length);
+	}
+
+	/**
+	 * A mention (eg: <@1234>, <@!1234> for a user) or a raw snowflake
+	 */
+	private long parseSnowflake(int i, String content, int from, int to, String mention)
+			throws ValidatorException {
+		int start = from, end = to;
+		if (content.charAt(from) == '<') {
+			if (!content.startsWith(mention, from) || content.charAt(to - 1) != '>') {
+				throw invalid(i, content, from, to);
+			}
+			start = from + mention.length();
+			end = to - 1;
+			if (types[i] == ArgType.USER && start < end && content.charAt(start) == '!') {
+				start++;
+			}
+		}
+		long id = parseDigits(i, content, start, end);
+		if (id == 0) {
+			throw invalid(i, content, from, to);
+		}
+		return id;
+	}
+
+	/**
+	 * Numbers followed by their unit (eg: 1h30m, 500ms), or a number of seconds
+	 * alone
+	 */
+	private long parseDuration(int i, String content, int from, int to) throws ValidatorException {
+		long total = 0;
+		int c = from;
+		while (c < to) {
+			int digits = c;
+			while (c < to && content.charAt(c) >= '0' && content.charAt(c) <= '9') {
+				c++;
+			}
+			long amount = parseDigits(i, content, digits, c);
+			long unit;
+			if (c == to) {
+				if (digits != from) {
+					throw invalid(i, content, from, to);
+				}
+				unit = SECOND;
+			} else {
+				char letter = Character.toLowerCase(content.charAt(c++));
+				if (letter == 'm' && c < to && Character.toLowerCase(content.charAt(c)) == 's') {
+					c++;
+					unit = 1;
+				} else if (letter == 'd') {
+					unit = DAY;
+				} else if (letter == 'h') {
+					unit = HOUR;
+				} else if (letter == 'm') {
+					unit = MINUTE;
+				} else if (letter == 's') {
+					unit = SECOND;
+				} else {
+					throw invalid(i, content, from, to);
+				}
+			}
+			if (amount > (Long.MAX_VALUE - total) / unit) {
+				throw invalid(i, content, from, to);
+			}
+			total += amount * unit;
+		}
+		return total;
+	}
+
+	private ValidatorException invalid(int i, String content, int from, int to) {
+		return new ValidatorException("Invalid " + params[i].getName() + ": expected " + types[i].getDescription()
+				+ ", got " + content.substring(from, to), true);
+	}
+
+	private static int skipSpaces(String content, int pos, int end) {
+		while (pos < end && content.charAt(pos) == ' ') {
+			pos++;
+		}
+		return pos;
+	}
+
+	/**
+	 * @param commandName the name of the command
+	 * @return the syntax of the command, eg: "ban <user> [reason...]"
+	 */
+	public String usage(String commandName) {
+		StringBuilder usage = new StringBuilder(commandName);
+		for (Param param : params) {
+			usage.append(' ').append(param.isOptional() ? '[' : '<').append(param.getName());
+			if (param.getType() == ArgType.TEXT) {
+				usage.append("...");
+			}
+			usage.append(param.isOptional() ? ']' : '>');
+		}
+		return usage.toString();
+	}
+
+	/**
+	 * @return what each argument expects, eg: "user: a user mention, reason:
+	 *         text"
+	 */
+	public String describe() {
+		StringBuilder description = new StringBuilder();
+		for (Param param : params) {
+			if (description.length() > 0) {
+				description.append(", ");
+			}
+			description.append(param.getName()).append(": ").append(param.getType().getDescription());
+		}
+		return description.toString();
+	}
+
+	/**
+	 * @param name the name of an argument
+	 * @return its index, or -1 if there is no argument of this name
+	 */
+	public int indexOf(String name) {
+		for (int i = 0; i < params.length; i++) {
+			if (params[i].getName().equals(name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the arguments, in the order of the message
+	 */
+	public List<Param> getParams() {
+		return Collections.unmodifiableList(Arrays.asList(params));
+	}
+
+	/**
+	 * @return the least number of arguments of a valid message
+	 */
+	public int getRequired() {
+		return required;
+	}
+
+	ArgType type(int index) {
+		return types[index];
+	}
+
+	int slot(int index) {
+		return slots[index];
+	}
+}
@@ -0,0 +1,56 @@
+package discordBot.command.args;
+
+/**
+ * The types of the arguments of a command. The numbers, booleans, snowflakes
+ * and durations are parsed into primitives, the other types into strings.
+ * Arguments reads the types by range, keep the related ones together.
+ */
+public enum ArgType {
+	/** an int, eg: 42 */
+	INT("an integer", true),
+	/** a long, eg: 1234567890123 */
+	LONG("an integer", true),
+	/** a finite double, eg: 1.5 */
+	DOUBLE("a number", true),
+	/** true/false, yes/no, on/off or 1/0, whatever the case */
+	BOOLEAN("yes or no", true),
+	/** a user mention or snowflake, eg: <@1234> */
+	USER("a user mention", true),
+	/** a channel mention or snowflake, eg: <#1234> */
+	CHANNEL("a channel mention", true),
+	/** a role mention or snowflake, eg: <@&1234> */
+	ROLE("a role mention", true),
+	/**
+	 * a duration, read as milliseconds: numbers followed by d, h, m, s or ms (eg:
+	 * 1h30m), a number alone is in seconds
+	 */
+	DURATION("a duration (eg: 1h30m)", true),
+	/** a single word */
+	WORD("a word", false),
+	/** a single word, or words between double quotes */
+	QUOTED("a word or \"some words\"", false),
+	/** the rest of the message, only as the last argument */
+	TEXT("text", false);
+
+	private final String description;
+	private final boolean primitive;
+
+	private ArgType(String description, boolean primitive) {
+		this.description = description;
+		this.primitive = primitive;
+	}
+
+	/**
+	 * @return what is expected, for the help and the errors
+	 */
+	public String getDescription() {
+		return description;
+	}
+
+	/**
+	 * @return true if the argument is parsed into a primitive
+	 */
+	public boolean isPrimitive() {
+		return primitive;
+	}
+}
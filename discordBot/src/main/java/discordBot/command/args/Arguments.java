@@ -0,0 +1,102 @@
+package discordBot.command.args;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The arguments of a message, read by an ArgSchema. The numbers, booleans,
+ * snowflakes and durations are kept as primitives, the words and texts as
+ * strings. An optional argument the message omits reads as 0, false or null,
+ * check it with has.
+ */
+public final class Arguments {
+	private final ArgSchema schema;
+	private final long[] values;
+	private final String[] strings;
+	private final long present;
+
+	Arguments(ArgSchema schema, long[] values, String[] strings, long present) {
+		this.schema = schema;
+		this.values = values;
+		this.strings = strings;
+		this.present = present;
+	}
+
+	/**
+	 * @param name the name of an argument
+	 * @return true if the message gives it
+	 */
+	public boolean has(String name) {
+		return (present & (1L << index(name))) != 0;
+	}
+
+	/**
+	 * @return the number of arguments the message gives
+	 */
+	public int size() {
+		return Long.bitCount(present);
+	}
+
+	public int getInt(String name) {
+		return (int) values[slot(name, ArgType.INT, ArgType.INT)];
+	}
+
+	/**
+	 * @param name the name of an INT or LONG argument
+	 */
+	public long getLong(String name) {
+		return values[slot(name, ArgType.INT, ArgType.LONG)];
+	}
+
+	public double getDouble(String name) {
+		return Double.longBitsToDouble(values[slot(name, ArgType.DOUBLE, ArgType.DOUBLE)]);
+	}
+
+	public boolean getBoolean(String name) {
+		return values[slot(name, ArgType.BOOLEAN, ArgType.BOOLEAN)] != 0;
+	}
+
+	/**
+	 * @param name the name of a USER, CHANNEL or ROLE argument
+	 * @return the snowflake mentioned
+	 */
+	public long getId(String name) {
+		return values[slot(name, ArgType.USER, ArgType.ROLE)];
+	}
+
+	/**
+	 * @param name the name of a DURATION argument
+	 * @param unit the unit of the result
+	 * @return the duration, truncated to the unit
+	 */
+	public long getDuration(String name, TimeUnit unit) {
+		return unit.convert(values[slot(name, ArgType.DURATION, ArgType.DURATION)], TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @param name the name of a WORD, QUOTED or TEXT argument
+	 * @return the argument, without its quotes
+	 */
+	public String getString(String name) {
+		return strings[slot(name, ArgType.WORD, ArgType.TEXT)];
+	}
+
+	private int index(String name) {
+		int index = schema.indexOf(name);
+		if (index < 0) {
+			throw new IllegalArgumentException("No argument named " + name);
+		}
+		return index;
+	}
+
+	/**
+	 * @return the slot of the argument, if its type is between first and last
+	 */
+	private int slot(String name, ArgType first, ArgType last) {
+		int index = index(name);
+		ArgType type = schema.type(index);
+		if (type.ordinal() < first.ordinal() || type.ordinal() > last.ordinal()) {
+			throw new IllegalArgumentException("The argument " + name + " is " + type.getDescription());
+		}
+		return schema.slot(index);
+	}
+}
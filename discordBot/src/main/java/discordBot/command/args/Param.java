@@ -0,0 +1,53 @@
+package discordBot.command.args;
+
+/**
+ * An argument of a command: its name, its type and whether it can be omitted.
+ * Immutable.
+ */
+public final class Param {
+	private final String name;
+	private final ArgType type;
+	private final boolean optional;
+
+	private Param(String name, ArgType type, boolean optional) {
+		if (name == null || name.isEmpty() || name.indexOf(' ') >= 0) {
+			throw new IllegalArgumentException("A parameter needs a name without space: " + name);
+		}
+		if (type == null) {
+			throw new IllegalArgumentException("The parameter " + name + " has no type");
+		}
+		this.name = name;
+		this.type = type;
+		this.optional = optional;
+	}
+
+	/**
+	 * @param name the name of the argument
+	 * @param type the type of the argument
+	 * @return an argument the message must give
+	 */
+	public static Param required(String name, ArgType type) {
+		return new Param(name, type, false);
+	}
+
+	/**
+	 * @param name the name of the argument
+	 * @param type the type of the argument
+	 * @return an argument the message can omit
+	 */
+	public static Param optional(String name, ArgType type) {
+		return new Param(name, type, true);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public ArgType getType() {
+		return type;
+	}
+
+	public boolean isOptional() {
+		return optional;
+	}
+}
@@ -0,0 +1,256 @@
+package discordBot.command.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import discordBot.command.CommandContext;
+import net.dv8tion.jda.api.entities.GuildChannel;
+import net.dv8tion.jda.api.entities.MessageChannel;
+
+/**
+ * The messages sent by a command, by arguments, to send them again without
+ * executing the command. For the read-only commands answering the same text
+ * to the same arguments, see AbstractCommand.setResultCache.
+ *
+ * The messages sent by the command with AbstractBot.message, on the thread
+ * executing it, are captured. The replies sent another way
+ * (channel.sendMessage, from a JDA callback, another thread or a timer) aren't
+ * seen: an execution capturing no message isn't cached, so such a command is
+ * executed each time instead of answering nothing. An execution ending with an
+ * exception, or sending messages to another channel than the one of the
+ * command, or leaving state behind its messages (a paged answer, see skip),
+ * isn't cached either. The least recently used results are evicted past the
+ * maximum size.
+ */
+public class ResultCache {
+	private static final ThreadLocal<Capture> CAPTURE = new ThreadLocal<Capture>();
+
+	private final long ttlNanos;
+	private final int maxSize;
+	private final boolean perGuild;
+	private final Map<String, Result> results;
+	private final LongAdder hits, misses, evictions;
+
+	/**
+	 * @param ttl      how long a result is kept
+	 * @param unit     unit of ttl
+	 * @param maxSize  maximum number of results kept
+	 * @param perGuild true if the result depends on the guild, not only on the
+	 *                 arguments
+	 */
+	public ResultCache(long ttl, TimeUnit unit, int maxSize, boolean perGuild) {
+		if (ttl <= 0 || maxSize <= 0) {
+			throw new IllegalArgumentException("ttl and maxSize must be positive: " + ttl + ", " + maxSize);
+		}
+		this.ttlNanos = unit.toNanos(ttl);
+		this.maxSize = maxSize;
+		this.perGuild = perGuild;
+		this.hits = new LongAdder();
+		this.misses = new LongAdder();
+		this.evictions = new LongAdder();
+		this.results = new LinkedHashMap<String, Result>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Result> eldest) {
+				if (size() > ResultCache.this.maxSize) {
+					evictions.increment();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * The key of a command: its arguments separated by single spaces, after the
+	 * guild if the cache is per guild. The command name isn't part of it, each
+	 * command has its own cache, shared by its aliases
+	 *
+	 * @param context the command
+	 * @return the key
+	 */
+	public String key(CommandContext context) {
+		StringBuilder key = new StringBuilder(context.getArgs().length() + 24);
+		if (perGuild) {
+			MessageChannel channel = context.getChannel();
+			key.append(channel instanceof GuildChannel ? ((GuildChannel) channel).getGuild().getIdLong() : 0);
+			key.append('\n');
+		}
+		int count = context.argCount();
+		for (int i = 0; i < count; i++) {
+			CharSequence arg = context.arg(i);
+			if (arg.length() > 0) {
+				if (key.length() > 0 && key.charAt(key.length() - 1) != '\n') {
+					key.append(' ');
+				}
+				key.append(arg);
+			}
+		}
+		return key.toString();
+	}
+
+	/**
+	 * @param key the key of a command
+	 * @return the messages sent by the command, or null if they aren't cached
+	 */
+	public List<String> get(String key) {
+		Result result;
+		synchronized (results) {
+			result = results.get(key);
+			if (result != null && System.nanoTime() - result.expiresAt >= 0) {
+				results.remove(key);
+				result = null;
+			}
+		}
+		if (result == null) {
+			misses.increment();
+			return null;
+		}
+		hits.increment();
+		return result.messages;
+	}
+
+	/**
+	 * Start capturing the messages sent by the current thread to a channel
+	 *
+	 * @param channel the channel of the command
+	 * @return the capture, to give to end
+	 */
+	public static Capture start(MessageChannel channel) {
+		Capture capture = new Capture(channel, CAPTURE.get());
+		CAPTURE.set(capture);
+		return capture;
+	}
+
+	/**
+	 * Stop a capture, and cache its messages if the command succeeded and sent
+	 * some
+	 *
+	 * @param key       the key of the command
+	 * @param capture   the capture started for the command
+	 * @param succeeded true if the command ended without exception
+	 */
+	public void end(String key, Capture capture, boolean succeeded) {
+		if (capture.previous == null) {
+			CAPTURE.remove();
+		} else {
+			CAPTURE.set(capture.previous);
+		}
+		if (!succeeded || !capture.cacheable || capture.messages.isEmpty()) {
+			return;
+		}
+		Result result = new Result(capture.messages, System.nanoTime() + ttlNanos);
+		synchronized (results) {
+			results.put(key, result);
+		}
+	}
+
+	/**
+	 * Don't cache the execution capturing on this thread: its messages aren't its
+	 * whole result. Called by AbstractBot.page, a hit would send the first page
+	 * again without registering the next ones
+	 */
+	public static void skip() {
+		Capture capture = CAPTURE.get();
+		if (capture != null) {
+			capture.cacheable = false;
+		}
+	}
+
+	/**
+	 * Called by AbstractBot.message for each message sent, capture it if a
+	 * command is capturing on this thread
+	 *
+	 * @param channel the channel of the message
+	 * @param message the message
+	 */
+	public static void sent(MessageChannel channel, String message) {
+		Capture capture = CAPTURE.get();
+		if (capture != null) {
+			capture.add(channel, message);
+		}
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return the number of results evicted because the cache was full
+	 */
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	/**
+	 * @return the number of results kept, expired ones included
+	 */
+	public int size() {
+		synchronized (results) {
+			return results.size();
+		}
+	}
+
+	public long getTtl(TimeUnit unit) {
+		return unit.convert(ttlNanos, TimeUnit.NANOSECONDS);
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public boolean isPerGuild() {
+		return perGuild;
+	}
+
+	public void clear() {
+		synchronized (results) {
+			results.clear();
+		}
+	}
+
+	/**
+	 * The messages sent by a command being executed
+	 */
+	public static final class Capture {
+		private final MessageChannel channel;
+		private final Capture previous;
+		private final List<String> messages;
+		private boolean cacheable;
+
+		private Capture(MessageChannel channel, Capture previous) {
+			this.channel = channel;
+			this.previous = previous;
+			this.messages = new ArrayList<String>(1);
+			this.cacheable = true;
+		}
+
+		private void add(MessageChannel channel, String message) {
+			if (channel.getIdLong() == this.channel.getIdLong()) {
+				messages.add(message);
+			} else {
+				cacheable = false;
+			}
+		}
+	}
+
+	private static final class Result {
+		private final List<String> messages;
+		private final long expiresAt;
+
+		private Result(List<String> messages, long expiresAt) {
+			this.messages = Collections.unmodifiableList(messages);
+			this.expiresAt = expiresAt;
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package discordBot.command.interceptor;
+
+import discordBot.command.AbstractCommand;
+import discordBot.command.CommandContext;
+import discordBot.exceptions.CommandException;
+
+/**
+ * Code run around the commands of a bot (tracing, auth, audit, timing...).
+ * Give it to AbstractBot.addInterceptor. Override only the phases needed, by
+ * default an interceptor let everything through.
+ *
+ * The phases pair up like nested blocks: once before returned true, the
+ * interceptor gets after (or onError) then complete, once the interceptors
+ * following it are unwound. The interceptors whose before didn't run or
+ * returned false get nothing.
+ *
+ * An interceptor is shared by all the commands it applies to, and called by
+ * the threads running them: it must be thread safe.
+ */
+public abstract class AbstractInterceptor {
+
+	/**
+	 * Choose the commands intercepted. Called when the interceptor is added and
+	 * when the commands are reloaded, not for each message
+	 * 
+	 * @param command a command of the bot
+	 * @return true to intercept the command, true by default
+	 */
+	public boolean appliesTo(AbstractCommand command) {
+		return true;
+	}
+
+	/**
+	 * Called before the rate limits and the validators of the command
+	 * 
+	 * @param context the command
+	 * @return false to stop the command: the next interceptors and the command
+	 *         aren't run, the previous ones are completed
+	 * @throws CommandException to fail the command, as if it threw it
+	 */
+	public boolean before(CommandContext context) throws CommandException {
+		return true;
+	}
+
+	/**
+	 * Called after the command ran without error, in the reverse order of before
+	 * 
+	 * @param context the command
+	 */
+	public void after(CommandContext context) {
+	}
+
+	/**
+	 * Called when the command, its validators, its rate limits or a following
+	 * interceptor failed, in the reverse order of before
+	 * 
+	 * @param context the command
+	 * @param e       the error: a CommandException, a ValidatorException or a
+	 *                RuntimeException
+	 * @return true if the error is handled: the previous interceptors and the
+	 *         hooks of the bot don't see it
+	 */
+	public boolean onError(CommandContext context, Exception e) {
+		return false;
+	}
+
+	/**
+	 * Always called once before returned true, whatever happened next (the
+	 * command ran, failed, or a following interceptor stopped it), in the
+	 * reverse order of before. The place to end a span or release a lock
+	 * 
+	 * @param context the command
+	 * @param error   the error of the command, handled or not, null if there was
+	 *                none
+	 */
+	public void complete(CommandContext context, Throwable error) {
+	}
+}
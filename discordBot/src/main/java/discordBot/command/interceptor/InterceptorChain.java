@@ -0,0 +1,151 @@
+package discordBot.command.interceptor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import discordBot.command.AbstractCommand;
+import discordBot.command.CommandContext;
+import discordBot.exceptions.CommandException;
+import discordBot.exceptions.ValidatorException;
+
+/**
+ * The interceptors of a command, compiled into an array when the command is
+ * registered, so running them costs no allocation nor iterator. The phases are
+ * unwound like nested blocks, see AbstractInterceptor.
+ *
+ * Immutable, the bot compiles a new chain when its interceptors or its
+ * commands change.
+ */
+public final class InterceptorChain {
+	/** a chain intercepting nothing */
+	public static final InterceptorChain EMPTY = new InterceptorChain(new AbstractInterceptor[0]);
+
+	private final AbstractInterceptor[] interceptors;
+
+	private InterceptorChain(AbstractInterceptor[] interceptors) {
+		this.interceptors = interceptors;
+	}
+
+	/**
+	 * @param interceptors the interceptors of the bot, in their registration
+	 *                     order
+	 * @param command      the command
+	 * @return the chain of the interceptors applying to the command
+	 */
+	public static InterceptorChain of(List<AbstractInterceptor> interceptors, AbstractCommand command) {
+		List<AbstractInterceptor> applying = new ArrayList<AbstractInterceptor>(interceptors.size());
+		for (AbstractInterceptor interceptor : interceptors) {
+			if (interceptor.appliesTo(command)) {
+				applying.add(interceptor);
+			}
+		}
+		if (applying.isEmpty()) {
+			return EMPTY;
+		}
+		return new InterceptorChain(applying.toArray(new AbstractInterceptor[0]));
+	}
+
+	/**
+	 * What happened to a command run through the chain
+	 */
+	public enum Outcome {
+		/** the command ran without error */
+		RAN,
+		/** an interceptor stopped it */
+		STOPPED,
+		/** it failed, and an interceptor handled the error */
+		HANDLED
+	}
+
+	/**
+	 * The command run inside the chain
+	 */
+	public interface Body {
+		void run(CommandContext context) throws CommandException, ValidatorException;
+	}
+
+	/**
+	 * Run a command inside the interceptors: the before phases in order, then
+	 * the command, then, in the reverse order and only for the interceptors
+	 * whose before returned true, the after or onError phase followed by the
+	 * complete phase
+	 * 
+	 * @param context the command
+	 * @param body    runs the command
+	 * @return what happened
+	 * @throws CommandException   if the command or an interceptor failed, and no
+	 *                            interceptor handled it
+	 * @throws ValidatorException if the command syntax is wrong, and no
+	 *                            interceptor handled it
+	 */
+	public Outcome run(CommandContext context, Body body) throws CommandException, ValidatorException {
+		int entered = 0;
+		try {
+			while (entered < interceptors.length) {
+				if (!interceptors[entered].before(context)) {
+					unwind(context, entered, false, null);
+					return Outcome.STOPPED;
+				}
+				entered++;
+			}
+			body.run(context);
+		} catch (CommandException | ValidatorException | RuntimeException e) {
+			if (unwind(context, entered, false, e)) {
+				return Outcome.HANDLED;
+			}
+			throw e;
+		} catch (Error e) {
+			unwind(context, entered, false, e);
+			throw e;
+		}
+		unwind(context, entered, true, null);
+		return Outcome.RAN;
+	}
+
+	/**
+	 * Unwind the interceptors which entered, the last one first. An interceptor
+	 * throwing is reported, the others are still called
+	 * 
+	 * @return true if an interceptor handled the error
+	 */
+	private boolean unwind(CommandContext context, int entered, boolean ran, Throwable error) {
+		boolean handled = false;
+		for (int i = entered - 1; i >= 0; i--) {
+			AbstractInterceptor interceptor = interceptors[i];
+			try {
+				if (ran) {
+					interceptor.after(context);
+				} else if (!handled && error instanceof Exception) {
+					handled = interceptor.onError(context, (Exception) error);
+				}
+			} catch (RuntimeException e) {
+				report(interceptor, ran ? "after" : "onError", context, e);
+			}
+			try {
+				interceptor.complete(context, error);
+			} catch (RuntimeException e) {
+				report(interceptor, "complete", context, e);
+			}
+		}
+		return handled;
+	}
+
+	private static void report(AbstractInterceptor interceptor, String phase, CommandContext context,
+			RuntimeException e) {
+		System.err.println("Interceptor " + interceptor.getClass().getName() + " failed in " + phase
+				+ " of " + context.getCommandName() + ": " + e);
+	}
+
+	/**
+	 * @return the interceptors, in their order
+	 */
+	public List<AbstractInterceptor> getInterceptors() {
+		return Collections.unmodifiableList(Arrays.asList(interceptors));
+	}
+
+	public boolean isEmpty() {
+		return interceptors.length == 0;
+	}
+}
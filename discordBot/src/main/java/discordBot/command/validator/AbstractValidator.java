@@ -1,18 +1,56 @@
 package discordBot.command.validator;
 
+import discordBot.command.CommandContext;
 import discordBot.exceptions.ValidatorException;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 
 public abstract class AbstractValidator {
+	/** cost of a check reading only the message */
+	public static final int COST_CHEAP = 1;
+	/** cost of a check by default */
+	public static final int COST_DEFAULT = 100;
+	/** cost of a check looking up discord entities (permissions, roles...) */
+	public static final int COST_EXPENSIVE = 1000;
+
 	private String failMessage;
+	private ValidatorException failure;
 
 	public AbstractValidator(String failMessage) {
 		this.failMessage = failMessage;
+		this.failure = new ValidatorException(failMessage, true);
 	}
 
 	public abstract boolean check(MessageReceivedEvent event);
 
+	/**
+	 * Check a parsed message. Override it to use the arguments already parsed,
+	 * default call check(MessageReceivedEvent)
+	 * 
+	 * @param context the message parsed
+	 * @return true if the message is valid
+	 */
+	public boolean check(CommandContext context) {
+		return check(context.getEvent());
+	}
+
+	/**
+	 * The validators of a command are checked from the cheapest to the most
+	 * expensive, so a malformed message is rejected before any expensive check
+	 * 
+	 * @return the relative cost of the check, COST_DEFAULT by default
+	 */
+	public int getCost() {
+		return COST_DEFAULT;
+	}
+
+	public String getFailMessage() {
+		return failMessage;
+	}
+
+	/**
+	 * @return the exception of a failed check. Created once, without stack trace
+	 */
 	public ValidatorException getFailException() {
-		return new ValidatorException(failMessage);
+		return failure;
 	}
 }
@@ -1,9 +1,10 @@
 package discordBot.command.validator;
 
 import discordBot.command.AbstractCommand;
+import discordBot.command.CommandContext;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 
-public abstract class ArgLengthValidator extends AbstractValidator {
+public class ArgLengthValidator extends AbstractValidator {
 	private int minLength;
 	private int maxLength;
 
@@ -23,4 +24,23 @@ public abstract class ArgLengthValidator extends AbstractValidator {
 		String[] params = AbstractCommand.getParams(event);
 		return (params.length >= minLength && params.length <= maxLength);
 	}
+
+	@Override
+	public boolean check(CommandContext context) {
+		int count = context.argCount();
+		return (count >= minLength && count <= maxLength);
+	}
+
+	@Override
+	public int getCost() {
+		return COST_CHEAP;
+	}
+
+	public int getMinLength() {
+		return minLength;
+	}
+
+	public int getMaxLength() {
+		return maxLength;
+	}
 }
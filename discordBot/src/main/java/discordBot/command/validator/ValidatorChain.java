@@ -0,0 +1,111 @@
+package discordBot.command.validator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import discordBot.command.CommandContext;
+
+/**
+ * The validators of a command, compiled into a single check when they are
+ * registered. The argument count validators are fused into one range check,
+ * the other validators are sorted from the cheapest to the most expensive, so
+ * a malformed message is rejected by a single comparison.
+ *
+ * Immutable, adding validators builds a new chain.
+ */
+public final class ValidatorChain {
+	/** a chain accepting everything */
+	public static final ValidatorChain EMPTY = new ValidatorChain(new AbstractValidator[0]);
+
+	private static final Comparator<AbstractValidator> BY_COST = Comparator.comparingInt(AbstractValidator::getCost);
+
+	private final AbstractValidator[] validators;
+	private final ArgLengthValidator[] lengthValidators;
+	private final AbstractValidator[] others;
+	private final int minArgs;
+	private final int maxArgs;
+
+	private ValidatorChain(AbstractValidator[] validators) {
+		this.validators = validators;
+		List<ArgLengthValidator> lengths = new ArrayList<ArgLengthValidator>();
+		List<AbstractValidator> rest = new ArrayList<AbstractValidator>();
+		int min = 0, max = Integer.MAX_VALUE;
+		for (AbstractValidator validator : validators) {
+			if (validator.getClass() == ArgLengthValidator.class) {
+				ArgLengthValidator length = (ArgLengthValidator) validator;
+				lengths.add(length);
+				min = Math.max(min, length.getMinLength());
+				max = Math.min(max, length.getMaxLength());
+			} else {
+				rest.add(validator);
+			}
+		}
+		// stable sort: same cost validators keep their registration order
+		Collections.sort(rest, BY_COST);
+		this.lengthValidators = lengths.toArray(new ArgLengthValidator[0]);
+		this.others = rest.toArray(new AbstractValidator[0]);
+		this.minArgs = min;
+		this.maxArgs = max;
+	}
+
+	/**
+	 * @param added the validators to add
+	 * @return a new chain with the validators of this one and the added ones
+	 */
+	public ValidatorChain with(AbstractValidator... added) {
+		if (added.length == 0) {
+			return this;
+		}
+		AbstractValidator[] all = Arrays.copyOf(validators, validators.length + added.length);
+		System.arraycopy(added, 0, all, validators.length, added.length);
+		return new ValidatorChain(all);
+	}
+
+	/**
+	 * Check a message against all the validators
+	 *
+	 * @param context the message parsed
+	 * @return the first validator failing, or null if the message is valid
+	 */
+	public AbstractValidator check(CommandContext context) {
+		if (lengthValidators.length > 0) {
+			int count = context.argCount();
+			if (count < minArgs || count > maxArgs) {
+				return failingLength(context);
+			}
+		}
+		for (int i = 0; i < others.length; i++) {
+			if (!others[i].check(context)) {
+				return others[i];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * The fused range failed, find which validator to blame
+	 */
+	private AbstractValidator failingLength(CommandContext context) {
+		for (ArgLengthValidator validator : lengthValidators) {
+			if (!validator.check(context)) {
+				return validator;
+			}
+		}
+		// the ranges don't overlap, no message can be valid
+		return lengthValidators[0];
+	}
+
+	/**
+	 * @return the validators, in their registration order
+	 */
+	public List<AbstractValidator> getValidators() {
+		return Collections.unmodifiableList(Arrays.asList(validators));
+	}
+
+	public boolean isEmpty() {
+		return validators.length == 0;
+	}
+}
@@ -0,0 +1,646 @@
+package discordBot.config;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import discordBot.ratelimit.RateLimit;
+import discordBot.ratelimit.RateLimiter;
+import discordBot.util.ConcurrentLongMap;
+import discordBot.util.Mappings;
+import net.dv8tion.jda.api.entities.GuildChannel;
+import net.dv8tion.jda.api.entities.MessageChannel;
+
+/**
+ * The settings of the guilds and channels, kept across restarts: prefix,
+ * disabled commands and cooldown overrides. A channel setting wins over the
+ * one of its guild. Give it to AbstractBot.setConfigStore.
+ *
+ * The settings are read from an index in memory, keyed by snowflake: a read
+ * only locks one stripe of the index (see ConcurrentLongMap) for the lookup,
+ * never the store nor the file. Every change is appended to a memory mapped
+ * log: a write is a copy into the mapping, no system call. The log is replayed
+ * at startup and rewritten with only the current settings once most of its
+ * records are outdated. The mappings are released before the file is
+ * truncated or replaced, which fails on a mapped file on Windows.
+ *
+ * The log starts with the magic number "DBCF" and the version, then each
+ * record is its length (int, written last so a record cut by a crash is never
+ * read) followed by the operation (byte), the snowflake (long), and for some
+ * operations a text (unsigned short length, UTF-8) and a rate (int permits,
+ * long period in nanoseconds). A length of 0 ends the log.
+ */
+public class ConfigStore implements Closeable {
+	static final int MAGIC = 0x44424346;
+	static final int VERSION = 1;
+	private static final int HEADER = 8;
+	private static final int INITIAL_SIZE = 1 << 20;
+	/** the log isn't compacted below this number of records */
+	private static final int COMPACT_MIN_RECORDS = 4096;
+
+	private static final byte PREFIX = 1, NO_PREFIX = 2, DISABLE = 3, ENABLE = 4, COOLDOWN = 5, NO_COOLDOWN = 6,
+			GUILD = 0x10;
+
+	private final ConcurrentLongMap<Settings> channels;
+	private final ConcurrentLongMap<Settings> guilds;
+	private final Path file;
+	private FileChannel channel;
+	private MappedByteBuffer log;
+	private int end;
+	private long records;
+	private long live;
+	private long compactions;
+	// false once an automatic compaction failed, until compact succeeds
+	private boolean autoCompact = true;
+
+	/**
+	 * The settings of a guild or a channel. Immutable, replaced on change
+	 */
+	private static final class Settings {
+		private static final Settings EMPTY = new Settings(null, Collections.<String>emptySet(),
+				Collections.<String, Cooldown>emptyMap());
+
+		private final String prefix;
+		private final Set<String> disabled;
+		private final Map<String, Cooldown> cooldowns;
+
+		private Settings(String prefix, Set<String> disabled, Map<String, Cooldown> cooldowns) {
+			this.prefix = prefix;
+			this.disabled = disabled;
+			this.cooldowns = cooldowns;
+		}
+
+		private Settings withPrefix(String prefix) {
+			return new Settings(prefix, disabled, cooldowns);
+		}
+
+		private Settings withDisabled(String command, boolean disable) {
+			if (disabled.contains(command) == disable) {
+				return this;
+			}
+			Set<String> copy = new HashSet<String>(disabled);
+			if (disable) {
+				copy.add(command);
+			} else {
+				copy.remove(command);
+			}
+			return new Settings(prefix, copy.isEmpty() ? Collections.<String>emptySet() : copy, cooldowns);
+		}
+
+		private Settings withCooldown(String command, RateLimit limit) {
+			if (limit == null && !cooldowns.containsKey(command)) {
+				return this;
+			}
+			Map<String, Cooldown> copy = new HashMap<String, Cooldown>(cooldowns);
+			if (limit == null) {
+				copy.remove(command);
+			} else {
+				copy.put(command, new Cooldown(limit));
+			}
+			return new Settings(prefix, disabled, copy.isEmpty() ? Collections.<String, Cooldown>emptyMap() : copy);
+		}
+
+		/**
+		 * @return the number of records needed to write these settings
+		 */
+		private int records() {
+			return (prefix == null ? 0 : 1) + disabled.size() + cooldowns.size();
+		}
+	}
+
+	/**
+	 * A cooldown override, its limiter is created on first use
+	 */
+	private static final class Cooldown {
+		private final RateLimit limit;
+		private volatile RateLimiter limiter;
+
+		private Cooldown(RateLimit limit) {
+			this.limit = limit;
+		}
+
+		private RateLimiter limiter() {
+			RateLimiter current = limiter;
+			if (current == null) {
+				synchronized (this) {
+					current = limiter;
+					if (current == null) {
+						current = new RateLimiter(limit);
+						limiter = current;
+					}
+				}
+			}
+			return current;
+		}
+	}
+
+	/**
+	 * A store living only in memory
+	 */
+	public ConfigStore() {
+		this.channels = new ConcurrentLongMap<Settings>();
+		this.guilds = new ConcurrentLongMap<Settings>();
+		this.file = null;
+	}
+
+	/**
+	 * A store backed by a file. The file is loaded (and compacted if needed) now,
+	 * then every change is appended to it
+	 *
+	 * @param file the backing file, created if it doesn't exist
+	 * @throws IOException if the file can't be mapped or isn't a config log
+	 */
+	public ConfigStore(Path file) throws IOException {
+		this.channels = new ConcurrentLongMap<Settings>();
+		this.guilds = new ConcurrentLongMap<Settings>();
+		this.file = file;
+		load(open(file));
+		compactIfOutdated();
+	}
+
+	/**
+	 * @param guildId   snowflake of the guild, 0 for a private channel
+	 * @param channelId snowflake of the channel
+	 * @return the prefix of the channel, or of its guild, or null if none is set
+	 */
+	public String getPrefix(long guildId, long channelId) {
+		Settings settings = channels.get(channelId);
+		if (settings != null && settings.prefix != null) {
+			return settings.prefix;
+		}
+		settings = guildId == 0 ? null : guilds.get(guildId);
+		return settings == null ? null : settings.prefix;
+	}
+
+	public String getChannelPrefix(long channelId) {
+		Settings settings = channels.get(channelId);
+		return settings == null ? null : settings.prefix;
+	}
+
+	public String getGuildPrefix(long guildId) {
+		Settings settings = guilds.get(guildId);
+		return settings == null ? null : settings.prefix;
+	}
+
+	/**
+	 * @param channelId snowflake of the channel
+	 * @param prefix    the prefix, null to use the one of the guild again
+	 */
+	public void setChannelPrefix(long channelId, String prefix) {
+		update(prefix == null ? NO_PREFIX : PREFIX, channelId, prefix, null);
+	}
+
+	/**
+	 * @param guildId snowflake of the guild
+	 * @param prefix  the prefix, null to use the default one again
+	 */
+	public void setGuildPrefix(long guildId, String prefix) {
+		update((byte) ((prefix == null ? NO_PREFIX : PREFIX) | GUILD), guildId, prefix, null);
+	}
+
+	/**
+	 * @param guildId   snowflake of the guild, 0 for a private channel
+	 * @param channelId snowflake of the channel
+	 * @param command   name of the command
+	 * @return true if the command is disabled in the channel or in its guild
+	 */
+	public boolean isDisabled(long guildId, long channelId, String command) {
+		Settings settings = channels.get(channelId);
+		if (settings != null && settings.disabled.contains(command)) {
+			return true;
+		}
+		settings = guildId == 0 ? null : guilds.get(guildId);
+		return settings != null && settings.disabled.contains(command);
+	}
+
+	/**
+	 * @param channel a channel
+	 * @param command name of the command
+	 * @return true if the command is disabled in the channel or in its guild
+	 */
+	public boolean isDisabled(MessageChannel channel, String command) {
+		return isDisabled(guildId(channel), channel.getIdLong(), command);
+	}
+
+	/**
+	 * @param channelId snowflake of the channel
+	 * @param command   name of the command
+	 * @param disabled  true to ignore the command in the channel
+	 */
+	public void setChannelDisabled(long channelId, String command, boolean disabled) {
+		update(disabled ? DISABLE : ENABLE, channelId, command, null);
+	}
+
+	/**
+	 * @param guildId  snowflake of the guild
+	 * @param command  name of the command
+	 * @param disabled true to ignore the command in all the channels of the guild
+	 */
+	public void setGuildDisabled(long guildId, String command, boolean disabled) {
+		update((byte) ((disabled ? DISABLE : ENABLE) | GUILD), guildId, command, null);
+	}
+
+	/**
+	 * @param guildId   snowflake of the guild, 0 for a private channel
+	 * @param channelId snowflake of the channel
+	 * @param command   name of the command
+	 * @return the limiter of the cooldown set for the command in the channel, or
+	 *         else in its guild, or null if the cooldown of the command applies
+	 */
+	public RateLimiter getCooldown(long guildId, long channelId, String command) {
+		Settings settings = channels.get(channelId);
+		Cooldown cooldown = settings == null ? null : settings.cooldowns.get(command);
+		if (cooldown == null && guildId != 0) {
+			settings = guilds.get(guildId);
+			cooldown = settings == null ? null : settings.cooldowns.get(command);
+		}
+		return cooldown == null ? null : cooldown.limiter();
+	}
+
+	/**
+	 * @param channel a channel
+	 * @param command name of the command
+	 * @return the limiter of the cooldown set for the command in the channel, or
+	 *         else in its guild, or null if the cooldown of the command applies
+	 */
+	public RateLimiter getCooldown(MessageChannel channel, String command) {
+		return getCooldown(guildId(channel), channel.getIdLong(), command);
+	}
+
+	/**
+	 * @param channelId snowflake of the channel
+	 * @param command   name of the command
+	 * @param cooldown  the rate allowed for each user in the channel, null to use
+	 *                  the one of the guild or of the command again
+	 */
+	public void setChannelCooldown(long channelId, String command, RateLimit cooldown) {
+		update(cooldown == null ? NO_COOLDOWN : COOLDOWN, channelId, command, cooldown);
+	}
+
+	/**
+	 * @param guildId  snowflake of the guild
+	 * @param command  name of the command
+	 * @param cooldown the rate allowed for each user in the guild, null to use the
+	 *                 one of the command again
+	 */
+	public void setGuildCooldown(long guildId, String command, RateLimit cooldown) {
+		update((byte) ((cooldown == null ? NO_COOLDOWN : COOLDOWN) | GUILD), guildId, command, cooldown);
+	}
+
+	private static long guildId(MessageChannel channel) {
+		return channel instanceof GuildChannel ? ((GuildChannel) channel).getGuild().getIdLong() : 0;
+	}
+
+	/**
+	 * @return the number of guilds and channels with settings
+	 */
+	public int size() {
+		return channels.size() + guilds.size();
+	}
+
+	/**
+	 * @return the number of records in the log, outdated ones included
+	 */
+	public synchronized long getRecords() {
+		return records;
+	}
+
+	/**
+	 * @return the number of records a compaction would keep
+	 */
+	public synchronized long getLiveRecords() {
+		return live;
+	}
+
+	/**
+	 * @return the number of times the log was rewritten
+	 */
+	public synchronized long getCompactions() {
+		return compactions;
+	}
+
+	private synchronized void update(byte op, long id, String text, RateLimit limit) {
+		byte[] bytes = text == null ? null : text.getBytes(StandardCharsets.UTF_8);
+		if (bytes != null && bytes.length > 0xFFFF) {
+			throw new IllegalArgumentException("Config value too long: " + text.length() + " chars");
+		}
+		apply(op, id, text, limit);
+		if (log == null) {
+			return;
+		}
+		try {
+			append(op, id, bytes, limit);
+		} catch (IOException e) {
+			System.err.println("Error writing the config file: " + e.getMessage());
+			return;
+		}
+		compactIfOutdated();
+	}
+
+	/**
+	 * Compact the log once most of its records are outdated. A failure stops the
+	 * automatic compactions, instead of trying again on each write
+	 */
+	private void compactIfOutdated() {
+		if (!autoCompact || records < COMPACT_MIN_RECORDS || records <= 2 * live) {
+			return;
+		}
+		try {
+			compact();
+		} catch (IOException e) {
+			autoCompact = false;
+			System.err.println("Error compacting the config file, no more automatic compaction: " + e.getMessage());
+		}
+	}
+
+	private void apply(byte op, long id, String text, RateLimit limit) {
+		ConcurrentLongMap<Settings> map = (op & GUILD) != 0 ? guilds : channels;
+		Settings before = map.get(id);
+		if (before == null) {
+			before = Settings.EMPTY;
+		}
+		Settings after;
+		switch (op & ~GUILD) {
+		case PREFIX:
+			after = before.withPrefix(text);
+			break;
+		case NO_PREFIX:
+			after = before.withPrefix(null);
+			break;
+		case DISABLE:
+			after = before.withDisabled(text, true);
+			break;
+		case ENABLE:
+			after = before.withDisabled(text, false);
+			break;
+		case COOLDOWN:
+			after = before.withCooldown(text, limit);
+			break;
+		case NO_COOLDOWN:
+			after = before.withCooldown(text, null);
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown config operation " + op);
+		}
+		if (after.records() == 0) {
+			map.remove(id);
+		} else if (after != before) {
+			map.put(id, after);
+		}
+		live += after.records() - before.records();
+	}
+
+	/**
+	 * Map a log, writing its header if it is new
+	 *
+	 * @return the size of the file before mapping it
+	 */
+	private int open(Path path) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		long size = channel.size();
+		if (size > Integer.MAX_VALUE) {
+			channel.close();
+			throw new IOException("Config file too big: " + path);
+		}
+		log = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, INITIAL_SIZE));
+		if (size == 0) {
+			log.putInt(0, MAGIC);
+			log.putInt(4, VERSION);
+		} else if (size < HEADER || log.getInt(0) != MAGIC) {
+			abandon();
+			throw new IOException(path + " isn't a config log");
+		} else if (log.getInt(4) != VERSION) {
+			int version = log.getInt(4);
+			abandon();
+			throw new IOException("Unknown config log version " + version + " in " + path);
+		}
+		end = HEADER;
+		return (int) size;
+	}
+
+	/**
+	 * Replay the log. A record cut at the end of the log is ignored and zeroed,
+	 * the next record overwrites it: a shorter one can't leave stale bytes behind
+	 * it, read as a length after another crash
+	 *
+	 * @param size the size of the file, the mapping is padded with zeroes past it
+	 */
+	private void load(int size) throws IOException {
+		Map<String, String> strings = new HashMap<String, String>();
+		ByteBuffer reader = log.duplicate();
+		int position = HEADER;
+		int capacity = Math.min(size, log.capacity());
+		while (position + 4 <= capacity) {
+			int length = log.getInt(position);
+			if (length == 0) {
+				break;
+			}
+			if (length < 9 || position + 4 + length > capacity) {
+				System.err.println("Config file truncated, last record ignored");
+				break;
+			}
+			int at = position + 4;
+			byte op = log.get(at);
+			long id = log.getLong(at + 1);
+			at += 9;
+			String text = null;
+			RateLimit limit = null;
+			byte type = (byte) (op & ~GUILD);
+			if (type != NO_PREFIX) {
+				byte[] bytes = new byte[log.getShort(at) & 0xFFFF];
+				reader.position(at + 2);
+				reader.get(bytes);
+				at += 2 + bytes.length;
+				// the same prefixes and command names come back in many records
+				String decoded = new String(bytes, StandardCharsets.UTF_8);
+				text = strings.putIfAbsent(decoded, decoded);
+				if (text == null) {
+					text = decoded;
+				}
+			}
+			if (type == COOLDOWN) {
+				limit = new RateLimit(log.getInt(at), log.getLong(at + 4), TimeUnit.NANOSECONDS);
+			}
+			try {
+				apply(op, id, text, limit);
+			} catch (IllegalArgumentException e) {
+				throw new IOException("Corrupted config file " + file + ": " + e.getMessage());
+			}
+			records++;
+			position += 4 + length;
+		}
+		end = position;
+		if (position < capacity) {
+			ByteBuffer writer = log.duplicate();
+			writer.position(position);
+			byte[] zeroes = new byte[Math.min(capacity - position, 1 << 12)];
+			while (writer.position() < capacity) {
+				writer.put(zeroes, 0, Math.min(zeroes.length, capacity - writer.position()));
+			}
+		}
+	}
+
+	private void append(byte op, long id, byte[] bytes, RateLimit limit) throws IOException {
+		int length = 9 + (bytes == null ? 0 : 2 + bytes.length) + (limit == null ? 0 : 12);
+		if ((long) end + 4 + length > log.capacity()) {
+			long size = Math.max(2L * log.capacity(), (long) end + 4 + length);
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("Config file full, compact it: " + file);
+			}
+			MappedByteBuffer previous = log;
+			log = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			Mappings.unmap(previous);
+		}
+		int at = end + 4;
+		log.put(at, op);
+		log.putLong(at + 1, id);
+		at += 9;
+		if (bytes != null) {
+			log.putShort(at, (short) bytes.length);
+			ByteBuffer writer = log.duplicate();
+			writer.position(at + 2);
+			writer.put(bytes);
+			at += 2 + bytes.length;
+		}
+		if (limit != null) {
+			log.putInt(at, limit.getPermits());
+			log.putLong(at + 4, limit.getPeriod(TimeUnit.NANOSECONDS));
+		}
+		// the length is written last: the record exists once it is set
+		log.putInt(end, length);
+		end += 4 + length;
+		records++;
+	}
+
+	/**
+	 * Rewrite the backing file with only the current settings. Done
+	 * automatically once most of the records are outdated. On failure the
+	 * previous log is kept, and written to again
+	 *
+	 * @throws IOException if the file can't be written
+	 */
+	public synchronized void compact() throws IOException {
+		if (log == null) {
+			return;
+		}
+		int previousEnd = end;
+		long previousRecords = records;
+		closeLog();
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+		try {
+			Files.deleteIfExists(tmp);
+			open(tmp);
+			records = 0;
+			IOException[] error = new IOException[1];
+			channels.forEach((id, settings) -> writeQuietly((byte) 0, id, settings, error));
+			guilds.forEach((id, settings) -> writeQuietly(GUILD, id, settings, error));
+			closeLog();
+			if (error[0] != null) {
+				throw error[0];
+			}
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException | RuntimeException e) {
+			if (channel != null) {
+				closeLog();
+			}
+			try {
+				Files.deleteIfExists(tmp);
+			} catch (IOException e2) {
+				// left for the next compaction
+			}
+			open(file);
+			end = previousEnd;
+			records = previousRecords;
+			throw e;
+		}
+		int written = end;
+		open(file);
+		end = written;
+		compactions++;
+		autoCompact = true;
+	}
+
+	private void writeQuietly(byte scope, long id, Settings settings, IOException[] error) {
+		if (error[0] != null) {
+			return;
+		}
+		try {
+			if (settings.prefix != null) {
+				append((byte) (PREFIX | scope), id, settings.prefix.getBytes(StandardCharsets.UTF_8), null);
+			}
+			for (String command : settings.disabled) {
+				append((byte) (DISABLE | scope), id, command.getBytes(StandardCharsets.UTF_8), null);
+			}
+			for (Map.Entry<String, Cooldown> cooldown : settings.cooldowns.entrySet()) {
+				append((byte) (COOLDOWN | scope), id, cooldown.getKey().getBytes(StandardCharsets.UTF_8),
+						cooldown.getValue().limit);
+			}
+		} catch (IOException e) {
+			error[0] = e;
+		}
+	}
+
+	/**
+	 * Write the changes to the disk. The changes are in the mapping as soon as
+	 * they are made, they survive a crash of the bot but not of the system
+	 * without this
+	 *
+	 * @throws IOException if the file can't be written
+	 */
+	public synchronized void flush() throws IOException {
+		if (log != null) {
+			log.force();
+		}
+	}
+
+	/**
+	 * Close a file that isn't a config log, without touching it
+	 */
+	private void abandon() throws IOException {
+		Mappings.unmap(log);
+		channel.close();
+		channel = null;
+		log = null;
+	}
+
+	private void closeLog() throws IOException {
+		if (channel == null) {
+			return;
+		}
+		FileChannel closing = channel;
+		MappedByteBuffer mapping = log;
+		channel = null;
+		log = null;
+		try {
+			mapping.force();
+			Mappings.unmap(mapping);
+			try {
+				// drop the zeroes after the last record
+				closing.truncate(end);
+			} catch (IOException e) {
+				// still mapped: the zeroes are kept, they end the log
+			}
+		} finally {
+			closing.close();
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		closeLog();
+	}
+}
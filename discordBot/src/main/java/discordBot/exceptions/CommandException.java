@@ -5,6 +5,14 @@ public class CommandException extends Exception {
 	public CommandException(String string) {
 		super(string);
 	}
+
+	/**
+	 * @param string    the message
+	 * @param stackless true to skip the stack trace
+	 */
+	protected CommandException(String string, boolean stackless) {
+		super(string, null, !stackless, !stackless);
+	}
 	private static final long serialVersionUID = 1L;
 
 }
@@ -1,5 +1,10 @@
 package discordBot.exceptions;
 
+import java.util.Collections;
+import java.util.List;
+
+import discordBot.command.SuggestionIndex;
+
 public class CommandNotFoundException extends Exception {
 
 	/**
@@ -7,7 +12,45 @@ public class CommandNotFoundException extends Exception {
 	 */
 	private static final long serialVersionUID = 1L;
 
+	private transient SuggestionIndex index;
+	private List<String> suggestions;
+
 	public CommandNotFoundException(String string) {
 		super(string);
 	}
+
+	/**
+	 * An exception without stack trace, for the messages with an unknown command
+	 * 
+	 * @param string    the name of the command
+	 * @param stackless true to skip the stack trace
+	 */
+	public CommandNotFoundException(String string, boolean stackless) {
+		super(string, null, !stackless, !stackless);
+	}
+
+	/**
+	 * @param string    the name of the command
+	 * @param stackless true to skip the stack trace
+	 * @param index     the commands of the bot, to suggest the closest ones
+	 */
+	public CommandNotFoundException(String string, boolean stackless, SuggestionIndex index) {
+		this(string, stackless);
+		this.index = index;
+	}
+
+	/**
+	 * The command names closest to the unknown one, to show "did you mean ...".
+	 * Computed on the first call only, nothing is computed if it isn't called
+	 * 
+	 * @return at most SuggestionIndex.DEFAULT_LIMIT names, closest first. Empty
+	 *         if none is close enough
+	 */
+	public List<String> getSuggestions() {
+		if (suggestions == null) {
+			suggestions = index == null || getMessage() == null ? Collections.<String>emptyList()
+					: index.suggest(getMessage());
+		}
+		return suggestions;
+	}
 }
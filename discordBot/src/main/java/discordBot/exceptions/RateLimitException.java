@@ -0,0 +1,44 @@
+package discordBot.exceptions;
+
+/**
+ * Thrown instead of running a command when its author, its channel or the
+ * command itself is used faster than allowed. Has no stack trace: it happens
+ * under floods, when the bot must stay cheap
+ */
+public class RateLimitException extends CommandException {
+
+	/**
+	 * What was used too fast
+	 */
+	public enum Scope {
+		/** the commands of a user */
+		USER,
+		/** the commands sent to a channel */
+		CHANNEL,
+		/** the cooldown of a command, for a user */
+		COMMAND
+	}
+
+	private final Scope scope;
+	private final long retryAfterMillis;
+
+	public RateLimitException(Scope scope, long retryAfterMillis) {
+		super("Too many commands (" + scope.name().toLowerCase() + "), retry in " + retryAfterMillis + "ms", true);
+		this.scope = scope;
+		this.retryAfterMillis = retryAfterMillis;
+	}
+
+	public Scope getScope() {
+		return scope;
+	}
+
+	/**
+	 * @return the time to wait before the command is allowed again
+	 */
+	public long getRetryAfterMillis() {
+		return retryAfterMillis;
+	}
+
+	private static final long serialVersionUID = 1L;
+
+}
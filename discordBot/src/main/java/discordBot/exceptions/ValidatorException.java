@@ -6,6 +6,17 @@ public class ValidatorException extends Exception {
 		super(string);
 	}
 
+	/**
+	 * An exception without stack trace, cheap enough to be created once and
+	 * thrown again and again
+	 * 
+	 * @param string    the message
+	 * @param stackless true to skip the stack trace
+	 */
+	public ValidatorException(String string, boolean stackless) {
+		super(string, null, !stackless, !stackless);
+	}
+
 	private static final long serialVersionUID = 1L;
 
 }
@@ -0,0 +1,442 @@
+package discordBot.execution;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bound the commands handed to the execution engine. At most maxRunning
+ * commands are started and not finished, the next ones wait by priority (the
+ * HIGH ones start first), and at most maxWaiting commands wait. Past that, the
+ * newest waiting command of the lowest priority is shed to make room for a
+ * command of a higher priority, or the new command is shed if nothing waiting
+ * is less important. With the DEFER policy, the commands shed are set aside
+ * instead and started once nothing else waits.
+ *
+ * LOW commands can only take half the slots, so the heavy commands never
+ * delay the cheap ones for long.
+ *
+ * The commands offered with a key (the lane of the execution engine: a guild or
+ * a channel) take a slot only when they can run: at most one command per key
+ * is started or waiting for a slot, the next ones of the key wait behind it in
+ * their order, without a slot. A guild flooding commands, run one at a time by
+ * its lane, so never holds more than one slot. Past maxWaitingPerKey commands
+ * waiting behind, its new commands are shed, whatever the policy.
+ *
+ * The commands started by done (or by an offer) while a command is being
+ * started on the same thread are started after it, by the same loop: a
+ * command run inline by its start (ExecutionEngine.direct) doesn't start the
+ * next one recursively.
+ */
+public class AdmissionControl {
+	public static final int DEFAULT_MAX_RUNNING = 256;
+	public static final int DEFAULT_MAX_WAITING = 1024;
+	public static final int DEFAULT_MAX_WAITING_PER_KEY = 32;
+
+	/**
+	 * What happens to the commands that don't fit in the queue
+	 */
+	public enum Policy {
+		/** they are dropped */
+		SHED,
+		/**
+		 * they are started once nothing else waits. Past maxWaiting deferred
+		 * commands, the oldest is dropped
+		 */
+		DEFER
+	}
+
+	/**
+	 * What happened to a command offered
+	 */
+	public enum Admission {
+		/** started now */
+		STARTED,
+		/** waiting for a slot */
+		WAITING,
+		/** set aside until nothing else waits */
+		DEFERRED,
+		/** dropped, its shed callback was called */
+		SHED
+	}
+
+	private static final Priority[] PRIORITIES = Priority.values();
+	// the starts to run by the loop already starting commands on this thread
+	private static final ThreadLocal<ArrayDeque<Runnable>> STARTING = new ThreadLocal<ArrayDeque<Runnable>>();
+
+	private final int maxRunning;
+	private final int maxLowRunning;
+	private final int maxWaiting;
+	private final int maxWaitingPerKey;
+	private final Policy policy;
+	private final List<ArrayDeque<Ticket>> waiting;
+	private final ArrayDeque<Ticket> deferred;
+	private final Map<Long, ArrayDeque<Ticket>> behind;
+	private int running, lowRunning, waitingCount, behindCount;
+	private long shedCount, deferredCount;
+
+	private static final class Ticket {
+		private final Priority priority;
+		private final Runnable start;
+		private final Runnable shed;
+		private final boolean keyed;
+		private final long key;
+
+		private Ticket(Priority priority, Runnable start, Runnable shed, boolean keyed, long key) {
+			this.priority = priority;
+			this.start = start;
+			this.shed = shed;
+			this.keyed = keyed;
+			this.key = key;
+		}
+	}
+
+	/**
+	 * @param maxRunning       maximum number of commands started and not finished
+	 * @param maxWaiting       maximum number of commands waiting for a slot (and
+	 *                         of commands deferred, and of commands waiting
+	 *                         behind the one of their key)
+	 * @param maxWaitingPerKey maximum number of commands of a key waiting behind
+	 *                         the one of the key
+	 * @param policy           what happens to the commands that don't fit
+	 */
+	public AdmissionControl(int maxRunning, int maxWaiting, int maxWaitingPerKey, Policy policy) {
+		if (maxRunning <= 0 || maxWaiting < 0 || maxWaitingPerKey < 0) {
+			throw new IllegalArgumentException(
+					"Invalid bounds: " + maxRunning + ", " + maxWaiting + ", " + maxWaitingPerKey);
+		}
+		this.maxRunning = maxRunning;
+		this.maxLowRunning = Math.max(1, maxRunning / 2);
+		this.maxWaiting = maxWaiting;
+		this.maxWaitingPerKey = maxWaitingPerKey;
+		this.policy = policy;
+		this.waiting = new ArrayList<ArrayDeque<Ticket>>(PRIORITIES.length);
+		for (int i = 0; i < PRIORITIES.length; i++) {
+			waiting.add(new ArrayDeque<Ticket>());
+		}
+		this.deferred = new ArrayDeque<Ticket>();
+		this.behind = new HashMap<Long, ArrayDeque<Ticket>>();
+	}
+
+	/**
+	 * @param maxRunning maximum number of commands started and not finished
+	 * @param maxWaiting maximum number of commands waiting (and of commands
+	 *                   deferred)
+	 * @param policy     what happens to the commands that don't fit
+	 */
+	public AdmissionControl(int maxRunning, int maxWaiting, Policy policy) {
+		this(maxRunning, maxWaiting, DEFAULT_MAX_WAITING_PER_KEY, policy);
+	}
+
+	/**
+	 * Default bounds, shedding the commands that don't fit
+	 */
+	public AdmissionControl() {
+		this(DEFAULT_MAX_RUNNING, DEFAULT_MAX_WAITING, Policy.SHED);
+	}
+
+	/**
+	 * Start a command, or queue it
+	 *
+	 * @param priority the priority of the command
+	 * @param start    hand the command to the engine. done(priority) must be
+	 *                 called when the command ends
+	 * @param shed     called if the command is dropped, now or later
+	 * @return what happened to the command
+	 */
+	public Admission offer(Priority priority, Runnable start, Runnable shed) {
+		return offer(new Ticket(priority, start, shed, false, 0));
+	}
+
+	/**
+	 * Start a command of a lane, or queue it. It takes a slot only once the
+	 * previous commands of the key ended
+	 *
+	 * @param key      the key of the lane of the command, see
+	 *                 ExecutionEngine.key
+	 * @param priority the priority of the command
+	 * @param start    hand the command to the engine. done(key, priority) must
+	 *                 be called when the command ends, or if it can't be handed
+	 * @param shed     called if the command is dropped, now or later
+	 * @return what happened to the command
+	 */
+	public Admission offer(long key, Priority priority, Runnable start, Runnable shed) {
+		return offer(new Ticket(priority, start, shed, true, key));
+	}
+
+	private Admission offer(Ticket ticket) {
+		Priority priority = ticket.priority;
+		List<Ticket> dropped = null;
+		Admission admission;
+		synchronized (this) {
+			ArrayDeque<Ticket> queue = ticket.keyed ? behind.get(ticket.key) : null;
+			if (queue != null) {
+				// the key has a command started or waiting: wait behind it, without slot
+				if (queue.size() < maxWaitingPerKey && behindCount < maxWaiting) {
+					queue.add(ticket);
+					behindCount++;
+					admission = Admission.WAITING;
+				} else {
+					shedCount++;
+					dropped = add(dropped, ticket);
+					admission = Admission.SHED;
+				}
+			} else {
+				if (ticket.keyed) {
+					behind.put(ticket.key, new ArrayDeque<Ticket>(2));
+				}
+				if (canStart(priority) && !waitingAtOrAbove(priority)) {
+					started(priority);
+					admission = Admission.STARTED;
+				} else if (waitingCount < maxWaiting) {
+					enqueue(ticket);
+					admission = Admission.WAITING;
+				} else {
+					Ticket victim = lowestBelow(priority);
+					if (victim != null) {
+						enqueue(ticket);
+						admission = Admission.WAITING;
+					} else {
+						victim = ticket;
+						admission = policy == Policy.DEFER ? Admission.DEFERRED : Admission.SHED;
+					}
+					Ticket shed = setAside(victim);
+					if (shed != null) {
+						dropped = add(dropped, shed);
+						release(shed);
+					}
+					if (shed == ticket) {
+						admission = Admission.SHED;
+					}
+				}
+			}
+		}
+		if (dropped != null) {
+			for (Ticket shed : dropped) {
+				shed.shed.run();
+			}
+		}
+		if (admission == Admission.STARTED) {
+			start(ticket.start);
+		}
+		return admission;
+	}
+
+	/**
+	 * A command started by this admission control ended, start the next ones
+	 *
+	 * @param priority the priority of the command
+	 */
+	public void done(Priority priority) {
+		finished(null, priority);
+	}
+
+	/**
+	 * A command of a lane ended, or couldn't be handed to the engine: start the
+	 * next one of the key, and the next ones waiting for a slot
+	 *
+	 * @param key      the key given to offer
+	 * @param priority the priority of the command
+	 */
+	public void done(long key, Priority priority) {
+		finished(key, priority);
+	}
+
+	private void finished(Long key, Priority priority) {
+		List<Ticket> next = null;
+		synchronized (this) {
+			running--;
+			if (priority == Priority.LOW) {
+				lowRunning--;
+			}
+			if (key != null) {
+				release(key);
+			}
+			for (Priority p : PRIORITIES) {
+				ArrayDeque<Ticket> queue = waiting.get(p.ordinal());
+				while (!queue.isEmpty() && canStart(p)) {
+					next = add(next, queue.poll());
+					waitingCount--;
+				}
+			}
+			if (waitingCount == 0) {
+				while (!deferred.isEmpty() && canStart(deferred.peek().priority)) {
+					next = add(next, deferred.poll());
+				}
+			}
+			if (next != null) {
+				for (Ticket ticket : next) {
+					started(ticket.priority);
+				}
+			}
+		}
+		if (next != null) {
+			for (Ticket ticket : next) {
+				start(ticket.start);
+			}
+		}
+	}
+
+	/**
+	 * The command of a key ended or was dropped: the next one of the key waits
+	 * for a slot, a little past maxWaiting if needed since it was accepted
+	 */
+	private void release(Ticket ticket) {
+		if (ticket.keyed) {
+			release(ticket.key);
+		}
+	}
+
+	private void release(long key) {
+		ArrayDeque<Ticket> queue = behind.get(key);
+		if (queue == null) {
+			return;
+		}
+		Ticket next = queue.poll();
+		if (next == null) {
+			behind.remove(key);
+		} else {
+			behindCount--;
+			enqueue(next);
+		}
+	}
+
+	/**
+	 * Run a start, or give it to the loop already starting commands on this
+	 * thread
+	 */
+	private static void start(Runnable start) {
+		ArrayDeque<Runnable> pending = STARTING.get();
+		if (pending != null) {
+			pending.add(start);
+			return;
+		}
+		pending = new ArrayDeque<Runnable>();
+		STARTING.set(pending);
+		try {
+			for (Runnable next = start; next != null; next = pending.poll()) {
+				try {
+					next.run();
+				} catch (RuntimeException e) {
+					System.err.println("Error starting a command: " + e);
+				}
+			}
+		} finally {
+			STARTING.remove();
+		}
+	}
+
+	private static List<Ticket> add(List<Ticket> list, Ticket ticket) {
+		if (list == null) {
+			list = new ArrayList<Ticket>(2);
+		}
+		list.add(ticket);
+		return list;
+	}
+
+	private boolean canStart(Priority priority) {
+		return running < maxRunning && (priority != Priority.LOW || lowRunning < maxLowRunning);
+	}
+
+	private void started(Priority priority) {
+		running++;
+		if (priority == Priority.LOW) {
+			lowRunning++;
+		}
+	}
+
+	private boolean waitingAtOrAbove(Priority priority) {
+		for (int i = 0; i <= priority.ordinal(); i++) {
+			if (!waiting.get(i).isEmpty()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void enqueue(Ticket ticket) {
+		waiting.get(ticket.priority.ordinal()).add(ticket);
+		waitingCount++;
+	}
+
+	/**
+	 * @return the newest waiting command of the lowest priority below priority,
+	 *         removed from the queue, or null if there is none
+	 */
+	private Ticket lowestBelow(Priority priority) {
+		for (int i = PRIORITIES.length - 1; i > priority.ordinal(); i--) {
+			Ticket ticket = waiting.get(i).pollLast();
+			if (ticket != null) {
+				waitingCount--;
+				return ticket;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Defer or shed a command that doesn't fit
+	 *
+	 * @return the command to shed, if any
+	 */
+	private Ticket setAside(Ticket ticket) {
+		if (policy == Policy.SHED) {
+			shedCount++;
+			return ticket;
+		}
+		deferred.add(ticket);
+		deferredCount++;
+		if (deferred.size() > maxWaiting) {
+			shedCount++;
+			return deferred.poll();
+		}
+		return null;
+	}
+
+	public int getMaxRunning() {
+		return maxRunning;
+	}
+
+	public int getMaxWaiting() {
+		return maxWaiting;
+	}
+
+	public Policy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * @return the number of commands started and not finished
+	 */
+	public synchronized int getRunning() {
+		return running;
+	}
+
+	public int getMaxWaitingPerKey() {
+		return maxWaitingPerKey;
+	}
+
+	/**
+	 * @return the number of commands waiting, for a slot or behind the one of
+	 *         their key, or deferred
+	 */
+	public synchronized int getWaiting() {
+		return waitingCount + behindCount + deferred.size();
+	}
+
+	/**
+	 * @return the number of commands dropped since the start
+	 */
+	public synchronized long getShed() {
+		return shedCount;
+	}
+
+	/**
+	 * @return the number of commands deferred since the start
+	 */
+	public synchronized long getDeferred() {
+		return deferredCount;
+	}
+}
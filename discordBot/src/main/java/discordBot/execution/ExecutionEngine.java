@@ -0,0 +1,258 @@
+package discordBot.execution;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.dv8tion.jda.api.entities.GuildChannel;
+import net.dv8tion.jda.api.entities.MessageChannel;
+
+/**
+ * Run the commands out of the JDA event thread, so a slow command doesn't stall
+ * the event delivery. The commands of a same guild (or channel) are run one at
+ * a time, in the order they were received, the commands of different guilds
+ * run in parallel.
+ *
+ * Each guild with pending commands has a lane, a FIFO queue drained by one task
+ * of the executor at a time. A lane is dropped as soon as it is empty.
+ */
+public class ExecutionEngine {
+	/**
+	 * What the commands are ordered by
+	 */
+	public enum Ordering {
+		/** one queue per guild, private channels have their own queue */
+		GUILD,
+		/** one queue per channel */
+		CHANNEL
+	}
+
+	private final Executor executor;
+	private final Ordering ordering;
+	private final ConcurrentHashMap<Long, Lane> lanes;
+
+	/**
+	 * @param executor run the lanes, null to run the commands directly on the
+	 *                 calling thread
+	 * @param ordering what the commands are ordered by
+	 */
+	public ExecutionEngine(Executor executor, Ordering ordering) {
+		this.executor = executor;
+		this.ordering = ordering;
+		this.lanes = new ConcurrentHashMap<Long, Lane>();
+	}
+
+	/**
+	 * An engine with the default executor, ordering the commands by guild
+	 */
+	public ExecutionEngine() {
+		this(defaultExecutor(Runtime.getRuntime().availableProcessors() * 4), Ordering.GUILD);
+	}
+
+	/**
+	 * @return an engine running the commands on the calling thread (the JDA event
+	 *         thread), the behavior without engine
+	 */
+	public static ExecutionEngine direct() {
+		return new ExecutionEngine(null, Ordering.CHANNEL);
+	}
+
+	/**
+	 * A virtual thread per task when the JVM has them (JDK 21+), a pool of at most
+	 * maxThreads daemon threads otherwise
+	 *
+	 * @param maxThreads the size of the pool, when there is no virtual thread
+	 * @return the executor
+	 */
+	public static ExecutorService defaultExecutor(int maxThreads) {
+		try {
+			Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) virtual.invoke(null);
+		} catch (ReflectiveOperationException | UnsupportedOperationException e) {
+			// no virtual thread on this JVM, or still a preview feature
+		}
+		AtomicInteger count = new AtomicInteger();
+		ThreadFactory factory = runnable -> {
+			Thread thread = new Thread(runnable, "discordBot-command-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), factory);
+		pool.allowCoreThreadTimeOut(true);
+		return pool;
+	}
+
+	public Ordering getOrdering() {
+		return ordering;
+	}
+
+	/**
+	 * @return false if the commands are run on the calling thread
+	 */
+	public boolean isAsync() {
+		return executor != null;
+	}
+
+	/**
+	 * @return the number of guilds (or channels) having commands pending or
+	 *         running
+	 */
+	public int activeLanes() {
+		return lanes.size();
+	}
+
+	/**
+	 * Run a task after all the tasks previously submitted for the same channel (or
+	 * guild)
+	 *
+	 * @param channel the channel of the command
+	 * @param task    the task, its exceptions are logged and don't stop the lane
+	 * @throws RejectedExecutionException if the executor is stopped, the task
+	 *                                    isn't run. The tasks queued before it
+	 *                                    are run on the calling thread
+	 */
+	public void submit(MessageChannel channel, Runnable task) {
+		submit(key(channel), task);
+	}
+
+	/**
+	 * Run a task after all the tasks previously submitted with the same key
+	 *
+	 * @param key  the ordering key
+	 * @param task the task, its exceptions are logged and don't stop the lane
+	 * @throws RejectedExecutionException if the executor is stopped, the task
+	 *                                    isn't run. The tasks queued before it
+	 *                                    are run on the calling thread
+	 */
+	public void submit(long key, Runnable task) {
+		if (executor == null) {
+			runSafely(task);
+			return;
+		}
+		Lane lane = lanes.compute(key, (k, existing) -> {
+			Lane l = existing == null ? new Lane(k) : existing;
+			l.offer(task);
+			return l;
+		});
+		try {
+			lane.scheduleIfIdle();
+		} catch (RejectedExecutionException e) {
+			// never run: don't leave it in a lane marked running
+			lane.reject(task);
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the ordering key of a channel
+	 */
+	public long key(MessageChannel channel) {
+		if (ordering == Ordering.GUILD && channel instanceof GuildChannel) {
+			return ((GuildChannel) channel).getGuild().getIdLong();
+		}
+		return channel.getIdLong();
+	}
+
+	/**
+	 * Stop the executor, if it can be stopped. The pending commands are still run
+	 */
+	public void shutdown() {
+		if (executor instanceof ExecutorService) {
+			((ExecutorService) executor).shutdown();
+		}
+	}
+
+	private static void runSafely(Runnable task) {
+		try {
+			task.run();
+		} catch (Throwable e) {
+			// a buggy command musn't stop the commands queued after it, even with an
+			// Error (assertion, a class missing after a reload...)
+			System.err.println("Unexpected error while running a command: " + e);
+		}
+	}
+
+	private final class Lane implements Runnable {
+		private final long key;
+		private final ArrayDeque<Runnable> tasks = new ArrayDeque<Runnable>();
+		private boolean running;
+
+		private Lane(long key) {
+			this.key = key;
+		}
+
+		private synchronized void offer(Runnable task) {
+			tasks.add(task);
+		}
+
+		private void scheduleIfIdle() {
+			synchronized (this) {
+				if (running || tasks.isEmpty()) {
+					return;
+				}
+				running = true;
+			}
+			executor.execute(this);
+		}
+
+		/**
+		 * The executor rejected the lane, still marked running: the task isn't
+		 * run, the ones queued meanwhile are run here, as no worker will drain
+		 * them
+		 */
+		private void reject(Runnable task) {
+			synchronized (this) {
+				tasks.removeLastOccurrence(task);
+			}
+			run();
+		}
+
+		private synchronized boolean isIdle() {
+			return !running && tasks.isEmpty();
+		}
+
+		@Override
+		public void run() {
+			boolean drained = false;
+			try {
+				while (true) {
+					Runnable task;
+					synchronized (this) {
+						task = tasks.poll();
+						if (task == null) {
+							running = false;
+							drained = true;
+							break;
+						}
+					}
+					runSafely(task);
+				}
+			} finally {
+				if (!drained) {
+					// something escaped runSafely: never leave the lane marked running
+					synchronized (this) {
+						running = false;
+					}
+					try {
+						scheduleIfIdle();
+					} catch (RejectedExecutionException e) {
+						// the executor is stopped: drain the lane on this thread
+						run();
+					}
+				}
+			}
+			// drop the lane if nothing was offered meanwhile, atomically with offers
+			lanes.computeIfPresent(key, (k, lane) -> lane == this && isIdle() ? null : lane);
+		}
+	}
+}
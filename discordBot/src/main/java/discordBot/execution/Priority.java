@@ -0,0 +1,14 @@
+package discordBot.execution;
+
+/**
+ * How a command is served when the bot is overloaded, see AdmissionControl.
+ * Set by the command with AbstractCommand.setPriority
+ */
+public enum Priority {
+	/** cheap commands, run first (help...) */
+	HIGH,
+	/** the default */
+	NORMAL,
+	/** heavy commands: shed first, and they can't take more than half the slots */
+	LOW
+}
@@ -0,0 +1,146 @@
+package discordBot.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The measures of a command: how long its runs take, split between the checks
+ * (rate limits and validators) and the execution, and how they end
+ */
+public class CommandMetrics {
+	private final String name;
+	private final LatencyHistogram run, validate, execute;
+	private final LongAdder validationFailed, failed, rateLimited, intercepted;
+
+	/**
+	 * @param name the name of the command
+	 */
+	public CommandMetrics(String name) {
+		this.name = name;
+		this.run = new LatencyHistogram();
+		this.validate = new LatencyHistogram();
+		this.execute = new LatencyHistogram();
+		this.validationFailed = new LongAdder();
+		this.failed = new LongAdder();
+		this.rateLimited = new LongAdder();
+		this.intercepted = new LongAdder();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Record a run that got through the checks
+	 *
+	 * @param validateNanos time spent in the checks
+	 * @param executeNanos  time spent executing the command
+	 */
+	public void recordRun(long validateNanos, long executeNanos) {
+		validate.record(validateNanos);
+		execute.record(executeNanos);
+		run.record(validateNanos + executeNanos);
+	}
+
+	public void validationFailed() {
+		validationFailed.increment();
+	}
+
+	/**
+	 * Count a run ended by an exception
+	 */
+	public void failed() {
+		failed.increment();
+	}
+
+	public void rateLimited() {
+		rateLimited.increment();
+	}
+
+	/**
+	 * Count a run stopped by an interceptor before the command
+	 */
+	public void intercepted() {
+		intercepted.increment();
+	}
+
+	public CommandSnapshot snapshot() {
+		return new CommandSnapshot(name, run.snapshot(), validate.snapshot(), execute.snapshot(),
+				validationFailed.sum(), failed.sum(), rateLimited.sum(), intercepted.sum());
+	}
+
+	/**
+	 * The measures of a command at a point in time. Immutable.
+	 */
+	public static final class CommandSnapshot {
+		private final String name;
+		private final HistogramSnapshot run, validate, execute;
+		private final long validationFailed, failed, rateLimited, intercepted;
+
+		private CommandSnapshot(String name, HistogramSnapshot run, HistogramSnapshot validate,
+				HistogramSnapshot execute, long validationFailed, long failed, long rateLimited,
+				long intercepted) {
+			this.name = name;
+			this.run = run;
+			this.validate = validate;
+			this.execute = execute;
+			this.validationFailed = validationFailed;
+			this.failed = failed;
+			this.rateLimited = rateLimited;
+			this.intercepted = intercepted;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return the number of runs executed, failed or not
+		 */
+		public long getDispatched() {
+			return run.getCount();
+		}
+
+		/**
+		 * @return the duration of the runs executed, checks included
+		 */
+		public HistogramSnapshot getRun() {
+			return run;
+		}
+
+		/**
+		 * @return the duration of the checks of the runs executed
+		 */
+		public HistogramSnapshot getValidate() {
+			return validate;
+		}
+
+		/**
+		 * @return the duration of the executions
+		 */
+		public HistogramSnapshot getExecute() {
+			return execute;
+		}
+
+		public long getValidationFailed() {
+			return validationFailed;
+		}
+
+		/**
+		 * @return the number of executions ended by an exception
+		 */
+		public long getFailed() {
+			return failed;
+		}
+
+		public long getRateLimited() {
+			return rateLimited;
+		}
+
+		/**
+		 * @return the number of runs stopped by an interceptor
+		 */
+		public long getIntercepted() {
+			return intercepted;
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package discordBot.metrics;
+
+/**
+ * A copy of a LatencyHistogram at a point in time. Immutable.
+ */
+public final class HistogramSnapshot {
+	private final long[] counts;
+	private final long count;
+	private final long sum;
+	private final long max;
+
+	HistogramSnapshot(long[] counts, long count, long sum, long max) {
+		this.counts = counts;
+		this.count = count;
+		this.sum = sum;
+		this.max = max;
+	}
+
+	/**
+	 * @return the number of values recorded
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return the sum of the values recorded, in nanoseconds
+	 */
+	public long getSum() {
+		return sum;
+	}
+
+	/**
+	 * @return the highest value recorded, in nanoseconds
+	 */
+	public long getMax() {
+		return max;
+	}
+
+	/**
+	 * @return the mean of the values recorded, in nanoseconds
+	 */
+	public double getMean() {
+		return count == 0 ? 0 : (double) sum / count;
+	}
+
+	/**
+	 * @param percentile between 0 and 100 (eg: 99.9)
+	 * @return the value below which are the percentile of the values, in
+	 *         nanoseconds, within 6.25%
+	 */
+	public long getPercentile(double percentile) {
+		if (count == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(percentile / 100 * count);
+		rank = Math.max(1, Math.min(count, rank));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(max, LatencyHistogram.upperBound(i));
+			}
+		}
+		return max;
+	}
+}
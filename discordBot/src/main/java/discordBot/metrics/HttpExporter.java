@@ -0,0 +1,65 @@
+package discordBot.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serve the measures of the bot at http://localhost:port/metrics, in the
+ * Prometheus text format. Only listen on the loopback address
+ */
+public class HttpExporter implements MetricsExporter {
+	private final int port;
+	private HttpServer server;
+
+	/**
+	 * @param port the port to listen to, 0 for any free port
+	 */
+	public HttpExporter(int port) {
+		this.port = port;
+	}
+
+	@Override
+	public synchronized void start(Metrics metrics) throws IOException {
+		if (server != null) {
+			throw new IllegalStateException("HttpExporter already started");
+		}
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.createContext("/metrics", exchange -> {
+			try {
+				if (!"GET".equals(exchange.getRequestMethod())) {
+					exchange.sendResponseHeaders(405, -1);
+					return;
+				}
+				byte[] body = metrics.snapshot().toText().getBytes(StandardCharsets.UTF_8);
+				exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+				exchange.sendResponseHeaders(200, body.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(body);
+				}
+			} finally {
+				exchange.close();
+			}
+		});
+		server.start();
+	}
+
+	/**
+	 * @return the port listened to, useful when started with port 0
+	 */
+	public synchronized int getPort() {
+		return server == null ? port : server.getAddress().getPort();
+	}
+
+	@Override
+	public synchronized void close() {
+		if (server != null) {
+			server.stop(0);
+			server = null;
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package discordBot.metrics;
+
+import java.io.PrintStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Print the measures of the bot periodically
+ */
+public class LogExporter implements MetricsExporter {
+	private final long period;
+	private final TimeUnit unit;
+	private final PrintStream out;
+	private ScheduledExecutorService timer;
+
+	/**
+	 * Print to the standard output
+	 *
+	 * @param period time between two prints
+	 * @param unit   unit of period
+	 */
+	public LogExporter(long period, TimeUnit unit) {
+		this(period, unit, System.out);
+	}
+
+	/**
+	 * @param period time between two prints
+	 * @param unit   unit of period
+	 * @param out    where to print
+	 */
+	public LogExporter(long period, TimeUnit unit, PrintStream out) {
+		this.period = period;
+		this.unit = unit;
+		this.out = out;
+	}
+
+	@Override
+	public synchronized void start(Metrics metrics) {
+		if (timer != null) {
+			throw new IllegalStateException("LogExporter already started");
+		}
+		timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "discordBot-metrics");
+			thread.setDaemon(true);
+			return thread;
+		});
+		timer.scheduleAtFixedRate(() -> {
+			try {
+				out.print(metrics.snapshot().toText());
+				out.flush();
+			} catch (RuntimeException e) {
+				System.err.println("Error printing the metrics: " + e);
+			}
+		}, period, period, unit);
+	}
+
+	@Override
+	public synchronized void close() {
+		if (timer != null) {
+			timer.shutdown();
+			timer = null;
+		}
+	}
+}
@@ -0,0 +1,134 @@
+package discordBot.metrics;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+import discordBot.execution.AdmissionControl;
+import discordBot.timer.TimerWheel;
+
+/**
+ * The measures of a bot: the messages processed, the time to find their
+ * command and to wait in the execution engine, and the measures of each
+ * command. Everything can be recorded from any thread without lock.
+ *
+ * The exporters added publish the snapshots (log, HTTP endpoint...)
+ */
+public class Metrics {
+	private final LongAdder messages, ignored, notFound;
+	private final LatencyHistogram routing, queueWait;
+	private final ConcurrentHashMap<String, CommandMetrics> commands;
+	private final List<MetricsExporter> exporters;
+	private volatile AdmissionControl admission;
+	private volatile TimerWheel timers;
+
+	public Metrics() {
+		this.messages = new LongAdder();
+		this.ignored = new LongAdder();
+		this.notFound = new LongAdder();
+		this.routing = new LatencyHistogram();
+		this.queueWait = new LatencyHistogram();
+		this.commands = new ConcurrentHashMap<String, CommandMetrics>();
+		this.exporters = new CopyOnWriteArrayList<MetricsExporter>();
+	}
+
+	/**
+	 * Count a message given to processMessage
+	 *
+	 * @param ignored true if it isn't a command
+	 */
+	public void message(boolean ignored) {
+		messages.increment();
+		if (ignored) {
+			this.ignored.increment();
+		}
+	}
+
+	public void notFound() {
+		notFound.increment();
+	}
+
+	/**
+	 * @param nanos time to find the command of a message
+	 */
+	public void recordRouting(long nanos) {
+		routing.record(nanos);
+	}
+
+	/**
+	 * @param nanos time a command waited in the execution engine
+	 */
+	public void recordQueueWait(long nanos) {
+		queueWait.record(nanos);
+	}
+
+	/**
+	 * Include the measures of a command in the snapshots, replacing those of a
+	 * command of the same name
+	 *
+	 * @param command the measures of the command
+	 */
+	public void register(CommandMetrics command) {
+		commands.put(command.getName(), command);
+	}
+
+	public void unregister(CommandMetrics command) {
+		commands.remove(command.getName(), command);
+	}
+
+	/**
+	 * @param admission the admission control whose queue and shed commands are
+	 *                  included in the snapshots, null for none
+	 */
+	public void setAdmission(AdmissionControl admission) {
+		this.admission = admission;
+	}
+
+	/**
+	 * @param timers the timer whose pending tasks are included in the snapshots,
+	 *               null for none
+	 */
+	public void setTimers(TimerWheel timers) {
+		this.timers = timers;
+	}
+
+	public MetricsSnapshot snapshot() {
+		AdmissionControl admission = this.admission;
+		TimerWheel timers = this.timers;
+		long[] load = new long[5];
+		if (admission != null) {
+			load[0] = admission.getWaiting();
+			load[1] = admission.getRunning();
+			load[2] = admission.getShed();
+			load[3] = admission.getDeferred();
+		}
+		if (timers != null) {
+			load[4] = timers.getPending();
+		}
+		return new MetricsSnapshot(System.currentTimeMillis(), messages.sum(), ignored.sum(), notFound.sum(),
+				routing.snapshot(), queueWait.snapshot(), commands.values(), load);
+	}
+
+	/**
+	 * Start publishing the snapshots with an exporter
+	 *
+	 * @param exporter the exporter
+	 * @throws IOException if the exporter can't start
+	 */
+	public void addExporter(MetricsExporter exporter) throws IOException {
+		exporter.start(this);
+		exporters.add(exporter);
+	}
+
+	/**
+	 * Stop all the exporters
+	 */
+	public void close() {
+		for (MetricsExporter exporter : exporters) {
+			exporter.close();
+		}
+		exporters.clear();
+	}
+}
@@ -0,0 +1,23 @@
+package discordBot.metrics;
+
+import java.io.IOException;
+
+/**
+ * Publish the measures of a bot, see LogExporter and HttpExporter
+ */
+public interface MetricsExporter {
+
+	/**
+	 * Start publishing. The snapshots are taken from metrics whenever the
+	 * exporter needs them
+	 *
+	 * @param metrics the measures to publish
+	 * @throws IOException if the exporter can't start
+	 */
+	void start(Metrics metrics) throws IOException;
+
+	/**
+	 * Stop publishing
+	 */
+	void close();
+}
@@ -0,0 +1,195 @@
+package discordBot.metrics;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import discordBot.metrics.CommandMetrics.CommandSnapshot;
+
+/**
+ * The measures of a bot at a point in time. Immutable.
+ */
+public final class MetricsSnapshot {
+	private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+	private final long time;
+	private final long messages, ignored, notFound;
+	private final HistogramSnapshot routing, queueWait;
+	private final Map<String, CommandSnapshot> commands;
+	private final long waiting, running, shed, deferred, timersPending;
+
+	/**
+	 * @param load waiting, running, shed and deferred commands of the admission
+	 *             control, then the pending timer tasks
+	 */
+	MetricsSnapshot(long time, long messages, long ignored, long notFound, HistogramSnapshot routing,
+			HistogramSnapshot queueWait, Collection<CommandMetrics> commands, long[] load) {
+		this.time = time;
+		this.messages = messages;
+		this.ignored = ignored;
+		this.notFound = notFound;
+		this.routing = routing;
+		this.queueWait = queueWait;
+		Map<String, CommandSnapshot> snapshots = new TreeMap<String, CommandSnapshot>();
+		for (CommandMetrics command : commands) {
+			snapshots.put(command.getName(), command.snapshot());
+		}
+		this.commands = Collections.unmodifiableMap(snapshots);
+		this.waiting = load[0];
+		this.running = load[1];
+		this.shed = load[2];
+		this.deferred = load[3];
+		this.timersPending = load[4];
+	}
+
+	/**
+	 * @return when the snapshot was taken, in milliseconds since the epoch
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * @return the number of messages given to processMessage
+	 */
+	public long getMessages() {
+		return messages;
+	}
+
+	/**
+	 * @return the number of messages which weren't commands
+	 */
+	public long getIgnored() {
+		return ignored;
+	}
+
+	/**
+	 * @return the number of messages naming an unknown command
+	 */
+	public long getNotFound() {
+		return notFound;
+	}
+
+	/**
+	 * @return the number of commands run, all commands together
+	 */
+	public long getDispatched() {
+		long dispatched = 0;
+		for (CommandSnapshot command : commands.values()) {
+			dispatched += command.getDispatched();
+		}
+		return dispatched;
+	}
+
+	/**
+	 * @return the time to find the command of the messages
+	 */
+	public HistogramSnapshot getRouting() {
+		return routing;
+	}
+
+	/**
+	 * @return the time the commands waited in the execution engine
+	 */
+	public HistogramSnapshot getQueueWait() {
+		return queueWait;
+	}
+
+	/**
+	 * @return the number of commands waiting for the admission control
+	 */
+	public long getWaiting() {
+		return waiting;
+	}
+
+	/**
+	 * @return the number of commands admitted and not finished
+	 */
+	public long getRunning() {
+		return running;
+	}
+
+	/**
+	 * @return the number of commands dropped because the bot was overloaded
+	 */
+	public long getShed() {
+		return shed;
+	}
+
+	/**
+	 * @return the number of commands deferred because the bot was overloaded
+	 */
+	public long getDeferred() {
+		return deferred;
+	}
+
+	/**
+	 * @return the number of tasks pending on the timer of the bot
+	 */
+	public long getTimersPending() {
+		return timersPending;
+	}
+
+	/**
+	 * @return the measures of each command, by name
+	 */
+	public Map<String, CommandSnapshot> getCommands() {
+		return commands;
+	}
+
+	/**
+	 * Render the snapshot in the Prometheus text format, durations in seconds
+	 *
+	 * @return the text
+	 */
+	public String toText() {
+		StringBuilder text = new StringBuilder(256 + commands.size() * 1024);
+		counter(text, "discordbot_messages_total", "", messages);
+		counter(text, "discordbot_messages_ignored_total", "", ignored);
+		counter(text, "discordbot_commands_not_found_total", "", notFound);
+		summary(text, "discordbot_routing_seconds", "", routing);
+		summary(text, "discordbot_queue_wait_seconds", "", queueWait);
+		counter(text, "discordbot_commands_waiting", "", waiting);
+		counter(text, "discordbot_commands_running", "", running);
+		counter(text, "discordbot_commands_shed_total", "", shed);
+		counter(text, "discordbot_commands_deferred_total", "", deferred);
+		counter(text, "discordbot_timers_pending", "", timersPending);
+		for (CommandSnapshot command : commands.values()) {
+			String label = "command=\"" + command.getName().replace("\"", "\\\"") + "\"";
+			counter(text, "discordbot_command_dispatched_total", label, command.getDispatched());
+			counter(text, "discordbot_command_validation_failed_total", label, command.getValidationFailed());
+			counter(text, "discordbot_command_failed_total", label, command.getFailed());
+			counter(text, "discordbot_command_rate_limited_total", label, command.getRateLimited());
+			counter(text, "discordbot_command_intercepted_total", label, command.getIntercepted());
+			summary(text, "discordbot_command_run_seconds", label, command.getRun());
+			summary(text, "discordbot_command_validate_seconds", label, command.getValidate());
+			summary(text, "discordbot_command_execute_seconds", label, command.getExecute());
+		}
+		return text.toString();
+	}
+
+	private static void counter(StringBuilder text, String name, String labels, long value) {
+		text.append(name);
+		if (!labels.isEmpty()) {
+			text.append('{').append(labels).append('}');
+		}
+		text.append(' ').append(value).append('\n');
+	}
+
+	private static void summary(StringBuilder text, String name, String labels, HistogramSnapshot histogram) {
+		String separator = labels.isEmpty() ? "" : ",";
+		for (double quantile : QUANTILES) {
+			text.append(name).append('{').append(labels).append(separator).append("quantile=\"").append(quantile)
+					.append("\"} ").append(seconds(histogram.getPercentile(quantile * 100))).append('\n');
+		}
+		String suffix = labels.isEmpty() ? " " : "{" + labels + "} ";
+		text.append(name).append("_sum").append(suffix).append(seconds(histogram.getSum())).append('\n');
+		text.append(name).append("_count").append(suffix).append(histogram.getCount()).append('\n');
+	}
+
+	private static String seconds(long nanos) {
+		return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+	}
+}
@@ -0,0 +1,147 @@
+package discordBot.offline;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import net.dv8tion.jda.api.entities.ChannelType;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.entities.TextChannel;
+import net.dv8tion.jda.api.requests.restaction.MessageAction;
+
+/**
+ * In-memory stand-in for a discord channel. Everything sent to it through
+ * sendMessage(...).queue() is kept in memory instead of going to discord, so a
+ * bot can be driven without connection (benchmarks, tests, replays)
+ */
+public class OfflineChannel {
+	private final long id;
+	private final long guildId;
+	private final MessageChannel channel;
+	private final List<String> sent;
+	private final AtomicLong sentCount;
+	private volatile boolean keepMessages;
+
+	/**
+	 * A private channel (no guild)
+	 *
+	 * @param id the snowflake of the channel
+	 */
+	public OfflineChannel(long id) {
+		this(id, 0);
+	}
+
+	/**
+	 * A text channel of a guild
+	 *
+	 * @param id      the snowflake of the channel
+	 * @param guildId the snowflake of the guild, 0 for a private channel
+	 */
+	public OfflineChannel(long id, long guildId) {
+		this.id = id;
+		this.guildId = guildId;
+		this.sent = Collections.synchronizedList(new ArrayList<String>());
+		this.sentCount = new AtomicLong();
+		this.keepMessages = true;
+		this.channel = buildChannel();
+	}
+
+	private MessageChannel buildChannel() {
+		String name = "offline-" + id;
+		Map<String, Function<Object[], Object>> answers = StandIns.answers();
+		answers.put("getIdLong", args -> id);
+		answers.put("getId", args -> Long.toUnsignedString(id));
+		answers.put("getName", args -> name);
+		answers.put("sendMessage", args -> action(String.valueOf(args[0])));
+		if (guildId == 0) {
+			answers.put("getType", args -> ChannelType.PRIVATE);
+			return StandIns.create(name, answers, MessageChannel.class);
+		}
+		Map<String, Function<Object[], Object>> guildAnswers = StandIns.answers();
+		guildAnswers.put("getIdLong", args -> guildId);
+		guildAnswers.put("getId", args -> Long.toUnsignedString(guildId));
+		guildAnswers.put("getName", args -> "guild-" + guildId);
+		Guild guild = StandIns.create("guild-" + guildId, guildAnswers, Guild.class);
+		answers.put("getType", args -> ChannelType.TEXT);
+		answers.put("getGuild", args -> guild);
+		return StandIns.create(name, answers, TextChannel.class);
+	}
+
+	@SuppressWarnings("unchecked")
+	private MessageAction action(String content) {
+		Map<String, Function<Object[], Object>> answers = StandIns.answers();
+		answers.put("queue", args -> {
+			record(content);
+			if (args.length > 0 && args[0] != null) {
+				((Consumer<Object>) args[0]).accept(null);
+			}
+			return null;
+		});
+		answers.put("complete", args -> {
+			record(content);
+			return null;
+		});
+		return StandIns.create("action", answers, MessageAction.class);
+	}
+
+	private void record(String content) {
+		sentCount.incrementAndGet();
+		if (keepMessages) {
+			sent.add(content);
+		}
+	}
+
+	/**
+	 * @return the JDA view of this channel, to give to the bot
+	 */
+	public MessageChannel getChannel() {
+		return channel;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	/**
+	 * @return the snowflake of the guild, 0 for a private channel
+	 */
+	public long getGuildId() {
+		return guildId;
+	}
+
+	/**
+	 * @return a copy of the messages sent to this channel, oldest first
+	 */
+	public List<String> getSentMessages() {
+		synchronized (sent) {
+			return new ArrayList<String>(sent);
+		}
+	}
+
+	/**
+	 * @return the number of messages sent to this channel, even those not kept
+	 */
+	public long getSentCount() {
+		return sentCount.get();
+	}
+
+	/**
+	 * Keep or not the content of the messages sent. Only count them when false, so
+	 * memory stay flat during long runs
+	 *
+	 * @param keepMessages
+	 */
+	public void setKeepMessages(boolean keepMessages) {
+		this.keepMessages = keepMessages;
+	}
+
+	public void clear() {
+		sent.clear();
+		sentCount.set(0);
+	}
+}
@@ -0,0 +1,106 @@
+package discordBot.offline;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+
+/**
+ * Build discord events without connection, to feed a bot with
+ * AbstractBot.onMessageReceived or AbstractBot.processMessage
+ */
+public abstract class OfflineEvents {
+	private static final AtomicLong MESSAGE_ID = new AtomicLong(1);
+	private static final JDA JDA_STANDIN = jda();
+
+	/**
+	 * @return the JDA used by the offline events built without JDA
+	 */
+	public static JDA getJDA() {
+		return JDA_STANDIN;
+	}
+
+	/**
+	 * Build a JDA, to tell apart the events of several bots
+	 * 
+	 * @param listeners the listeners registered to the JDA (eg: a bot, so
+	 *                  AbstractBot.of(event) finds it)
+	 * @return the JDA
+	 */
+	public static JDA jda(Object... listeners) {
+		List<Object> registered = Collections.unmodifiableList(Arrays.asList(listeners.clone()));
+		Map<String, Function<Object[], Object>> answers = StandIns.answers();
+		answers.put("getRegisteredListeners", args -> registered);
+		return StandIns.create("offline-jda", answers, JDA.class);
+	}
+
+	/**
+	 * Build a user
+	 *
+	 * @param id  the snowflake of the user
+	 * @param bot true if the user is a bot
+	 * @return the user
+	 */
+	public static User user(long id, boolean bot) {
+		Map<String, Function<Object[], Object>> answers = StandIns.answers();
+		answers.put("getIdLong", args -> id);
+		answers.put("getId", args -> Long.toUnsignedString(id));
+		answers.put("getName", args -> "user-" + id);
+		answers.put("isBot", args -> bot);
+		return StandIns.create("user-" + id, answers, User.class);
+	}
+
+	/**
+	 * Build a message received by the bot
+	 *
+	 * @param channel the channel the message is sent to
+	 * @param author  the author of the message
+	 * @param content the raw content of the message
+	 * @return the event to give to the bot
+	 */
+	public static MessageReceivedEvent message(OfflineChannel channel, User author, String content) {
+		return message(JDA_STANDIN, channel, author, content);
+	}
+
+	/**
+	 * Build a message received by the bot through a given JDA
+	 *
+	 * @param jda     the JDA receiving the message
+	 * @param channel the channel the message is sent to
+	 * @param author  the author of the message
+	 * @param content the raw content of the message
+	 * @return the event to give to the bot
+	 */
+	public static MessageReceivedEvent message(JDA jda, OfflineChannel channel, User author, String content) {
+		long id = MESSAGE_ID.getAndIncrement();
+		Map<String, Function<Object[], Object>> answers = StandIns.answers();
+		answers.put("getIdLong", args -> id);
+		answers.put("getId", args -> Long.toUnsignedString(id));
+		answers.put("getContentRaw", args -> content);
+		answers.put("getContentDisplay", args -> content);
+		answers.put("getAuthor", args -> author);
+		answers.put("getChannel", args -> channel.getChannel());
+		answers.put("getChannelType", args -> channel.getChannel().getType());
+		Message message = StandIns.create("message-" + id, answers, Message.class);
+		return new MessageReceivedEvent(jda, id, message);
+	}
+
+	/**
+	 * Build a message received by the bot, sent by a human user
+	 *
+	 * @param channel  the channel the message is sent to
+	 * @param authorId the snowflake of the author
+	 * @param content  the raw content of the message
+	 * @return the event to give to the bot
+	 */
+	public static MessageReceivedEvent message(OfflineChannel channel, long authorId, String content) {
+		return message(channel, user(authorId, false), content);
+	}
+}
@@ -0,0 +1,92 @@
+package discordBot.offline;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Build JDA interface implementations out of a few hardcoded answers. Every
+ * method without an answer return the default value of its return type (null,
+ * 0, false), so the stand-ins keep working whatever the JDA version is
+ */
+final class StandIns {
+
+	private StandIns() {
+	}
+
+	/**
+	 * @param type    the JDA interfaces to implement, the first one is the type
+	 *                returned
+	 * @param name    the name used by toString
+	 * @param answers method name -> answer from the call arguments
+	 * @return a proxy implementing all the types
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> T create(String name, Map<String, Function<Object[], Object>> answers, Class<T> type,
+			Class<?>... others) {
+		Class<?>[] types = new Class<?>[others.length + 1];
+		types[0] = type;
+		System.arraycopy(others, 0, types, 1, others.length);
+		InvocationHandler handler = (proxy, method, args) -> {
+			switch (method.getName()) {
+			case "equals":
+				if (method.getParameterCount() == 1) {
+					return proxy == args[0];
+				}
+				break;
+			case "hashCode":
+				if (method.getParameterCount() == 0) {
+					return System.identityHashCode(proxy);
+				}
+				break;
+			case "toString":
+				if (method.getParameterCount() == 0) {
+					return name;
+				}
+				break;
+			default:
+				break;
+			}
+			Function<Object[], Object> answer = answers.get(method.getName());
+			if (answer != null) {
+				return answer.apply(args == null ? new Object[0] : args);
+			}
+			return defaultValue(method.getReturnType());
+		};
+		return (T) Proxy.newProxyInstance(StandIns.class.getClassLoader(), types, handler);
+	}
+
+	static Map<String, Function<Object[], Object>> answers() {
+		return new HashMap<String, Function<Object[], Object>>();
+	}
+
+	private static Object defaultValue(Class<?> type) {
+		if (!type.isPrimitive() || type == void.class) {
+			return null;
+		}
+		if (type == boolean.class) {
+			return false;
+		}
+		if (type == char.class) {
+			return '\0';
+		}
+		if (type == long.class) {
+			return 0L;
+		}
+		if (type == float.class) {
+			return 0f;
+		}
+		if (type == double.class) {
+			return 0d;
+		}
+		if (type == byte.class) {
+			return (byte) 0;
+		}
+		if (type == short.class) {
+			return (short) 0;
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,239 @@
+package discordBot.outbound;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.MessageChannel;
+
+/**
+ * Send the messages of the bot, merging the messages for a same channel. Each
+ * channel has a bucket with at most one message in flight: the messages sent
+ * meanwhile (or during the coalescing window) are joined by new lines into a
+ * single discord message, up to the 2000 chars limit. A message is never cut,
+ * so the code blocks of DiscordHelper stay whole.
+ *
+ * Discord rate limits the sends per channel, merging the bursts (help, errors)
+ * keeps them from queuing behind the rate limit.
+ */
+public class OutboundScheduler {
+	/** maximum length of a discord message */
+	public static final int MAX_LENGTH = 2000;
+
+	private final ConcurrentHashMap<Key, Bucket> buckets;
+	private final LongAdder submitted, sends, merged;
+	private volatile long windowMillis;
+	private volatile ScheduledExecutorService timer;
+
+	/**
+	 * A scheduler merging only the messages sent while another is in flight
+	 */
+	public OutboundScheduler() {
+		this(0);
+	}
+
+	/**
+	 * @param windowMillis how long a message waits for others before being sent,
+	 *                     0 to send it at once when nothing is in flight
+	 */
+	public OutboundScheduler(long windowMillis) {
+		this.buckets = new ConcurrentHashMap<Key, Bucket>();
+		this.submitted = new LongAdder();
+		this.sends = new LongAdder();
+		this.merged = new LongAdder();
+		this.windowMillis = windowMillis;
+	}
+
+	public long getWindowMillis() {
+		return windowMillis;
+	}
+
+	public void setWindowMillis(long windowMillis) {
+		this.windowMillis = windowMillis;
+	}
+
+	/**
+	 * Queue a message for a channel
+	 *
+	 * @param channel the channel
+	 * @param message the message, sent whole even if longer than MAX_LENGTH
+	 */
+	public void send(MessageChannel channel, String message) {
+		submitted.increment();
+		boolean[] start = new boolean[1];
+		Bucket bucket = buckets.compute(new Key(channel), (key, existing) -> {
+			Bucket b = existing == null ? new Bucket(key, channel) : existing;
+			start[0] = b.offer(message);
+			return b;
+		});
+		if (!start[0]) {
+			return;
+		}
+		long window = windowMillis;
+		if (window <= 0) {
+			flush(bucket);
+		} else {
+			timer().schedule(() -> flush(bucket), window, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * @return the number of messages given to send
+	 */
+	public long getSubmitted() {
+		return submitted.sum();
+	}
+
+	/**
+	 * @return the number of messages actually sent to discord
+	 */
+	public long getSends() {
+		return sends.sum();
+	}
+
+	/**
+	 * @return the number of messages sent as part of a merged message
+	 */
+	public long getMessagesMerged() {
+		return merged.sum();
+	}
+
+	/**
+	 * @return the number of sends saved by merging
+	 */
+	public long getSendsAvoided() {
+		return submitted.sum() - sends.sum() - pending();
+	}
+
+	/**
+	 * @return the number of messages waiting to be sent
+	 */
+	public int pending() {
+		int pending = 0;
+		for (Bucket bucket : buckets.values()) {
+			pending += bucket.pending();
+		}
+		return pending;
+	}
+
+	private ScheduledExecutorService timer() {
+		if (timer == null) {
+			synchronized (this) {
+				if (timer == null) {
+					timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+						Thread thread = new Thread(runnable, "discordBot-outbound");
+						thread.setDaemon(true);
+						return thread;
+					});
+				}
+			}
+		}
+		return timer;
+	}
+
+	private void flush(Bucket bucket) {
+		String batch = bucket.take();
+		if (batch == null) {
+			// nothing left, drop the bucket unless a message came meanwhile
+			buckets.computeIfPresent(bucket.key, (key, b) -> b == bucket && bucket.isIdle() ? null : b);
+			return;
+		}
+		sends.increment();
+		try {
+			bucket.channel.sendMessage(batch).queue(sent -> flush(bucket), error -> {
+				System.err.println("Error sending a message to " + bucket.channel.getName() + ": " + error);
+				flush(bucket);
+			});
+		} catch (RuntimeException e) {
+			System.err.println("Error sending a message to " + bucket.channel.getName() + ": " + e);
+			flush(bucket);
+		}
+	}
+
+	/**
+	 * A channel seen by a connection: two bots (or shards) writing to the same
+	 * channel have their own buckets, each sent by its own connection
+	 */
+	private static final class Key {
+		private final JDA jda;
+		private final long channelId;
+
+		private Key(MessageChannel channel) {
+			this.jda = channel.getJDA();
+			this.channelId = channel.getIdLong();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return channelId == other.channelId && jda == other.jda;
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(channelId) * 31 + System.identityHashCode(jda);
+		}
+	}
+
+	private final class Bucket {
+		private final Key key;
+		private final MessageChannel channel;
+		private final ArrayDeque<String> pending = new ArrayDeque<String>();
+		private boolean busy;
+
+		private Bucket(Key key, MessageChannel channel) {
+			this.key = key;
+			this.channel = channel;
+		}
+
+		/**
+		 * @return true if the caller must start the flush
+		 */
+		private synchronized boolean offer(String message) {
+			pending.add(message);
+			if (busy) {
+				return false;
+			}
+			busy = true;
+			return true;
+		}
+
+		private synchronized int pending() {
+			return pending.size();
+		}
+
+		private synchronized boolean isIdle() {
+			return !busy && pending.isEmpty();
+		}
+
+		/**
+		 * @return the pending messages fitting in one discord message, or null (and
+		 *         not busy anymore) if there is none
+		 */
+		private synchronized String take() {
+			String first = pending.poll();
+			if (first == null) {
+				busy = false;
+				return null;
+			}
+			if (pending.isEmpty() || first.length() + 1 + pending.peek().length() > MAX_LENGTH) {
+				return first;
+			}
+			StringBuilder batch = new StringBuilder(MAX_LENGTH).append(first);
+			int count = 1;
+			while (!pending.isEmpty() && batch.length() + 1 + pending.peek().length() <= MAX_LENGTH) {
+				batch.append('\n').append(pending.poll());
+				count++;
+			}
+			merged.add(count);
+			return batch.toString();
+		}
+	}
+}
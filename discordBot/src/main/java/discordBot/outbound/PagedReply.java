@@ -0,0 +1,184 @@
+package discordBot.outbound;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import discordBot.DiscordHelper;
+
+/**
+ * A long answer sent a page at a time (a full command listing, the rows of a
+ * query...). The lines are pulled from their iterator only when a page needs
+ * them, so the memory used is bounded by the size of a page, not by the size of
+ * the answer. See AbstractBot.page.
+ *
+ * A page holds as many whole lines as fit, a line longer than a page is cut
+ * over several pages. Every page but the last ends with the footer (eg: how
+ * to get the next page).
+ *
+ * The source of the lines (a database cursor, a stream...) is closed once the
+ * last page is rendered, or when the reply is closed before: AbstractBot closes
+ * it when the reply expires, is replaced or is evicted.
+ */
+public class PagedReply implements AutoCloseable {
+	/** how long the next pages can be asked for */
+	public static final long DEFAULT_TTL_MINUTES = 10;
+
+	private final Iterator<? extends CharSequence> lines;
+	private final AutoCloseable source;
+	private final int pageSize;
+	private final String footer;
+	private final long ttlNanos;
+	private CharSequence pending;
+	private Iterator<String> overflow;
+	private int pages;
+	private boolean closed;
+	private volatile long expiresAt;
+
+	/**
+	 * @param lines     the lines of the answer, pulled lazily. Closed with the
+	 *                  reply if they are AutoCloseable
+	 * @param maxLength the maximum length of a page, footer included
+	 * @param footer    the end of the pages followed by another one, "" for none
+	 */
+	public PagedReply(Iterator<? extends CharSequence> lines, int maxLength, String footer) {
+		this(lines, lines instanceof AutoCloseable ? (AutoCloseable) lines : null, maxLength, footer);
+	}
+
+	/**
+	 * @param lines     the lines of the answer, pulled lazily
+	 * @param source    where the lines come from, closed with the reply, null
+	 *                  for nothing to close
+	 * @param maxLength the maximum length of a page, footer included
+	 * @param footer    the end of the pages followed by another one, "" for none
+	 */
+	public PagedReply(Iterator<? extends CharSequence> lines, AutoCloseable source, int maxLength, String footer) {
+		if (maxLength <= footer.length()) {
+			throw new IllegalArgumentException("No room for the text in a page of " + maxLength + " chars");
+		}
+		this.lines = lines;
+		this.source = source;
+		this.pageSize = maxLength - footer.length();
+		this.footer = footer;
+		this.ttlNanos = TimeUnit.MINUTES.toNanos(DEFAULT_TTL_MINUTES);
+		this.expiresAt = System.nanoTime() + ttlNanos;
+	}
+
+	/**
+	 * @param lines the lines of the answer, pulled lazily. Closed with the reply
+	 *              if they are AutoCloseable
+	 */
+	public PagedReply(Iterator<? extends CharSequence> lines) {
+		this(lines, DiscordHelper.Builder.MAX_LENGTH, "");
+	}
+
+	/**
+	 * Render the next page, pulling the lines it needs
+	 *
+	 * @return the page, or null if the whole answer was given
+	 */
+	public synchronized String nextPage() {
+		expiresAt = System.nanoTime() + ttlNanos;
+		if (closed) {
+			return null;
+		}
+		if (overflow != null) {
+			return page(nextChunk());
+		}
+		StringBuilder page = null;
+		while (pending != null || lines.hasNext()) {
+			CharSequence line = pending != null ? pending : lines.next();
+			pending = null;
+			if (page == null) {
+				if (line.length() > pageSize) {
+					overflow = new DiscordHelper.Builder(line.length()).append(line).chunks(pageSize).iterator();
+					return page(nextChunk());
+				}
+				page = new StringBuilder(Math.min(pageSize, 1024));
+				page.append(line);
+			} else if (page.length() + 1 + line.length() <= pageSize) {
+				page.append('\n').append(line);
+			} else {
+				pending = line;
+				break;
+			}
+		}
+		if (page == null) {
+			close();
+			return null;
+		}
+		return page(page.toString());
+	}
+
+	private String nextChunk() {
+		String chunk = overflow.next();
+		if (!overflow.hasNext()) {
+			overflow = null;
+		}
+		return chunk;
+	}
+
+	private String page(String text) {
+		pages++;
+		if (hasNext()) {
+			return text + footer;
+		}
+		close();
+		return text;
+	}
+
+	/**
+	 * @return true if there is another page. May pull a line to know it
+	 */
+	public synchronized boolean hasNext() {
+		return pending != null || overflow != null || (!closed && lines.hasNext());
+	}
+
+	/**
+	 * @return the number of pages rendered
+	 */
+	public synchronized int getPages() {
+		return pages;
+	}
+
+	/**
+	 * Close the source of the lines, if it isn't yet. No page is rendered after
+	 */
+	@Override
+	public synchronized void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		pending = null;
+		overflow = null;
+		if (source != null) {
+			try {
+				source.close();
+			} catch (Exception e) {
+				System.err.println("Can't close the source of a paged reply: " + e);
+			}
+		}
+	}
+
+	/**
+	 * @return true if the source is closed: the reply was given whole, or dropped
+	 */
+	public synchronized boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * @return true if the next page wasn't asked for since the time to live
+	 */
+	public boolean isExpired() {
+		return System.nanoTime() - expiresAt >= 0;
+	}
+
+	/**
+	 * @param unit the unit of the result
+	 * @return the time left before the reply expires, if no page is asked for
+	 */
+	public long getExpiresIn(TimeUnit unit) {
+		return unit.convert(Math.max(0, expiresAt - System.nanoTime()), TimeUnit.NANOSECONDS);
+	}
+}
@@ -0,0 +1,312 @@
+package discordBot.prefix;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import discordBot.util.ConcurrentLongMap;
+
+/**
+ * The prefixes set for some channels or guilds, keyed by their snowflake. A
+ * channel without prefix use the prefix of its guild, then the default prefix of
+ * the bot. Only the prefixes explicitly set are stored, keyed by primitive
+ * longs, so the memory depends on the number of prefixes configured and not on
+ * the number of channels the bot is in. They are never evicted: a prefix set by
+ * a user is data, not a cache.
+ *
+ * The store can be backed by a file, an append only log of the changes replayed
+ * at startup. Each record is the type (byte), the snowflake (long) and, unless
+ * the prefix is removed, the prefix (modified UTF-8). A record is built in
+ * memory then appended by a single write, the log is truncated back to its last
+ * record if the write fails, and a record cut by a crash is truncated away at
+ * the next load: the next records never follow a cut one.
+ */
+public class PrefixStore {
+	private static final byte CHANNEL = 1, GUILD = 2, REMOVED = (byte) 0x80;
+	/** the longest prefix writeUTF can save, in bytes of modified UTF-8 */
+	private static final int MAX_PREFIX_BYTES = 0xFFFF;
+
+	private final ConcurrentLongMap<String> channels;
+	private final ConcurrentLongMap<String> guilds;
+	private final Path file;
+	private final ByteArrayOutputStream record = new ByteArrayOutputStream(64);
+	private final DataOutputStream recordOut = new DataOutputStream(record);
+	private FileChannel log;
+
+	/**
+	 * A store living only in memory
+	 */
+	public PrefixStore() {
+		this.channels = new ConcurrentLongMap<String>();
+		this.guilds = new ConcurrentLongMap<String>();
+		this.file = null;
+	}
+
+	/**
+	 * A store backed by a file. The file is loaded (and compacted) now, then every
+	 * change is appended to it
+	 *
+	 * @param file the backing file, created if it doesn't exist
+	 * @throws IOException if the file can't be read or written
+	 */
+	public PrefixStore(Path file) throws IOException {
+		this.channels = new ConcurrentLongMap<String>();
+		this.guilds = new ConcurrentLongMap<String>();
+		this.file = file;
+		load();
+	}
+
+	/**
+	 * @param guildId   snowflake of the guild, 0 for a private channel
+	 * @param channelId snowflake of the channel
+	 * @return the prefix of the channel, or of its guild, or null if none is set
+	 */
+	public String get(long guildId, long channelId) {
+		String prefix = channels.get(channelId);
+		if (prefix == null && guildId != 0) {
+			prefix = guilds.get(guildId);
+		}
+		return prefix;
+	}
+
+	public String getChannelPrefix(long channelId) {
+		return channels.get(channelId);
+	}
+
+	public String getGuildPrefix(long guildId) {
+		return guilds.get(guildId);
+	}
+
+	/**
+	 * @param channelId snowflake of the channel
+	 * @param prefix    the prefix, null to use the one of the guild again
+	 * @throws IllegalArgumentException if the prefix is over 65535 bytes in
+	 *                                  modified UTF-8
+	 */
+	public void setChannelPrefix(long channelId, String prefix) {
+		set(channels, CHANNEL, channelId, prefix);
+	}
+
+	/**
+	 * @param guildId snowflake of the guild
+	 * @param prefix  the prefix, null to use the default one again
+	 * @throws IllegalArgumentException if the prefix is over 65535 bytes in
+	 *                                  modified UTF-8
+	 */
+	public void setGuildPrefix(long guildId, String prefix) {
+		set(guilds, GUILD, guildId, prefix);
+	}
+
+	private synchronized void set(ConcurrentLongMap<String> map, byte type, long id, String prefix) {
+		if (prefix != null && utfLength(prefix) > MAX_PREFIX_BYTES) {
+			// checked first: the memory and the file must agree
+			throw new IllegalArgumentException("Prefix too long: " + prefix.length() + " chars");
+		}
+		if (prefix == null) {
+			map.remove(id);
+		} else {
+			map.put(id, prefix);
+		}
+		append(prefix == null ? (byte) (type | REMOVED) : type, id, prefix);
+	}
+
+	/**
+	 * @return the number of prefixes set
+	 */
+	public int size() {
+		return channels.size() + guilds.size();
+	}
+
+	/**
+	 * Remove all the prefixes, the backing file is emptied too
+	 */
+	public synchronized void clear() {
+		channels.clear();
+		guilds.clear();
+		if (file != null) {
+			try {
+				closeLog();
+				Files.write(file, new byte[0]);
+			} catch (IOException e) {
+				System.err.println("Error clearing the prefix file: " + e.getMessage());
+			}
+		}
+	}
+
+	public synchronized void close() throws IOException {
+		closeLog();
+	}
+
+	private synchronized void append(byte type, long id, String prefix) {
+		if (file == null) {
+			return;
+		}
+		long end = -1;
+		try {
+			if (log == null) {
+				log = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+				log.position(log.size());
+			}
+			record.reset();
+			write(recordOut, type, id, prefix);
+			ByteBuffer buffer = ByteBuffer.wrap(record.toByteArray());
+			end = log.position();
+			while (buffer.hasRemaining()) {
+				log.write(buffer);
+			}
+		} catch (IOException e) {
+			System.err.println("Error writing the prefix file: " + e.getMessage());
+			if (end >= 0) {
+				truncate(end);
+			}
+		}
+	}
+
+	/**
+	 * Drop what a failed write left after the last record
+	 */
+	private void truncate(long end) {
+		try {
+			log.truncate(end);
+			log.position(end);
+		} catch (IOException e) {
+			// the next records would follow a cut one: reopened by the next append
+			System.err.println("Can't truncate the prefix file: " + e.getMessage());
+			try {
+				closeLog();
+			} catch (IOException ignored) {
+				// already reported
+			}
+		}
+	}
+
+	private static void write(DataOutputStream out, byte type, long id, String prefix) throws IOException {
+		out.writeByte(type);
+		out.writeLong(id);
+		if ((type & REMOVED) == 0) {
+			out.writeUTF(prefix);
+		}
+	}
+
+	/**
+	 * @return the length of a string in modified UTF-8, as written by writeUTF
+	 */
+	private static int utfLength(String s) {
+		int length = 0;
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			length += c >= 0x0001 && c <= 0x007F ? 1 : c <= 0x07FF ? 2 : 3;
+		}
+		return length;
+	}
+
+	private void closeLog() throws IOException {
+		if (log != null) {
+			FileChannel closing = log;
+			log = null;
+			closing.close();
+		}
+	}
+
+	/**
+	 * Replay the log, then rewrite it if most of its records are outdated. A
+	 * record cut by a crash is truncated away, so the next ones follow the last
+	 * complete record
+	 *
+	 * @throws IOException if the file can't be read, or has an unknown record
+	 */
+	private void load() throws IOException {
+		if (!Files.exists(file)) {
+			return;
+		}
+		int records = 0;
+		long valid = 0;
+		boolean cut = false;
+		try (InputStream stream = Files.newInputStream(file);
+				DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16))) {
+			while (true) {
+				byte type;
+				try {
+					type = in.readByte();
+				} catch (EOFException e) {
+					break;
+				}
+				byte kind = (byte) (type & ~REMOVED);
+				if (kind != CHANNEL && kind != GUILD) {
+					throw new IOException("Unknown prefix record " + type + " at " + valid + " in " + file);
+				}
+				long id = in.readLong();
+				ConcurrentLongMap<String> map = kind == GUILD ? guilds : channels;
+				long length = 9;
+				if ((type & REMOVED) != 0) {
+					map.remove(id);
+				} else {
+					String prefix = in.readUTF();
+					map.put(id, prefix);
+					length += 2 + utfLength(prefix);
+				}
+				valid += length;
+				records++;
+			}
+		} catch (EOFException e) {
+			cut = true;
+		}
+		if (cut) {
+			System.err.println("Prefix file truncated, last record ignored");
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+				channel.truncate(valid);
+			}
+		}
+		if (records > 2 * size()) {
+			compact();
+		}
+	}
+
+	/**
+	 * Rewrite the backing file with only the prefixes in memory
+	 *
+	 * @throws IOException if the file can't be written
+	 */
+	public synchronized void compact() throws IOException {
+		if (file == null) {
+			return;
+		}
+		closeLog();
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+			IOException[] error = new IOException[1];
+			ConcurrentLongMap.Visitor<String> channelWriter = (id, prefix) -> writeQuietly(out, CHANNEL, id, prefix,
+					error);
+			ConcurrentLongMap.Visitor<String> guildWriter = (id, prefix) -> writeQuietly(out, GUILD, id, prefix,
+					error);
+			channels.forEach(channelWriter);
+			guilds.forEach(guildWriter);
+			if (error[0] != null) {
+				throw error[0];
+			}
+		}
+		Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static void writeQuietly(DataOutputStream out, byte type, long id, String prefix, IOException[] error) {
+		if (error[0] != null) {
+			return;
+		}
+		try {
+			write(out, type, id, prefix);
+		} catch (IOException e) {
+			error[0] = e;
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package discordBot.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A rate: at most permits uses per period, in bursts or spread over the period.
+ * The permits come back one by one, at period / permits intervals.
+ *
+ * Immutable.
+ */
+public final class RateLimit {
+	private final int permits;
+	private final long periodNanos;
+	private final long intervalNanos;
+	private final long toleranceNanos;
+
+	/**
+	 * @param permits number of uses allowed in a burst
+	 * @param period  time for all the permits to come back
+	 * @param unit    unit of period
+	 */
+	public RateLimit(int permits, long period, TimeUnit unit) {
+		if (permits <= 0 || period <= 0) {
+			throw new IllegalArgumentException("permits and period must be positive: " + permits + ", " + period);
+		}
+		this.permits = permits;
+		this.periodNanos = unit.toNanos(period);
+		this.intervalNanos = Math.max(1, periodNanos / permits);
+		this.toleranceNanos = intervalNanos * (permits - 1);
+	}
+
+	public int getPermits() {
+		return permits;
+	}
+
+	public long getPeriod(TimeUnit unit) {
+		return unit.convert(periodNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * @return the time for one permit to come back, in nanoseconds
+	 */
+	long getIntervalNanos() {
+		return intervalNanos;
+	}
+
+	/**
+	 * @return how far ahead of now a bucket can be and still accept a use
+	 */
+	long getToleranceNanos() {
+		return toleranceNanos;
+	}
+
+	@Override
+	public String toString() {
+		return permits + " per " + TimeUnit.NANOSECONDS.toMillis(periodNanos) + "ms";
+	}
+}
@@ -0,0 +1,138 @@
+package discordBot.ratelimit;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import discordBot.util.ConcurrentLongMap;
+
+/**
+ * Token buckets keyed by snowflake (user, channel...). A bucket is a single
+ * long, the time at which it will be full again: using a permit pushes it one
+ * interval further, the use is refused when it would go past the period. So a
+ * check is one compare-and-set, without lock.
+ *
+ * A full bucket is the same as no bucket, so the full ones are dropped by a
+ * sweep run at most once per period. The number of buckets is bounded too, the
+ * least recently used are evicted past the bound.
+ */
+public class RateLimiter {
+	/** maximum number of buckets by default */
+	public static final int DEFAULT_MAX_KEYS = 100_000;
+
+	private final RateLimit limit;
+	private final ConcurrentLongMap<AtomicLong> buckets;
+	private final LongSupplier clock;
+	private final long sweepNanos;
+	private final AtomicLong nextSweep;
+
+	/**
+	 * @param limit the rate allowed for each key
+	 */
+	public RateLimiter(RateLimit limit) {
+		this(limit, DEFAULT_MAX_KEYS, System::nanoTime);
+	}
+
+	/**
+	 * @param limit   the rate allowed for each key
+	 * @param maxKeys maximum number of buckets
+	 */
+	public RateLimiter(RateLimit limit, int maxKeys) {
+		this(limit, maxKeys, System::nanoTime);
+	}
+
+	RateLimiter(RateLimit limit, int maxKeys, LongSupplier clock) {
+		this.limit = limit;
+		this.buckets = new ConcurrentLongMap<AtomicLong>(maxKeys);
+		this.clock = clock;
+		this.sweepNanos = limit.getIntervalNanos() + limit.getToleranceNanos();
+		this.nextSweep = new AtomicLong(clock.getAsLong() + sweepNanos);
+	}
+
+	public RateLimit getLimit() {
+		return limit;
+	}
+
+	/**
+	 * Use a permit of a key
+	 *
+	 * @param key the key (user, channel...)
+	 * @return 0 if the permit was given, otherwise the time to wait for it in
+	 *         nanoseconds
+	 */
+	public long tryAcquire(long key) {
+		long now = clock.getAsLong();
+		sweepIfDue(now);
+		AtomicLong bucket = buckets.get(key);
+		if (bucket == null) {
+			AtomicLong created = new AtomicLong(now);
+			bucket = buckets.putIfAbsent(key, created);
+			if (bucket == null) {
+				bucket = created;
+			}
+		}
+		long interval = limit.getIntervalNanos();
+		long tolerance = limit.getToleranceNanos();
+		while (true) {
+			long full = bucket.get();
+			long start = Math.max(full, now);
+			long wait = start - now - tolerance;
+			if (wait > 0) {
+				return wait;
+			}
+			if (bucket.compareAndSet(full, start + interval)) {
+				return 0;
+			}
+		}
+	}
+
+	/**
+	 * @return the number of keys with a bucket not full
+	 */
+	public int size() {
+		return buckets.size();
+	}
+
+	public void clear() {
+		buckets.clear();
+	}
+
+	private void sweepIfDue(long now) {
+		long next = nextSweep.get();
+		if (now - next >= 0 && nextSweep.compareAndSet(next, now + sweepNanos)) {
+			sweep(now);
+		}
+	}
+
+	/**
+	 * Drop the full buckets. A use racing with the removal of its bucket is
+	 * forgotten, which only gives back one permit
+	 */
+	void sweep(long now) {
+		FullBuckets full = new FullBuckets(now);
+		buckets.forEach(full);
+		for (int i = 0; i < full.count; i++) {
+			buckets.remove(full.keys[i]);
+		}
+	}
+
+	private static final class FullBuckets implements ConcurrentLongMap.Visitor<AtomicLong> {
+		private final long now;
+		private long[] keys = new long[16];
+		private int count;
+
+		private FullBuckets(long now) {
+			this.now = now;
+		}
+
+		@Override
+		public void visit(long key, AtomicLong bucket) {
+			if (bucket.get() - now <= 0) {
+				if (count == keys.length) {
+					keys = Arrays.copyOf(keys, count * 2);
+				}
+				keys[count++] = key;
+			}
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package discordBot.replay;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read a log written by MessageRecorder
+ */
+public class MessageLogReader implements Closeable {
+	private final DataInputStream in;
+
+	/**
+	 * @param path the file of the log
+	 * @throws IOException if the file can't be read or isn't a message log
+	 */
+	public MessageLogReader(Path path) throws IOException {
+		this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16));
+		if (in.readInt() != MessageRecorder.MAGIC) {
+			in.close();
+			throw new IOException(path + " isn't a message log");
+		}
+		int version = in.readInt();
+		if (version != MessageRecorder.VERSION) {
+			in.close();
+			throw new IOException("Unknown message log version " + version + " in " + path);
+		}
+	}
+
+	/**
+	 * @return the next message, or null at the end of the log. A message cut by a
+	 *         crash at the end of the log is ignored
+	 * @throws IOException if the log can't be read
+	 */
+	public RecordedMessage next() throws IOException {
+		long time;
+		try {
+			time = in.readLong();
+		} catch (EOFException e) {
+			return null;
+		}
+		try {
+			long guildId = in.readLong();
+			long channelId = in.readLong();
+			long authorId = in.readLong();
+			boolean bot = in.readByte() != 0;
+			String content = in.readUTF();
+			return new RecordedMessage(time, guildId, channelId, authorId, bot, content);
+		} catch (EOFException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Read a whole log
+	 *
+	 * @param path the file of the log
+	 * @return the messages, oldest first
+	 * @throws IOException if the file can't be read or isn't a message log
+	 */
+	public static List<RecordedMessage> readAll(Path path) throws IOException {
+		List<RecordedMessage> messages = new ArrayList<RecordedMessage>();
+		try (MessageLogReader reader = new MessageLogReader(path)) {
+			for (RecordedMessage message = reader.next(); message != null; message = reader.next()) {
+				messages.add(message);
+			}
+		}
+		return messages;
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+}
@@ -0,0 +1,92 @@
+package discordBot.replay;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import net.dv8tion.jda.api.entities.GuildChannel;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+
+/**
+ * Write the messages received by a bot to an append-only binary log, to replay
+ * them offline with Replay. Give it to AbstractBot.setRecorder.
+ *
+ * The log starts with the magic number "DBML" and the version, then each
+ * message is: time (long, ms since the epoch), guild, channel and author
+ * snowflakes (longs, guild 0 for a private channel), author is a bot (byte),
+ * content (modified UTF-8). The log is buffered, call flush or close to write
+ * the last messages.
+ */
+public class MessageRecorder implements Closeable {
+	static final int MAGIC = 0x44424D4C;
+	static final int VERSION = 1;
+
+	private final DataOutputStream out;
+	private long recorded;
+
+	/**
+	 * Open a log, appending to it if it already exists
+	 *
+	 * @param path the file of the log
+	 * @throws IOException if the file can't be opened
+	 */
+	public MessageRecorder(Path path) throws IOException {
+		boolean exists = Files.exists(path) && Files.size(path) > 0;
+		this.out = new DataOutputStream(new BufferedOutputStream(
+				Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND), 1 << 16));
+		if (!exists) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+		}
+	}
+
+	/**
+	 * Append a message received
+	 *
+	 * @param event the message
+	 * @throws IOException if the message can't be written
+	 */
+	public void record(MessageReceivedEvent event) throws IOException {
+		MessageChannel channel = event.getChannel();
+		long guildId = channel instanceof GuildChannel ? ((GuildChannel) channel).getGuild().getIdLong() : 0;
+		record(System.currentTimeMillis(), guildId, channel.getIdLong(), event.getAuthor().getIdLong(),
+				event.getAuthor().isBot(), event.getMessage().getContentRaw());
+	}
+
+	/**
+	 * Append a message
+	 *
+	 * @throws IOException if the message can't be written
+	 */
+	public synchronized void record(long time, long guildId, long channelId, long authorId, boolean bot,
+			String content) throws IOException {
+		out.writeLong(time);
+		out.writeLong(guildId);
+		out.writeLong(channelId);
+		out.writeLong(authorId);
+		out.writeByte(bot ? 1 : 0);
+		out.writeUTF(content);
+		recorded++;
+	}
+
+	/**
+	 * @return the number of messages recorded since the log was opened
+	 */
+	public synchronized long getRecorded() {
+		return recorded;
+	}
+
+	public synchronized void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		out.close();
+	}
+}
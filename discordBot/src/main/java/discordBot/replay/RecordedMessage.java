@@ -0,0 +1,61 @@
+package discordBot.replay;
+
+/**
+ * A message read from a message log. Immutable.
+ */
+public final class RecordedMessage {
+	private final long time;
+	private final long guildId;
+	private final long channelId;
+	private final long authorId;
+	private final boolean bot;
+	private final String content;
+
+	/**
+	 * @param time      when the message was received, in milliseconds since the
+	 *                  epoch
+	 * @param guildId   the snowflake of the guild, 0 for a private channel
+	 * @param channelId the snowflake of the channel
+	 * @param authorId  the snowflake of the author
+	 * @param bot       true if the author is a bot
+	 * @param content   the raw content
+	 */
+	public RecordedMessage(long time, long guildId, long channelId, long authorId, boolean bot, String content) {
+		this.time = time;
+		this.guildId = guildId;
+		this.channelId = channelId;
+		this.authorId = authorId;
+		this.bot = bot;
+		this.content = content;
+	}
+
+	/**
+	 * @return when the message was received, in milliseconds since the epoch
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * @return the snowflake of the guild, 0 for a private channel
+	 */
+	public long getGuildId() {
+		return guildId;
+	}
+
+	public long getChannelId() {
+		return channelId;
+	}
+
+	public long getAuthorId() {
+		return authorId;
+	}
+
+	public boolean isBot() {
+		return bot;
+	}
+
+	public String getContent() {
+		return content;
+	}
+}
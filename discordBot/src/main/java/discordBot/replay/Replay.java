@@ -0,0 +1,291 @@
+package discordBot.replay;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import discordBot.AbstractBot;
+import discordBot.exceptions.CommandException;
+import discordBot.exceptions.CommandNotFoundException;
+import discordBot.exceptions.ValidatorException;
+import discordBot.execution.ExecutionEngine;
+import discordBot.metrics.HistogramSnapshot;
+import discordBot.metrics.LatencyHistogram;
+import discordBot.offline.OfflineChannel;
+import discordBot.offline.OfflineEvents;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+
+/**
+ * Feed a message log back to a bot, offline: the channels and users are
+ * stand-ins and the answers of the bot are only counted. The messages are
+ * replayed at their recorded pace (or faster), then the throughput, the
+ * latency percentiles and the allocations are reported.
+ *
+ * The latency of a message is measured from the time it was due, not from
+ * the time it was given to the bot, so a slow message also counts against the
+ * ones delayed behind it.
+ *
+ * Usage: Replay &lt;log&gt; &lt;commands package&gt; [--prefix !] [--speed 1]
+ * [--warmup 1] [--async]. Speed 2 replays twice as fast as recorded, 0 as fast
+ * as possible. With --async the commands run on the execution engine and the
+ * latency only covers the routing.
+ */
+public class Replay {
+	private final AbstractBot bot;
+	private final JDA jda;
+	private final Map<Long, OfflineChannel> channels;
+	private final Map<Long, User> users;
+
+	/**
+	 * @param bot a bot built without connection
+	 */
+	public Replay(AbstractBot bot) {
+		this.bot = bot;
+		this.jda = OfflineEvents.jda(bot);
+		this.channels = new HashMap<Long, OfflineChannel>();
+		this.users = new HashMap<Long, User>();
+	}
+
+	/**
+	 * Build the events of the messages before the replay, so their building is
+	 * not measured
+	 *
+	 * @param messages the messages
+	 * @return the events, in the same order
+	 */
+	public List<MessageReceivedEvent> events(List<RecordedMessage> messages) {
+		List<MessageReceivedEvent> events = new ArrayList<MessageReceivedEvent>(messages.size());
+		for (RecordedMessage message : messages) {
+			OfflineChannel channel = channels.computeIfAbsent(message.getChannelId(), id -> {
+				OfflineChannel offline = new OfflineChannel(id, message.getGuildId());
+				offline.setKeepMessages(false);
+				return offline;
+			});
+			// the sign bit tells apart the bots and the humans of a same id
+			long userKey = message.isBot() ? ~message.getAuthorId() : message.getAuthorId();
+			User author = users.computeIfAbsent(userKey,
+					key -> OfflineEvents.user(message.getAuthorId(), message.isBot()));
+			events.add(OfflineEvents.message(jda, channel, author, message.getContent()));
+		}
+		return events;
+	}
+
+	/**
+	 * Replay messages
+	 *
+	 * @param messages the messages, oldest first
+	 * @param speed    how many times faster than recorded, 0 for as fast as
+	 *                 possible
+	 * @return the measures of the replay
+	 */
+	public Report run(List<RecordedMessage> messages, double speed) {
+		List<MessageReceivedEvent> events = events(messages);
+		LatencyHistogram latency = new LatencyHistogram();
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		long allocatedBefore = allocatedBytes(threads);
+		long sent = sentCount();
+		long first = messages.isEmpty() ? 0 : messages.get(0).getTime();
+		long start = System.nanoTime();
+		for (int i = 0; i < events.size(); i++) {
+			long due = System.nanoTime();
+			if (speed > 0) {
+				due = start + (long) (TimeUnit.MILLISECONDS.toNanos(messages.get(i).getTime() - first) / speed);
+				long wait = due - System.nanoTime();
+				if (wait > 0) {
+					LockSupport.parkNanos(wait);
+				}
+			}
+			bot.onMessageReceived(events.get(i));
+			latency.record(System.nanoTime() - due);
+		}
+		long elapsed = System.nanoTime() - start;
+		long allocatedAfter = allocatedBytes(threads);
+		long allocated = allocatedBefore < 0 || allocatedAfter < 0 ? -1 : allocatedAfter - allocatedBefore;
+		return new Report(events.size(), elapsed, latency.snapshot(), allocated, sentCount() - sent);
+	}
+
+	private long sentCount() {
+		long sent = 0;
+		for (OfflineChannel channel : channels.values()) {
+			sent += channel.getSentCount();
+		}
+		return sent;
+	}
+
+	/**
+	 * @return the bytes allocated by the current thread, or -1 if the JVM can't
+	 *         tell
+	 */
+	private static long allocatedBytes(ThreadMXBean threads) {
+		if (threads instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+			if (hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled()) {
+				return hotspot.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * The measures of a replay. Immutable.
+	 */
+	public static final class Report {
+		private final int messages;
+		private final long elapsedNanos;
+		private final HistogramSnapshot latency;
+		private final long allocatedBytes;
+		private final long answers;
+
+		private Report(int messages, long elapsedNanos, HistogramSnapshot latency, long allocatedBytes,
+				long answers) {
+			this.messages = messages;
+			this.elapsedNanos = elapsedNanos;
+			this.latency = latency;
+			this.allocatedBytes = allocatedBytes;
+			this.answers = answers;
+		}
+
+		public int getMessages() {
+			return messages;
+		}
+
+		public long getElapsedNanos() {
+			return elapsedNanos;
+		}
+
+		/**
+		 * @return the messages replayed per second
+		 */
+		public double getThroughput() {
+			return elapsedNanos == 0 ? 0 : messages * 1e9 / elapsedNanos;
+		}
+
+		/**
+		 * @return the latency of the messages, from the time they were due
+		 */
+		public HistogramSnapshot getLatency() {
+			return latency;
+		}
+
+		/**
+		 * @return the bytes allocated by the replaying thread, -1 if unknown
+		 */
+		public long getAllocatedBytes() {
+			return allocatedBytes;
+		}
+
+		/**
+		 * @return the number of messages sent by the bot
+		 */
+		public long getAnswers() {
+			return answers;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder text = new StringBuilder();
+			double seconds = elapsedNanos / 1e9;
+			text.append(String.format(Locale.ROOT, "messages:   %d in %.3fs, %.0f msg/s%n", messages, seconds,
+					getThroughput()));
+			text.append(String.format(Locale.ROOT,
+					"latency:    p50 %.1fus, p90 %.1fus, p99 %.1fus, p99.9 %.1fus, max %.1fus%n",
+					latency.getPercentile(50) / 1e3, latency.getPercentile(90) / 1e3, latency.getPercentile(99) / 1e3,
+					latency.getPercentile(99.9) / 1e3, latency.getMax() / 1e3));
+			if (allocatedBytes >= 0) {
+				text.append(String.format(Locale.ROOT, "allocated:  %.1fMB, %d bytes/msg, %.1fMB/s%n",
+						allocatedBytes / 1e6, messages == 0 ? 0 : allocatedBytes / messages,
+						seconds == 0 ? 0 : allocatedBytes / 1e6 / seconds));
+			} else {
+				text.append("allocated:  unknown on this JVM\n");
+			}
+			text.append("answers:    ").append(answers).append('\n');
+			return text.toString();
+		}
+	}
+
+	/**
+	 * Bot replaying a log: never connected, count the errors instead of
+	 * answering them
+	 */
+	private static final class ReplayBot extends AbstractBot {
+		private final LongAdder notFound = new LongAdder(), failed = new LongAdder(), invalid = new LongAdder();
+
+		private ReplayBot(String packageName, String prefix) throws Exception {
+			super(packageName, prefix, false);
+		}
+
+		@Override
+		protected void commandNotFoundException(MessageChannel channel, CommandNotFoundException e) {
+			notFound.increment();
+		}
+
+		@Override
+		protected void commandException(MessageChannel channel, CommandException e) {
+			failed.increment();
+		}
+
+		@Override
+		protected void validatorException(MessageChannel channel, ValidatorException e) {
+			invalid.increment();
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 2) {
+			System.err.println(
+					"Usage: Replay <log> <commands package> [--prefix !] [--speed 1] [--warmup 1] [--async]");
+			System.exit(1);
+		}
+		String prefix = "!";
+		double speed = 1;
+		int warmup = 1;
+		boolean async = false;
+		for (int i = 2; i < args.length; i++) {
+			switch (args[i]) {
+			case "--prefix":
+				prefix = args[++i];
+				break;
+			case "--speed":
+				speed = Double.parseDouble(args[++i]);
+				break;
+			case "--warmup":
+				warmup = Integer.parseInt(args[++i]);
+				break;
+			case "--async":
+				async = true;
+				break;
+			default:
+				System.err.println("Unknown option " + args[i]);
+				System.exit(1);
+			}
+		}
+		List<RecordedMessage> messages = MessageLogReader.readAll(Paths.get(args[0]));
+		ReplayBot bot = new ReplayBot(args[1], prefix);
+		if (!async) {
+			bot.setExecutionEngine(ExecutionEngine.direct());
+		}
+		Replay replay = new Replay(bot);
+		for (int i = 0; i < warmup; i++) {
+			replay.run(messages, 0);
+		}
+		bot.notFound.reset();
+		bot.failed.reset();
+		bot.invalid.reset();
+		Report report = replay.run(messages, speed);
+		System.out.print(report);
+		System.out.println("not found:  " + bot.notFound.sum() + ", invalid: " + bot.invalid.sum() + ", failed: "
+				+ bot.failed.sum());
+		bot.shutdown();
+	}
+}
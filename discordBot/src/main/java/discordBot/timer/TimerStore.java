@@ -0,0 +1,320 @@
+package discordBot.timer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import discordBot.util.ConcurrentLongMap;
+
+/**
+ * Tasks scheduled on a TimerWheel kept across restarts. A task can't be saved,
+ * so a durable task is a type and a payload (eg: "remind" and
+ * "channel;user;text"), run by the handler of its type when it expires. Give
+ * it to AbstractBot.setTimerStore, after setting the handlers.
+ *
+ * The tasks are appended to a log when they are scheduled, and again when they
+ * are done or cancelled. A task is done once its handler returned: a crash
+ * while it runs runs it again at the next start. The tasks due while the bot
+ * was stopped run as soon as it starts. The log is rewritten with only the
+ * pending tasks when it is opened, and once most of its records are outdated.
+ *
+ * The log starts with the magic number "DBTM" and the version, then each
+ * record is the operation (byte) and the id of the task (long), followed for a
+ * new task by its deadline (long, ms since the epoch), its type and its
+ * payload (modified UTF-8). A record cut by a crash at the end is ignored.
+ * Each record is built in memory then appended by a single write, and the log
+ * is truncated back to its last record if the write fails, so a failure never
+ * leaves a cut record before the next ones.
+ */
+public class TimerStore implements Closeable {
+	static final int MAGIC = 0x4442544D;
+	static final int VERSION = 1;
+	/** the log isn't compacted below this number of records */
+	private static final int COMPACT_MIN_RECORDS = 1024;
+
+	private static final byte ADD = 1, DONE = 2;
+
+	private final Path file;
+	private final ConcurrentLongMap<Task> tasks;
+	private final ConcurrentHashMap<String, Consumer<String>> handlers;
+	private final ByteArrayOutputStream record;
+	private final DataOutputStream recordOut;
+	private FileChannel log;
+	private TimerWheel timer;
+	private long nextId;
+	private long records;
+
+	/**
+	 * Open a log, and load its pending tasks. They are scheduled by attach
+	 *
+	 * @param file the file of the log, created if it doesn't exist
+	 * @throws IOException if the file can't be read or written, or isn't a timer
+	 *                     log
+	 */
+	public TimerStore(Path file) throws IOException {
+		this.file = file;
+		this.tasks = new ConcurrentLongMap<Task>();
+		this.handlers = new ConcurrentHashMap<String, Consumer<String>>();
+		this.record = new ByteArrayOutputStream(128);
+		this.recordOut = new DataOutputStream(record);
+		if (Files.exists(file) && Files.size(file) > 0) {
+			load();
+		}
+		compact();
+	}
+
+	private void load() throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+			if (in.readInt() != MAGIC) {
+				throw new IOException(file + " isn't a timer log");
+			}
+			int version = in.readInt();
+			if (version != VERSION) {
+				throw new IOException("Unknown timer log version " + version + " in " + file);
+			}
+			while (true) {
+				byte op = in.readByte();
+				long id = in.readLong();
+				if (op == ADD) {
+					long deadline = in.readLong();
+					String type = in.readUTF();
+					String payload = in.readUTF();
+					tasks.put(id, new Task(id, deadline, type, payload));
+				} else if (op == DONE) {
+					tasks.remove(id);
+				} else {
+					throw new IOException("Unknown timer record " + op + " in " + file);
+				}
+				nextId = Math.max(nextId, id + 1);
+			}
+		} catch (EOFException e) {
+			// end of the log, or a record cut by a crash
+		}
+	}
+
+	/**
+	 * Run the handler of a type for the tasks of this type
+	 *
+	 * @param type    the type of the tasks
+	 * @param handler called with the payload, on the executor of the timer
+	 */
+	public void setHandler(String type, Consumer<String> handler) {
+		handlers.put(type, handler);
+	}
+
+	/**
+	 * Schedule the pending tasks on a timer, the tasks scheduled next will be
+	 * too. Called by AbstractBot.setTimerStore
+	 *
+	 * @param timer the timer
+	 */
+	public synchronized void attach(TimerWheel timer) {
+		if (this.timer != null) {
+			throw new IllegalStateException("The timer store is already attached");
+		}
+		this.timer = timer;
+		long now = System.currentTimeMillis();
+		tasks.forEach((id, task) -> schedule(task, now));
+	}
+
+	/**
+	 * Schedule a durable task
+	 *
+	 * @param type    the type of the task, see setHandler
+	 * @param payload what the handler needs to run the task
+	 * @param delay   the delay
+	 * @param unit    unit of delay
+	 * @return the id of the task, to cancel it
+	 * @throws IOException if the task can't be saved, it isn't scheduled
+	 */
+	public synchronized long schedule(String type, String payload, long delay, TimeUnit unit) throws IOException {
+		if (timer == null) {
+			throw new IllegalStateException("The timer store isn't attached to a timer");
+		}
+		long now = System.currentTimeMillis();
+		Task task = new Task(nextId++, now + unit.toMillis(delay), type, payload);
+		record.reset();
+		recordOut.writeByte(ADD);
+		recordOut.writeLong(task.id);
+		recordOut.writeLong(task.deadline);
+		recordOut.writeUTF(type);
+		recordOut.writeUTF(payload);
+		append();
+		tasks.put(task.id, task);
+		schedule(task, now);
+		return task.id;
+	}
+
+	private void schedule(Task task, long now) {
+		task.timeout = timer.schedule(() -> run(task), task.deadline - now, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @param id the id of a task
+	 * @return true if the task was pending and won't run
+	 * @throws IOException if the cancellation can't be saved
+	 */
+	public synchronized boolean cancel(long id) throws IOException {
+		Task task = tasks.get(id);
+		if (task == null || (task.timeout != null && !task.timeout.cancel())) {
+			return false;
+		}
+		done(task);
+		return true;
+	}
+
+	private void run(Task task) {
+		Consumer<String> handler = handlers.get(task.type);
+		if (handler == null) {
+			// kept for the next start, the handler may be set by then
+			System.err.println("No handler for the timer task " + task.id + " of type " + task.type);
+			return;
+		}
+		handler.accept(task.payload);
+		synchronized (this) {
+			try {
+				done(task);
+			} catch (IOException e) {
+				System.err.println("Can't save the end of the timer task " + task.id + ": " + e.getMessage());
+			}
+		}
+	}
+
+	private void done(Task task) throws IOException {
+		if (tasks.remove(task.id) == null || log == null) {
+			return;
+		}
+		record.reset();
+		recordOut.writeByte(DONE);
+		recordOut.writeLong(task.id);
+		append();
+		if (records >= COMPACT_MIN_RECORDS && records > 2 * tasks.size()) {
+			compact();
+		}
+	}
+
+	/**
+	 * Append the record built, or nothing
+	 */
+	private void append() throws IOException {
+		if (log == null) {
+			throw new IOException("The timer log " + file + " is closed");
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(record.toByteArray());
+		long end = log.position();
+		try {
+			while (buffer.hasRemaining()) {
+				log.write(buffer);
+			}
+		} catch (IOException e) {
+			try {
+				log.truncate(end);
+				log.position(end);
+			} catch (IOException truncation) {
+				// the next records would follow a cut one: stop writing
+				System.err.println("Can't truncate the timer log " + file + ": " + truncation.getMessage());
+				FileChannel closing = log;
+				log = null;
+				try {
+					closing.close();
+				} catch (IOException ignored) {
+					// already reported
+				}
+			}
+			throw e;
+		}
+		records++;
+	}
+
+	/**
+	 * Rewrite the log with only the pending tasks
+	 *
+	 * @throws IOException if the log can't be written
+	 */
+	public synchronized void compact() throws IOException {
+		close();
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (DataOutputStream rewrite = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+			rewrite.writeInt(MAGIC);
+			rewrite.writeInt(VERSION);
+			long[] written = new long[1];
+			IOException[] failure = new IOException[1];
+			tasks.forEach((id, task) -> {
+				try {
+					rewrite.writeByte(ADD);
+					rewrite.writeLong(task.id);
+					rewrite.writeLong(task.deadline);
+					rewrite.writeUTF(task.type);
+					rewrite.writeUTF(task.payload);
+					written[0]++;
+				} catch (IOException e) {
+					failure[0] = e;
+				}
+			});
+			if (failure[0] != null) {
+				throw failure[0];
+			}
+			records = written[0];
+		}
+		Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		log = FileChannel.open(file, StandardOpenOption.WRITE);
+		log.position(log.size());
+	}
+
+	/**
+	 * @return the number of durable tasks not done yet
+	 */
+	public int getPending() {
+		return tasks.size();
+	}
+
+	/**
+	 * @return the number of records in the log
+	 */
+	public synchronized long getRecords() {
+		return records;
+	}
+
+	/**
+	 * Close the log. The pending tasks stay scheduled on the timer but won't be
+	 * saved as done, they run again at the next start
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (log != null) {
+			FileChannel closing = log;
+			log = null;
+			closing.close();
+		}
+	}
+
+	private static final class Task {
+		private final long id;
+		private final long deadline;
+		private final String type;
+		private final String payload;
+		private volatile TimerWheel.Timeout timeout;
+
+		private Task(long id, long deadline, String type, String payload) {
+			this.id = id;
+			this.deadline = deadline;
+			this.type = type;
+			this.payload = payload;
+		}
+	}
+}
@@ -0,0 +1,338 @@
+package discordBot.timer;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Run tasks after a delay (reminders, timed mutes, replies deleted later...),
+ * for many pending tasks: scheduling and cancelling cost O(1) whatever the
+ * number of tasks pending, and a single thread keeps the time for all of them.
+ *
+ * A hashed timing wheel: the time is cut in ticks, a task is put in the
+ * bucket of the tick of its deadline, modulo the size of the wheel, with the
+ * number of turns of the wheel left before it expires. Each tick, the thread
+ * of the wheel runs the expired tasks of one bucket. A task runs at most a
+ * tick after its deadline, never before.
+ *
+ * The tasks scheduled or cancelled are queued without lock, and moved in or
+ * out of the buckets by the thread of the wheel, the only one touching them.
+ */
+public class TimerWheel {
+	public static final long DEFAULT_TICK_MILLIS = 100;
+	public static final int DEFAULT_WHEEL_SIZE = 512;
+	/** most pending tasks moved into the buckets in a tick, so a burst can't stall it */
+	private static final int MAX_TRANSFERS = 100_000;
+
+	private final long tickNanos;
+	private final Bucket[] wheel;
+	private final int mask;
+	private final Executor executor;
+	private final Queue<Timeout> added;
+	private final Queue<Timeout> cancelled;
+	private final AtomicLong pending;
+	private final LongAdder expired;
+	private final long startTime;
+	private final Thread worker;
+	private volatile boolean stopped;
+	private long tick;
+
+	/**
+	 * @param tick      the precision of the wheel
+	 * @param unit      unit of tick
+	 * @param wheelSize number of buckets, rounded up to a power of two. A task
+	 *                  due after more than tick * wheelSize waits for several
+	 *                  turns
+	 * @param executor  run the expired tasks, null to run them on the thread of
+	 *                  the wheel (only for short tasks)
+	 */
+	public TimerWheel(long tick, TimeUnit unit, int wheelSize, Executor executor) {
+		if (tick <= 0 || wheelSize <= 0 || wheelSize > 1 << 30) {
+			throw new IllegalArgumentException("Invalid tick or wheel size: " + tick + ", " + wheelSize);
+		}
+		this.tickNanos = unit.toNanos(tick);
+		int size = Integer.highestOneBit(wheelSize);
+		size = size < wheelSize ? size << 1 : size;
+		this.wheel = new Bucket[size];
+		for (int i = 0; i < size; i++) {
+			wheel[i] = new Bucket();
+		}
+		this.mask = size - 1;
+		this.executor = executor;
+		this.added = new ConcurrentLinkedQueue<Timeout>();
+		this.cancelled = new ConcurrentLinkedQueue<Timeout>();
+		this.pending = new AtomicLong();
+		this.expired = new LongAdder();
+		this.startTime = System.nanoTime();
+		this.worker = new Thread(this::work, "discordBot-timer");
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	/**
+	 * A wheel of 512 ticks of 100 ms
+	 *
+	 * @param executor run the expired tasks, null to run them on the thread of
+	 *                 the wheel
+	 */
+	public TimerWheel(Executor executor) {
+		this(DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_WHEEL_SIZE, executor);
+	}
+
+	/**
+	 * Run a task after a delay
+	 *
+	 * @param task  the task, its exceptions are logged
+	 * @param delay the delay, 0 or less to run it on the next tick
+	 * @param unit  unit of delay
+	 * @return the handle of the task, to cancel it
+	 * @throws IllegalStateException if the wheel is stopped
+	 */
+	public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+		if (stopped) {
+			throw new IllegalStateException("The timer is stopped");
+		}
+		long now = System.nanoTime() - startTime;
+		long delayNanos = Math.max(0, unit.toNanos(delay));
+		// far enough to never expire rather than overflow
+		long deadline = delayNanos > Long.MAX_VALUE - now ? Long.MAX_VALUE : now + delayNanos;
+		Timeout timeout = new Timeout(this, task, deadline);
+		pending.incrementAndGet();
+		added.add(timeout);
+		return timeout;
+	}
+
+	/**
+	 * @return the number of tasks scheduled, neither run nor cancelled
+	 */
+	public long getPending() {
+		return pending.get();
+	}
+
+	/**
+	 * @return the number of tasks run
+	 */
+	public long getExpired() {
+		return expired.sum();
+	}
+
+	public long getTick(TimeUnit unit) {
+		return unit.convert(tickNanos, TimeUnit.NANOSECONDS);
+	}
+
+	public int getWheelSize() {
+		return wheel.length;
+	}
+
+	public boolean isStopped() {
+		return stopped;
+	}
+
+	/**
+	 * Stop the thread of the wheel. The pending tasks are dropped, without
+	 * running
+	 */
+	public void stop() {
+		stopped = true;
+		LockSupport.unpark(worker);
+		if (Thread.currentThread() != worker) {
+			try {
+				worker.join(1000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		pending.set(0);
+	}
+
+	private void work() {
+		while (!stopped) {
+			long deadline = tickNanos * (tick + 1);
+			long sleep = deadline - (System.nanoTime() - startTime);
+			if (sleep > 0) {
+				LockSupport.parkNanos(this, sleep);
+				continue;
+			}
+			removeCancelled();
+			transferAdded();
+			expire(wheel[(int) (tick & mask)], deadline);
+			tick++;
+		}
+	}
+
+	private void removeCancelled() {
+		for (Timeout timeout = cancelled.poll(); timeout != null; timeout = cancelled.poll()) {
+			if (timeout.bucket != null) {
+				timeout.bucket.remove(timeout);
+			}
+		}
+	}
+
+	private void transferAdded() {
+		int transferred = 0;
+		while (transferred < MAX_TRANSFERS) {
+			Timeout timeout = added.poll();
+			if (timeout == null) {
+				return;
+			}
+			// the tasks cancelled before reaching a bucket are dropped, not counted
+			if (timeout.state != Timeout.WAITING) {
+				continue;
+			}
+			transferred++;
+			long due = timeout.deadline / tickNanos;
+			timeout.remainingRounds = (due - tick) / wheel.length;
+			// a task already late goes in the current bucket
+			wheel[(int) (Math.max(due, tick) & mask)].add(timeout);
+		}
+	}
+
+	private void expire(Bucket bucket, long deadline) {
+		Timeout timeout = bucket.head;
+		while (timeout != null) {
+			Timeout next = timeout.next;
+			if (timeout.state != Timeout.WAITING) {
+				bucket.remove(timeout);
+			} else if (timeout.remainingRounds <= 0 && timeout.deadline <= deadline) {
+				bucket.remove(timeout);
+				if (timeout.expire()) {
+					run(timeout.task);
+				}
+			} else {
+				timeout.remainingRounds--;
+			}
+			timeout = next;
+		}
+	}
+
+	private void run(Runnable task) {
+		expired.increment();
+		if (executor == null) {
+			runSafely(task);
+			return;
+		}
+		try {
+			executor.execute(() -> runSafely(task));
+		} catch (RejectedExecutionException e) {
+			System.err.println("Timer task rejected by the executor: " + e.getMessage());
+		}
+	}
+
+	private static void runSafely(Runnable task) {
+		try {
+			task.run();
+		} catch (Throwable e) {
+			// without executor the task runs on the timer thread: even an Error musn't
+			// stop it
+			System.err.println("Timer task failed: " + e);
+		}
+	}
+
+	/**
+	 * A task scheduled on a wheel
+	 */
+	public static final class Timeout {
+		private static final int WAITING = 0, CANCELLED = 1, EXPIRED = 2;
+		private static final AtomicIntegerFieldUpdater<Timeout> STATE = AtomicIntegerFieldUpdater
+				.newUpdater(Timeout.class, "state");
+
+		private final TimerWheel timer;
+		private final Runnable task;
+		private final long deadline;
+		private volatile int state;
+		// owned by the thread of the wheel
+		private long remainingRounds;
+		private Bucket bucket;
+		private Timeout previous, next;
+
+		private Timeout(TimerWheel timer, Runnable task, long deadline) {
+			this.timer = timer;
+			this.task = task;
+			this.deadline = deadline;
+		}
+
+		/**
+		 * @return true if the task was pending and won't run
+		 */
+		public boolean cancel() {
+			if (!STATE.compareAndSet(this, WAITING, CANCELLED)) {
+				return false;
+			}
+			timer.pending.decrementAndGet();
+			timer.cancelled.add(this);
+			return true;
+		}
+
+		private boolean expire() {
+			if (!STATE.compareAndSet(this, WAITING, EXPIRED)) {
+				return false;
+			}
+			timer.pending.decrementAndGet();
+			return true;
+		}
+
+		public boolean isCancelled() {
+			return state == CANCELLED;
+		}
+
+		/**
+		 * @return true if the task was given to the executor
+		 */
+		public boolean isExpired() {
+			return state == EXPIRED;
+		}
+
+		/**
+		 * @param unit the unit of the result
+		 * @return the time left before the deadline, negative once it is passed
+		 */
+		public long getDelay(TimeUnit unit) {
+			return unit.convert(deadline - (System.nanoTime() - timer.startTime), TimeUnit.NANOSECONDS);
+		}
+	}
+
+	/**
+	 * The tasks of a tick, a doubly linked list to remove a cancelled task in
+	 * O(1)
+	 */
+	private static final class Bucket {
+		private Timeout head, tail;
+
+		private void add(Timeout timeout) {
+			timeout.bucket = this;
+			timeout.previous = tail;
+			timeout.next = null;
+			if (tail == null) {
+				head = timeout;
+			} else {
+				tail.next = timeout;
+			}
+			tail = timeout;
+		}
+
+		private void remove(Timeout timeout) {
+			if (timeout.bucket != this) {
+				return;
+			}
+			if (timeout.previous == null) {
+				head = timeout.next;
+			} else {
+				timeout.previous.next = timeout.next;
+			}
+			if (timeout.next == null) {
+				tail = timeout.previous;
+			} else {
+				timeout.next.previous = timeout.previous;
+			}
+			timeout.bucket = null;
+			timeout.previous = null;
+			timeout.next = null;
+		}
+	}
+}
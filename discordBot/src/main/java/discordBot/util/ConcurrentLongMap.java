@@ -0,0 +1,347 @@
+package discordBot.util;
+
+/**
+ * Concurrent map of primitive long keys (discord snowflakes) to values, with an
+ * optional size bound. The map is split in stripes locked independently, each
+ * stripe is an open addressing table (no entry object, no boxing). When a
+ * bounded stripe is full, an entry not read recently is evicted (CLOCK, an
+ * approximation of LRU).
+ *
+ * Values can't be null.
+ *
+ * @param <V> type of the values
+ */
+public class ConcurrentLongMap<V> {
+	private static final int STRIPES = 16;
+
+	/**
+	 * Receive the entries of the map
+	 */
+	public interface Visitor<V> {
+		void visit(long key, V value);
+	}
+
+	private final Stripe[] stripes;
+	private final int maxSize;
+
+	/**
+	 * An unbounded map
+	 */
+	public ConcurrentLongMap() {
+		this(Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @param maxSize maximum number of entries, the least recently used are
+	 *                evicted past it. Rounded down to a multiple of 16, the
+	 *                number of stripes
+	 */
+	public ConcurrentLongMap(int maxSize) {
+		this(maxSize, null);
+	}
+
+	/**
+	 * @param maxSize    maximum number of entries, the least recently used are
+	 *                   evicted past it. Rounded down to a multiple of 16, the
+	 *                   number of stripes
+	 * @param onEviction receive the entries evicted, eg: to release them. Called
+	 *                   with their stripe locked: it musn't use the map
+	 */
+	@SuppressWarnings("unchecked")
+	public ConcurrentLongMap(int maxSize, Visitor<? super V> onEviction) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+		}
+		this.maxSize = maxSize;
+		this.stripes = new Stripe[STRIPES];
+		int perStripe = Math.max(1, maxSize / STRIPES);
+		for (int i = 0; i < STRIPES; i++) {
+			stripes[i] = new Stripe(perStripe, (Visitor<Object>) onEviction);
+		}
+	}
+
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	private Stripe stripe(int hash) {
+		return stripes[(hash >>> 28) & (STRIPES - 1)];
+	}
+
+	/**
+	 * @param key the key
+	 * @return the value of the key, or null if there is none
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long key) {
+		int hash = hash(key);
+		return (V) stripe(hash).get(key, hash);
+	}
+
+	/**
+	 * @param key   the key
+	 * @param value the value, not null
+	 * @return the previous value of the key, or null if there was none
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(long key, V value) {
+		if (value == null) {
+			throw new NullPointerException("value");
+		}
+		int hash = hash(key);
+		return (V) stripe(hash).put(key, hash, value);
+	}
+
+	/**
+	 * @param key   the key
+	 * @param value the value, not null
+	 * @return the value of the key if there is one, or null if value was put
+	 */
+	@SuppressWarnings("unchecked")
+	public V putIfAbsent(long key, V value) {
+		if (value == null) {
+			throw new NullPointerException("value");
+		}
+		int hash = hash(key);
+		return (V) stripe(hash).putIfAbsent(key, hash, value);
+	}
+
+	/**
+	 * @param key the key
+	 * @return the value removed, or null if there was none
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(long key) {
+		int hash = hash(key);
+		return (V) stripe(hash).remove(key, hash);
+	}
+
+	/**
+	 * @param key   the key
+	 * @param value the value expected
+	 * @return true if the key had this value (same instance) and was removed
+	 */
+	public boolean remove(long key, V value) {
+		int hash = hash(key);
+		return stripe(hash).remove(key, hash, value);
+	}
+
+	/**
+	 * @return the number of entries
+	 */
+	public int size() {
+		int size = 0;
+		for (Stripe stripe : stripes) {
+			size += stripe.size();
+		}
+		return size;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * @return the number of entries evicted since the creation of the map
+	 */
+	public long evictions() {
+		long evictions = 0;
+		for (Stripe stripe : stripes) {
+			evictions += stripe.evictions();
+		}
+		return evictions;
+	}
+
+	public void clear() {
+		for (Stripe stripe : stripes) {
+			stripe.clear();
+		}
+	}
+
+	/**
+	 * Visit all the entries, one stripe at a time. Each stripe is locked while it
+	 * is visited, don't modify the map from the visitor
+	 *
+	 * @param visitor receive the entries
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEach(Visitor<? super V> visitor) {
+		for (Stripe stripe : stripes) {
+			stripe.forEach((Visitor<Object>) visitor);
+		}
+	}
+
+	private static final class Stripe {
+		private final int maxSize;
+		private final Visitor<Object> onEviction;
+		private long[] keys;
+		private Object[] values;
+		private boolean[] referenced;
+		private int size;
+		private int hand;
+		private long evictions;
+
+		private Stripe(int maxSize, Visitor<Object> onEviction) {
+			this.maxSize = maxSize;
+			this.onEviction = onEviction;
+			init(8);
+		}
+
+		private void init(int capacity) {
+			keys = new long[capacity];
+			values = new Object[capacity];
+			referenced = new boolean[capacity];
+			size = 0;
+			hand = 0;
+		}
+
+		private int indexOf(long key, int hash) {
+			int mask = keys.length - 1;
+			for (int i = hash & mask;; i = (i + 1) & mask) {
+				if (values[i] == null || keys[i] == key) {
+					return i;
+				}
+			}
+		}
+
+		synchronized Object get(long key, int hash) {
+			int i = indexOf(key, hash);
+			if (values[i] != null) {
+				referenced[i] = true;
+			}
+			return values[i];
+		}
+
+		synchronized Object put(long key, int hash, Object value) {
+			int i = indexOf(key, hash);
+			Object previous = values[i];
+			if (previous != null) {
+				values[i] = value;
+				referenced[i] = true;
+				return previous;
+			}
+			if (size >= maxSize) {
+				evict();
+			} else if ((size + 1) * 2 > keys.length) {
+				grow();
+			}
+			i = indexOf(key, hash);
+			keys[i] = key;
+			values[i] = value;
+			referenced[i] = false;
+			size++;
+			return null;
+		}
+
+		synchronized Object putIfAbsent(long key, int hash, Object value) {
+			int i = indexOf(key, hash);
+			if (values[i] != null) {
+				referenced[i] = true;
+				return values[i];
+			}
+			return put(key, hash, value);
+		}
+
+		synchronized Object remove(long key, int hash) {
+			int i = indexOf(key, hash);
+			Object previous = values[i];
+			if (previous != null) {
+				delete(i);
+			}
+			return previous;
+		}
+
+		synchronized boolean remove(long key, int hash, Object value) {
+			int i = indexOf(key, hash);
+			if (values[i] == null || values[i] != value) {
+				return false;
+			}
+			delete(i);
+			return true;
+		}
+
+		synchronized int size() {
+			return size;
+		}
+
+		synchronized long evictions() {
+			return evictions;
+		}
+
+		synchronized void clear() {
+			init(8);
+		}
+
+		synchronized void forEach(Visitor<Object> visitor) {
+			for (int i = 0; i < keys.length; i++) {
+				if (values[i] != null) {
+					visitor.visit(keys[i], values[i]);
+				}
+			}
+		}
+
+		/**
+		 * CLOCK: give a second chance to the entries read since the last sweep
+		 */
+		private void evict() {
+			int mask = keys.length - 1;
+			while (true) {
+				hand = (hand + 1) & mask;
+				if (values[hand] == null) {
+					continue;
+				}
+				if (referenced[hand]) {
+					referenced[hand] = false;
+				} else {
+					long key = keys[hand];
+					Object value = values[hand];
+					delete(hand);
+					evictions++;
+					if (onEviction != null) {
+						onEviction.visit(key, value);
+					}
+					return;
+				}
+			}
+		}
+
+		private void grow() {
+			long[] oldKeys = keys;
+			Object[] oldValues = values;
+			boolean[] oldReferenced = referenced;
+			init(oldKeys.length * 2);
+			for (int j = 0; j < oldKeys.length; j++) {
+				if (oldValues[j] != null) {
+					int i = indexOf(oldKeys[j], hash(oldKeys[j]));
+					keys[i] = oldKeys[j];
+					values[i] = oldValues[j];
+					referenced[i] = oldReferenced[j];
+					size++;
+				}
+			}
+		}
+
+		/**
+		 * Remove the entry at i, shifting back the entries of its probe sequence
+		 */
+		private void delete(int i) {
+			int mask = keys.length - 1;
+			int hole = i;
+			for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+				int home = hash(keys[j]) & mask;
+				// move j into the hole unless its home is cyclically in (hole, j]
+				boolean stays = hole <= j ? (hole < home && home <= j) : (hole < home || home <= j);
+				if (!stays) {
+					keys[hole] = keys[j];
+					values[hole] = values[j];
+					referenced[hole] = referenced[j];
+					hole = j;
+				}
+			}
+			values[hole] = null;
+			referenced[hole] = false;
+			size--;
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package discordBot.util;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+/**
+ * Release a memory mapping now instead of when the buffer is garbage collected.
+ * A file still mapped can't be truncated, replaced or deleted on Windows. There
+ * is no public API for it: the cleaner of the JDK is called by reflection, and
+ * nothing is done if it isn't reachable.
+ *
+ * The buffer, and every view of it, must never be read again once unmapped: it
+ * would crash the JVM.
+ */
+public final class Mappings {
+	private interface Unmapper {
+		void unmap(ByteBuffer buffer) throws ReflectiveOperationException;
+	}
+
+	private static final Unmapper UNMAPPER = unmapper();
+
+	private Mappings() {
+	}
+
+	/**
+	 * @param buffer the mapping to release, not used anymore
+	 * @return true if the mapping was released, false if it is left to the
+	 *         garbage collector
+	 */
+	public static boolean unmap(MappedByteBuffer buffer) {
+		if (buffer == null || UNMAPPER == null) {
+			return false;
+		}
+		try {
+			UNMAPPER.unmap(buffer);
+			return true;
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			System.err.println("Can't release a memory mapping: " + e);
+			return false;
+		}
+	}
+
+	private static Unmapper unmapper() {
+		try {
+			// JDK 9+
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field field = unsafeClass.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			Object unsafe = field.get(null);
+			Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			return buffer -> invokeCleaner.invoke(unsafe, buffer);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// JDK 8
+		}
+		try {
+			Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+			Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+			return buffer -> clean.invoke(cleaner.invoke(buffer));
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,299 @@
+package discordBot;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.junit.Test;
+
+import discordBot.command.AbstractCommand;
+import discordBot.command.CommandContext;
+import discordBot.command.CommandRegistry;
+import discordBot.command.ReloadReport;
+import discordBot.command.interceptor.AbstractInterceptor;
+import discordBot.exceptions.CommandException;
+import discordBot.exceptions.CommandNotFoundException;
+import discordBot.exceptions.ValidatorException;
+import discordBot.execution.ExecutionEngine;
+import discordBot.offline.OfflineChannel;
+import discordBot.offline.OfflineEvents;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+
+public class AbstractBotTest {
+
+	private static class TestBot extends AbstractBot {
+		private TestBot(String prefix) throws Exception {
+			super("discordBot.testcommands", prefix, false);
+		}
+
+		@Override
+		protected void commandNotFoundException(MessageChannel channel, CommandNotFoundException e) {
+		}
+
+		@Override
+		protected void commandException(MessageChannel channel, CommandException e) {
+		}
+
+		@Override
+		protected void validatorException(MessageChannel channel, ValidatorException e) {
+		}
+	}
+
+	@Test
+	public void testSeveralBots() throws Exception {
+		TestBot first = new TestBot("!");
+		TestBot second = new TestBot("$$");
+		JDA firstJDA = OfflineEvents.jda(first);
+		JDA secondJDA = OfflineEvents.jda(second);
+		OfflineChannel channel = new OfflineChannel(1, 2);
+
+		MessageReceivedEvent toFirst = OfflineEvents.message(firstJDA, channel, OfflineEvents.user(3, false),
+				"!echo a b");
+		MessageReceivedEvent toSecond = OfflineEvents.message(secondJDA, channel, OfflineEvents.user(3, false),
+				"$$echo a b");
+		assertSame(first, AbstractBot.of(toFirst));
+		assertSame(second, AbstractBot.of(toSecond));
+		// the prefix of the first bot still works after the second is created
+		assertArrayEquals(new String[] { "a", "b" }, AbstractCommand.getParams(toFirst));
+		assertArrayEquals(new String[] { "a", "b" }, AbstractCommand.getParams(toSecond));
+	}
+
+	private static class RecordingInterceptor extends AbstractInterceptor {
+		private final String name;
+		private final List<String> calls;
+		private volatile boolean stop;
+		private volatile boolean fail;
+
+		private RecordingInterceptor(String name, List<String> calls) {
+			this.name = name;
+			this.calls = calls;
+		}
+
+		@Override
+		public boolean appliesTo(AbstractCommand command) {
+			return command.getName().equals("echo");
+		}
+
+		@Override
+		public boolean before(CommandContext context) {
+			calls.add(name + " before");
+			if (fail) {
+				throw new IllegalStateException(name);
+			}
+			return !stop;
+		}
+
+		@Override
+		public void after(CommandContext context) {
+			calls.add(name + " after");
+		}
+
+		@Override
+		public boolean onError(CommandContext context, Exception e) {
+			calls.add(name + " error");
+			return true;
+		}
+
+		@Override
+		public void complete(CommandContext context, Throwable error) {
+			calls.add(name + " complete" + (error == null ? "" : " " + error.getMessage()));
+		}
+	}
+
+	@Test
+	public void testInterceptors() throws Exception {
+		TestBot bot = new TestBot("!");
+		OfflineChannel channel = new OfflineChannel(1, 2);
+		List<String> calls = new ArrayList<String>();
+		RecordingInterceptor first = new RecordingInterceptor("first", calls);
+		RecordingInterceptor second = new RecordingInterceptor("second", calls);
+		bot.addInterceptor(first);
+		bot.addInterceptor(second);
+		assertTrue(bot.getCommand("help").getInterceptors().isEmpty());
+
+		assertEquals(DispatchResult.OK, bot.dispatch("echo", OfflineEvents.message(channel, 3, "!echo a")));
+		assertEquals(Arrays.asList("first before", "second before", "second after", "second complete", "first after",
+				"first complete"), calls);
+
+		// only the interceptors which entered are unwound, the last one first
+		calls.clear();
+		second.stop = true;
+		assertEquals(DispatchResult.INTERCEPTED, bot.dispatch("echo", OfflineEvents.message(channel, 3, "!echo a")));
+		assertEquals(Arrays.asList("first before", "second before", "first complete"), calls);
+
+		calls.clear();
+		second.stop = false;
+		second.fail = true;
+		assertEquals(DispatchResult.INTERCEPTED, bot.dispatch("echo", OfflineEvents.message(channel, 3, "!echo a")));
+		assertEquals(Arrays.asList("first before", "second before", "first error", "first complete second"), calls);
+
+		calls.clear();
+		second.fail = false;
+		first.stop = true;
+		assertEquals(DispatchResult.INTERCEPTED, bot.dispatch("echo", OfflineEvents.message(channel, 3, "!echo a")));
+		assertEquals(Arrays.asList("first before"), calls);
+		assertEquals(2, bot.getCommand("echo").getMetrics().snapshot().getIntercepted());
+
+		// the chains are compiled again for the reloaded commands
+		bot.reload();
+		assertEquals(2, bot.getCommand("echo").getInterceptors().getInterceptors().size());
+		assertTrue(bot.removeInterceptor(first));
+		assertFalse(bot.removeInterceptor(first));
+		assertEquals(Arrays.asList(second), bot.getCommand("echo").getInterceptors().getInterceptors());
+	}
+
+	@Test
+	public void testPagedAnswer() throws Exception {
+		TestBot bot = new TestBot("!");
+		OfflineChannel channel = new OfflineChannel(1, 2);
+		List<String> lines = new ArrayList<String>();
+		for (int i = 0; i < 300; i++) {
+			lines.add("row " + i + " of a long query result");
+		}
+		bot.page(channel.getChannel(), lines.iterator());
+		assertEquals(1, channel.getSentMessages().size());
+		assertTrue(channel.getSentMessages().get(0).startsWith("row 0 of"));
+		assertTrue(channel.getSentMessages().get(0).endsWith("*!more for the next page*"));
+
+		// the next pages are rendered when asked for, until the last one
+		assertEquals(DispatchResult.OK, bot.dispatch("more", OfflineEvents.message(channel, 3, "!more")));
+		assertEquals(2, channel.getSentMessages().size());
+		while (bot.nextPage(channel.getChannel())) {
+			assertTrue(channel.getSentMessages().size() < 10);
+		}
+		List<String> sent = channel.getSentMessages();
+		assertTrue(sent.get(sent.size() - 1).endsWith("row 299 of a long query result"));
+		for (String page : sent) {
+			assertTrue(page.length() <= DiscordHelper.Builder.MAX_LENGTH);
+		}
+		bot.dispatch("next", OfflineEvents.message(channel, 3, "!next"));
+		assertEquals(sent.size() + 1, channel.getSentMessages().size());
+
+		// the source of an answer is closed when it is replaced, or given whole
+		AtomicInteger closed = new AtomicInteger();
+		bot.page(channel.getChannel(), lines.iterator(), closed::incrementAndGet);
+		bot.page(channel.getChannel(), lines.iterator(), closed::incrementAndGet);
+		assertEquals(1, closed.get());
+		assertTrue(bot.nextPage(channel.getChannel()));
+		assertEquals(1, closed.get());
+		while (bot.nextPage(channel.getChannel())) {
+			// up to the last page
+		}
+		assertEquals(2, closed.get());
+	}
+
+	@Test
+	public void testReload() throws Exception {
+		TestBot bot = new TestBot("!");
+		CommandRegistry before = bot.getRegistry();
+		AbstractCommand help = bot.getCommand("help");
+
+		ReloadReport report = bot.reload("discordBot.testreload", getClass().getClassLoader());
+		assertEquals(Arrays.asList("pong"), report.getAdded());
+		assertEquals(Arrays.asList("echo"), report.getRemoved());
+		assertEquals(Arrays.asList("help", "more"), report.getReplaced());
+		assertNull(bot.getCommand("echo"));
+		assertNotSame(help, bot.getCommand("help"));
+		assertEquals(before.getVersion() + 1, bot.getCommandsVersion());
+		// the previous registry is untouched, for the messages still using it
+		assertSame(help, before.get("help"));
+
+		report = bot.reload();
+		assertEquals(Collections.emptyList(), report.getAdded());
+		assertEquals(Arrays.asList("help", "more", "pong"), report.getReplaced());
+		assertEquals(3, bot.getMetrics().snapshot().getCommands().size());
+	}
+
+	private static Path jar() throws IOException {
+		Path jar = Files.createTempFile("commands", ".jar");
+		try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+			out.putNextEntry(new ZipEntry("reload.marker"));
+			out.closeEntry();
+		}
+		return jar;
+	}
+
+	@Test
+	public void testReloadJarClosesLoader() throws Exception {
+		TestBot bot = new TestBot("!");
+		Path firstJar = jar(), secondJar = jar();
+		try {
+			bot.reload(firstJar, "discordBot.testreload");
+			URLClassLoader first = (URLClassLoader) bot.getCommandLoader();
+			assertNotNull(first.getResource("reload.marker"));
+
+			// a command of the first jar still running: its loader is kept open
+			CommandRegistry running = bot.getRegistry();
+			running.enter();
+			bot.reload(secondJar, "discordBot.testreload");
+			URLClassLoader second = (URLClassLoader) bot.getCommandLoader();
+			assertNotNull(first.getResource("reload.marker"));
+			running.exit();
+			assertNull(first.getResource("reload.marker"));
+
+			// reloading the same jar keeps it open, a loader given to the bot is never closed
+			bot.reload();
+			assertNotNull(second.getResource("reload.marker"));
+			bot.reload("discordBot.testreload", getClass().getClassLoader());
+			assertNull(second.getResource("reload.marker"));
+		} finally {
+			Files.deleteIfExists(firstJar);
+			Files.deleteIfExists(secondJar);
+		}
+	}
+
+	@Test
+	public void testDirectCallsCountedInFlight() throws Exception {
+		TestBot bot = new TestBot("!");
+		List<Integer> inFlight = new ArrayList<Integer>();
+		bot.addInterceptor(new AbstractInterceptor() {
+			@Override
+			public boolean before(CommandContext context) {
+				inFlight.add(bot.getRegistry().getInFlight());
+				return true;
+			}
+		});
+		OfflineChannel channel = new OfflineChannel(1, 2);
+		assertEquals(DispatchResult.OK, bot.dispatch("echo", OfflineEvents.message(channel, 3, "!echo a")));
+		bot.executeCommand("echo", OfflineEvents.message(channel, 3, "!echo a"));
+		// a reload waits for them before closing the jar of their command
+		assertEquals(Arrays.asList(1, 1), inFlight);
+		assertEquals(0, bot.getRegistry().getInFlight());
+	}
+
+	@Test
+	public void testStoppedEngineReleasesSlot() throws Exception {
+		TestBot bot = new TestBot("!");
+		ExecutionEngine engine = new ExecutionEngine(Executors.newSingleThreadExecutor(),
+				ExecutionEngine.Ordering.GUILD);
+		bot.setExecutionEngine(engine);
+		engine.shutdown();
+		OfflineChannel channel = new OfflineChannel(1, 2);
+		for (int i = 0; i < 3; i++) {
+			bot.processMessage(OfflineEvents.message(channel, 3, "!echo a"));
+		}
+		assertEquals(0, bot.getAdmissionControl().getRunning());
+		assertEquals(0, bot.getAdmissionControl().getWaiting());
+		assertEquals(0, bot.getRegistry().getInFlight());
+	}
+}
@@ -0,0 +1,121 @@
+package discordBot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class DiscordHelperTest {
+
+	private static List<String> chunks(DiscordHelper.Builder builder, int maxLength) {
+		List<String> chunks = new ArrayList<String>();
+		for (String chunk : builder.chunks(maxLength)) {
+			assertTrue(chunk.length() + " > " + maxLength + ": " + chunk, chunk.length() <= maxLength);
+			chunks.add(chunk);
+		}
+		return chunks;
+	}
+
+	@Test
+	public void testSameAsStaticHelpers() {
+		DiscordHelper.Builder builder = new DiscordHelper.Builder();
+		builder.bold(" a ").append(' ').italic("b").underline("c").strike("d").codeBlock(" e ").colorBlue("f")
+				.colorRed("g");
+		String expected = DiscordHelper.bold(" a ") + " " + DiscordHelper.italic("b") + DiscordHelper.underline("c")
+				+ DiscordHelper.strike("d") + DiscordHelper.codeBlock(" e ") + DiscordHelper.colorBlue("f")
+				+ DiscordHelper.colorRed("g");
+		assertEquals(expected, builder.toString());
+		assertEquals(1, chunks(builder, 2000).size());
+	}
+
+	@Test
+	public void testSplitAtNewLines() {
+		DiscordHelper.Builder builder = new DiscordHelper.Builder();
+		for (int i = 0; i < 10; i++) {
+			builder.append("line ").append(String.valueOf(i)).newLine();
+		}
+		List<String> chunks = chunks(builder, 20);
+		assertEquals("line 0\nline 1\n", chunks.get(0));
+		assertEquals(String.join("", chunks), builder.toString());
+	}
+
+	@Test
+	public void testBlocksReopened() {
+		DiscordHelper.Builder builder = new DiscordHelper.Builder();
+		builder.append("intro\n").startColorBlue();
+		for (int i = 0; i < 50; i++) {
+			builder.append("entry ").append(String.valueOf(i)).newLine();
+		}
+		builder.endBlock().append("outro");
+		List<String> chunks = chunks(builder, 100);
+		assertTrue(chunks.size() > 1);
+		assertTrue(chunks.get(0).startsWith("intro\n```ini\n["));
+		for (int i = 0; i < chunks.size() - 1; i++) {
+			assertTrue(chunks.get(i), chunks.get(i).endsWith("]\n```"));
+			assertTrue(chunks.get(i + 1), chunks.get(i + 1).startsWith("```ini\n["));
+		}
+		assertTrue(chunks.get(chunks.size() - 1).endsWith("]\n```outro"));
+	}
+
+	@Test
+	public void testLongWordCut() {
+		StringBuilder word = new StringBuilder();
+		for (int i = 0; i < 4500; i++) {
+			word.append('x');
+		}
+		DiscordHelper.Builder builder = new DiscordHelper.Builder().bold(word);
+		List<String> chunks = chunks(builder, 2000);
+		assertEquals(3, chunks.size());
+		for (String chunk : chunks) {
+			assertTrue(chunk.startsWith("**") && chunk.endsWith("**"));
+		}
+	}
+
+	@Test
+	public void testReuse() {
+		DiscordHelper.Builder builder = new DiscordHelper.Builder().codeBlock("a");
+		builder.clear().append("b");
+		assertEquals("b", builder.toString());
+		assertFalse(builder.clear().chunks().iterator().hasNext());
+	}
+
+	@Test
+	public void testNestedBuilders() {
+		DiscordHelper.Builder builder = new DiscordHelper.Builder();
+		builder.bold(new DiscordHelper.Builder().italic(" x ")).append(" and ")
+				.append(new DiscordHelper.Builder().underline("y"));
+		String expected = DiscordHelper.bold(DiscordHelper.italic("x")) + " and " + DiscordHelper.underline("y");
+		assertEquals(expected, builder.toString());
+		assertEquals(expected.length(), builder.length());
+		assertEquals(expected.charAt(3), builder.charAt(3));
+
+		// the formatting of both builders is closed and opened again at each split
+		StringBuilder words = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			words.append("word ");
+		}
+		List<String> chunks = chunks(new DiscordHelper.Builder().bold(new DiscordHelper.Builder().italic(words)), 100);
+		assertTrue(chunks.size() > 1);
+		for (String chunk : chunks) {
+			assertTrue(chunk, chunk.startsWith("***") && chunk.endsWith("***"));
+		}
+	}
+
+	@Test
+	public void testCodeBlockReopenedOnNewLine() {
+		DiscordHelper.Builder builder = new DiscordHelper.Builder().startCodeBlock();
+		for (int i = 0; i < 50; i++) {
+			builder.append("word").newLine();
+		}
+		List<String> chunks = chunks(builder.endBlock(), 100);
+		assertTrue(chunks.size() > 1);
+		for (int i = 1; i < chunks.size(); i++) {
+			// else discord reads the first word as the language of the block
+			assertTrue(chunks.get(i), chunks.get(i).startsWith("```\nword\n"));
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package discordBot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+
+import org.junit.Test;
+
+import discordBot.command.AbstractCommand;
+import discordBot.command.CommandContext;
+import discordBot.command.Requirement;
+import net.dv8tion.jda.api.utils.ChunkingFilter;
+import net.dv8tion.jda.api.utils.cache.CacheFlag;
+
+public class LeanProfileTest {
+
+	private static class VoiceCommand extends AbstractCommand {
+		private VoiceCommand() {
+			super("join", "Join the voice channel of the author");
+			require(Requirement.VOICE_STATE);
+		}
+
+		@Override
+		protected void execute(CommandContext context) {
+		}
+	}
+
+	private static class PlainCommand extends AbstractCommand {
+		private PlainCommand() {
+			super("plain", "Only read the message");
+		}
+
+		@Override
+		protected void execute(CommandContext context) {
+		}
+	}
+
+	@Test
+	public void testOnlyWhatIsRequired() {
+		LeanProfile plain = LeanProfile.of(Arrays.<AbstractCommand>asList(new PlainCommand()),
+				Collections.<Requirement>emptySet());
+		assertEquals(EnumSet.allOf(CacheFlag.class), plain.getDisabledCacheFlags());
+		assertSame(ChunkingFilter.NONE, plain.getChunkingFilter());
+		assertFalse(plain.isGuildSubscriptions());
+
+		LeanProfile voice = LeanProfile.of(Arrays.<AbstractCommand>asList(new PlainCommand(), new VoiceCommand()),
+				EnumSet.of(Requirement.MEMBERS));
+		assertFalse(voice.getDisabledCacheFlags().contains(CacheFlag.VOICE_STATE));
+		assertTrue(voice.getDisabledCacheFlags().contains(CacheFlag.ACTIVITY));
+		assertSame(ChunkingFilter.ALL, voice.getChunkingFilter());
+		assertTrue(voice.isGuildSubscriptions());
+		assertEquals(EnumSet.of(Requirement.VOICE_STATE), plain.missing(new VoiceCommand().getRequirements()));
+	}
+}
@@ -0,0 +1,52 @@
+package discordBot.command;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import discordBot.offline.OfflineChannel;
+import discordBot.offline.OfflineEvents;
+
+public class CommandContextTest {
+	private final OfflineChannel channel = new OfflineChannel(1, 2);
+
+	private CommandContext context(String content, String commandName) {
+		return new CommandContext(null, OfflineEvents.message(channel, 3, content), "!", commandName,
+				1 + commandName.length());
+	}
+
+	@Test
+	public void testArgsLikeSplit() {
+		String[] contents = { "!echo", "!echo ", "!echo a", "!echo a b  c", "!echo  a", "!echo a   ", "!echo   " };
+		for (String content : contents) {
+			String[] splitted = content.substring(1).split(" ");
+			String[] expected = Arrays.copyOfRange(splitted, 1, splitted.length);
+			CommandContext context = context(content, "echo");
+			assertArrayEquals(content, expected, context.getParams());
+			assertEquals(content, expected.length, context.argCount());
+			for (int i = 0; i < expected.length; i++) {
+				assertEquals(expected[i], context.arg(i).toString());
+			}
+		}
+	}
+
+	@Test
+	public void testSubcommandArgs() {
+		CommandContext context = context("!config prefix set ?", "config prefix set");
+		assertEquals(1, context.argCount());
+		assertEquals("?", context.arg(0).toString());
+		assertEquals("?", context.getArgs().toString());
+		assertEquals("config prefix set", context.getCommandName());
+	}
+
+	@Test
+	public void testArgViews() {
+		CharSequence arg = context("!echo hello world", "echo").arg(1);
+		assertEquals(5, arg.length());
+		assertEquals('w', arg.charAt(0));
+		assertEquals("orl", arg.subSequence(1, 4).toString());
+	}
+}
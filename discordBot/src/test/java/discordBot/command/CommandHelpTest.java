@@ -0,0 +1,27 @@
+package discordBot.command;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import discordBot.exceptions.HelperException;
+
+public class CommandHelpTest {
+
+	@Test
+	public void testUseCasesKeepTheirOrder() throws HelperException {
+		CommandHelp help = new CommandHelp(new String[] { "Manage the config", "config", "show the config",
+				"config prefix <p>", "set the prefix", "config reset", "reset the config", "config a",
+				"first in alphabetical order" });
+		assertArrayEquals(new String[] { "config", "config prefix <p>", "config reset", "config a" },
+				help.getUseCase().keySet().toArray());
+		assertEquals("Manage the config\n\tconfig: show the config\n\tconfig prefix <p>: set the prefix"
+				+ "\n\tconfig reset: reset the config\n\tconfig a: first in alphabetical order", help.getText());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testImmutable() throws HelperException {
+		new CommandHelp(new String[] { "Ping", "ping", "pong" }).getUseCase().put("ping <x>", "pong x");
+	}
+}
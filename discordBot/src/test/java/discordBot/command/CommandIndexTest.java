@@ -0,0 +1,45 @@
+package discordBot.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.junit.Test;
+
+public class CommandIndexTest {
+
+	private static Path jar(String index) throws IOException {
+		Path jar = Files.createTempFile("commands", ".jar");
+		try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+			if (index != null) {
+				out.putNextEntry(new ZipEntry(CommandIndex.RESOURCE));
+				out.write(index.getBytes(StandardCharsets.UTF_8));
+				out.closeEntry();
+			}
+		}
+		return jar;
+	}
+
+	@Test
+	public void testParentIndexIgnored() throws Exception {
+		Path indexed = jar("discordBot.testreload.PongCommand\n"), bare = jar(null);
+		try (URLClassLoader parent = new URLClassLoader(new URL[] { indexed.toUri().toURL() },
+				getClass().getClassLoader());
+				URLClassLoader child = new URLClassLoader(new URL[] { bare.toUri().toURL() }, parent)) {
+			assertEquals(1, CommandIndex.load("discordBot.testreload", parent).size());
+			// the reloaded jar has no index: scanned, not given the one of its parent
+			assertNull(CommandIndex.load("discordBot.testreload", child));
+		} finally {
+			Files.deleteIfExists(indexed);
+			Files.deleteIfExists(bare);
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package discordBot.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class CommandRouterTest {
+
+	private static AbstractCommand command(String name, String... aliases) {
+		AbstractCommand command = new AbstractCommand(name) {
+			@Override
+			protected void execute(CommandContext context) {
+			}
+		};
+		command.setAliases(aliases);
+		return command;
+	}
+
+	@Test
+	public void testRouteOnWordBoundary() {
+		CommandRouter router = new CommandRouter(true);
+		AbstractCommand ping = command("ping");
+		router.add(ping);
+		assertSame(ping, router.route("!ping", "!").getCommand());
+		assertSame(ping, router.route("!ping a b", "!").getCommand());
+		assertNull(router.route("!pingpong", "!"));
+		assertNull(router.route("!pin", "!"));
+		assertNull(router.route("ping", "!"));
+		assertNull(router.route("hello there", "!"));
+	}
+
+	@Test
+	public void testAliasesAndCase() {
+		AbstractCommand help = command("help", "h", "?");
+		CommandRouter sensitive = new CommandRouter(true);
+		sensitive.add(help);
+		assertSame(help, sensitive.route("!h", "!").getCommand());
+		assertSame(help, sensitive.route("!? ping", "!").getCommand());
+		assertNull(sensitive.route("!HELP", "!"));
+
+		CommandRouter insensitive = new CommandRouter(false);
+		insensitive.add(help);
+		assertSame(help, insensitive.route("!HeLp", "!").getCommand());
+		assertSame(help, insensitive.get("HELP"));
+		assertNull(insensitive.get("hel"));
+	}
+
+	@Test
+	public void testSubcommands() {
+		CommandRouter router = new CommandRouter(true);
+		AbstractCommand config = command("config");
+		AbstractCommand prefixSet = command("config prefix set");
+		router.add(config);
+		router.add(prefixSet);
+		assertSame(prefixSet, router.route("!config prefix set ?", "!").getCommand());
+		assertEquals("config prefix set".length(), router.route("!config prefix set ?", "!").length());
+		assertSame(config, router.route("!config prefix", "!").getCommand());
+		assertSame(config, router.route("!config prefix sett", "!").getCommand());
+		assertSame(config, router.route("!config", "!").getCommand());
+	}
+}
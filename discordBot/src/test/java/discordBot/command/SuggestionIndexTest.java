@@ -0,0 +1,54 @@
+package discordBot.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import discordBot.exceptions.CommandNotFoundException;
+
+public class SuggestionIndexTest {
+	private final SuggestionIndex index = new SuggestionIndex(
+			Arrays.asList("help", "ping", "pong", "play", "playlist", "Help", "config prefix set"));
+
+	@Test
+	public void testSuggest() {
+		assertEquals(6, index.size());
+		assertEquals(Arrays.asList("help"), index.suggest("hlp"));
+		assertEquals(Arrays.asList("ping", "pong"), index.suggest("pxng"));
+		assertEquals(Arrays.asList("ping"), index.suggest("ping", 1));
+		assertEquals(Arrays.asList("playlist"), index.suggest("PLAYLSIT"));
+		assertTrue(index.suggest("xyz").isEmpty());
+		assertTrue(index.suggest("a very long message that is no command at all").isEmpty());
+	}
+
+	@Test
+	public void testSameAsScan() {
+		List<String> names = new ArrayList<String>();
+		for (int i = 0; i < 300; i++) {
+			names.add(Integer.toString(i * 7919, 36));
+		}
+		SuggestionIndex big = new SuggestionIndex(names);
+		for (String query : new String[] { "abc", "1x2", "zz", "5k3a", "q" }) {
+			int max = SuggestionIndex.maxDistance(query.length());
+			int expected = 0;
+			for (String name : names) {
+				int[] a = new int[query.length() + 1], b = new int[query.length() + 1];
+				if (SuggestionIndex.distance(query, name, a, b) <= max) {
+					expected++;
+				}
+			}
+			assertEquals(query, Math.min(expected, 1000), big.suggest(query, 1000).size());
+		}
+	}
+
+	@Test
+	public void testException() {
+		assertEquals(Arrays.asList("help"), new CommandNotFoundException("halp", true, index).getSuggestions());
+		assertTrue(new CommandNotFoundException("hepl").getSuggestions().isEmpty());
+	}
+}
@@ -0,0 +1,117 @@
+package discordBot.command.args;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import discordBot.command.AbstractCommand;
+import discordBot.command.CommandContext;
+import discordBot.exceptions.ValidatorException;
+import discordBot.offline.OfflineChannel;
+import discordBot.offline.OfflineEvents;
+
+public class ArgSchemaTest {
+	private final OfflineChannel channel = new OfflineChannel(1, 2);
+
+	private final ArgSchema ban = ArgSchema.of(Param.required("user", ArgType.USER),
+			Param.required("time", ArgType.DURATION), Param.optional("purge", ArgType.BOOLEAN),
+			Param.optional("reason", ArgType.TEXT));
+
+	private Arguments parse(ArgSchema schema, String content) throws ValidatorException {
+		String name = content.substring(1, content.indexOf(' ') < 0 ? content.length() : content.indexOf(' '));
+		return schema.parse(new CommandContext(null, OfflineEvents.message(channel, 3, content), "!", name,
+				1 + name.length()));
+	}
+
+	private void assertInvalid(ArgSchema schema, String content, String message) {
+		try {
+			parse(schema, content);
+			fail(content);
+		} catch (ValidatorException e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith(message));
+		}
+	}
+
+	@Test
+	public void testTypes() throws Exception {
+		Arguments arguments = parse(ban, "!ban <@!1234>  1h30m yes  spamming the   channel  ");
+		assertEquals(1234, arguments.getId("user"));
+		assertEquals(90, arguments.getDuration("time", TimeUnit.MINUTES));
+		assertTrue(arguments.getBoolean("purge"));
+		assertEquals("spamming the   channel", arguments.getString("reason"));
+		assertEquals(4, arguments.size());
+
+		arguments = parse(ban, "!ban 1234 90");
+		assertEquals(1234, arguments.getId("user"));
+		assertEquals(90, arguments.getDuration("time", TimeUnit.SECONDS));
+		assertFalse(arguments.has("purge"));
+		assertFalse(arguments.getBoolean("purge"));
+		assertNull(arguments.getString("reason"));
+
+		ArgSchema numbers = ArgSchema.of(Param.required("count", ArgType.INT), Param.required("big", ArgType.LONG),
+				Param.required("ratio", ArgType.DOUBLE), Param.required("name", ArgType.QUOTED),
+				Param.optional("role", ArgType.ROLE));
+		arguments = parse(numbers, "!set -12 12345678901234 0.5 \"two words\" <@&42>");
+		assertEquals(-12, arguments.getInt("count"));
+		assertEquals(12345678901234L, arguments.getLong("big"));
+		assertEquals(0.5, arguments.getDouble("ratio"), 0);
+		assertEquals("two words", arguments.getString("name"));
+		assertEquals(42, arguments.getId("role"));
+		assertEquals("word", parse(numbers, "!set 1 2 3 word").getString("name"));
+	}
+
+	@Test
+	public void testErrors() {
+		assertInvalid(ban, "!ban", "Missing user");
+		assertInvalid(ban, "!ban <@1234>", "Missing time");
+		assertInvalid(ban, "!ban <#1234> 1h", "Invalid user");
+		assertInvalid(ban, "!ban 1234 1x", "Invalid time");
+		assertInvalid(ban, "!ban 1234 1h30", "Invalid time");
+		assertInvalid(ban, "!ban 1234 1h maybe", "Invalid purge");
+		ArgSchema count = ArgSchema.of(Param.required("count", ArgType.INT), Param.optional("name", ArgType.QUOTED));
+		assertInvalid(count, "!count 3000000000", "Invalid count");
+		assertInvalid(count, "!count 1 \"not closed", "Invalid name");
+		assertInvalid(count, "!count 1 a b", "Too many arguments");
+	}
+
+	@Test
+	public void testSchemaChecks() {
+		try {
+			ArgSchema.of(Param.optional("a", ArgType.INT), Param.required("b", ArgType.INT));
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		try {
+			ArgSchema.of(Param.required("a", ArgType.TEXT), Param.required("b", ArgType.INT));
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		assertEquals(2, ban.getRequired());
+	}
+
+	private static class BanCommand extends AbstractCommand {
+		private BanCommand() {
+			super("ban", "Ban a user");
+			setArgSchema(Param.required("user", ArgType.USER), Param.optional("reason", ArgType.TEXT));
+		}
+
+		@Override
+		protected void execute(CommandContext context) {
+		}
+	}
+
+	@Test
+	public void testUsage() {
+		assertEquals("ban <user> <time> [purge] [reason...]", ban.usage("ban"));
+		assertEquals("Ban a user\n\tban <user> [reason...]: user: a user mention, reason: text",
+				new BanCommand().getHelp().getText());
+	}
+}
@@ -0,0 +1,140 @@
+package discordBot.command.cache;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import discordBot.AbstractBot;
+import discordBot.command.AbstractCommand;
+import discordBot.command.CommandContext;
+import discordBot.exceptions.CommandException;
+import discordBot.exceptions.ValidatorException;
+import discordBot.offline.OfflineChannel;
+import discordBot.offline.OfflineEvents;
+
+public class ResultCacheTest {
+	private final OfflineChannel channel = new OfflineChannel(1, 2);
+	private final OfflineChannel otherGuild = new OfflineChannel(3, 4);
+
+	private static class LookupCommand extends AbstractCommand {
+		private int executed;
+
+		private LookupCommand() {
+			super("lookup");
+			setResultCache(1, TimeUnit.MINUTES, 2, true);
+		}
+
+		@Override
+		protected void execute(CommandContext context) throws CommandException {
+			executed++;
+			if (context.argCount() > 0 && "fail".contentEquals(context.arg(0))) {
+				throw new CommandException("failed");
+			}
+			AbstractBot.message(context.getChannel(), "result " + executed);
+			AbstractBot.message(context.getChannel(), "second line");
+		}
+	}
+
+	private static class AsyncLookupCommand extends AbstractCommand {
+		private int executed;
+
+		private AsyncLookupCommand() {
+			super("lookup");
+			setResultCache(1, TimeUnit.MINUTES, 2, false);
+		}
+
+		@Override
+		protected void execute(CommandContext context) throws CommandException {
+			executed++;
+			// as a reply sent from a JDA callback: not on the executing thread
+			Thread reply = new Thread(() -> AbstractBot.message(context.getChannel(), "result " + executed));
+			reply.start();
+			try {
+				reply.join();
+			} catch (InterruptedException e) {
+				throw new CommandException("interrupted");
+			}
+		}
+	}
+
+	private static class PagedLookupCommand extends AbstractCommand {
+		private int executed;
+
+		private PagedLookupCommand() {
+			super("lookup");
+			setResultCache(1, TimeUnit.MINUTES, 2, false);
+		}
+
+		@Override
+		protected void execute(CommandContext context) throws CommandException {
+			executed++;
+			// as AbstractBot.page: the next pages are kept by the bot
+			ResultCache.skip();
+			AbstractBot.message(context.getChannel(), "page 1");
+		}
+	}
+
+	private void run(AbstractCommand command, OfflineChannel channel, String content)
+			throws CommandException, ValidatorException {
+		command.run(new CommandContext(null, OfflineEvents.message(channel, 5, content), "!", "lookup", 7));
+	}
+
+	@Test
+	public void testHitReplaysMessages() throws Exception {
+		LookupCommand command = new LookupCommand();
+		run(command, channel, "!lookup a  b");
+		run(command, channel, "!lookup a b");
+		assertEquals(1, command.executed);
+		assertEquals(Arrays.asList("result 1", "second line", "result 1", "second line"),
+				channel.getSentMessages());
+		assertEquals(1, command.getResultCache().getHits());
+		assertEquals(1, command.getResultCache().getMisses());
+
+		// per guild: another guild executes the command again
+		run(command, otherGuild, "!lookup a b");
+		assertEquals(2, command.executed);
+	}
+
+	@Test
+	public void testFailuresNotCachedAndEviction() throws Exception {
+		LookupCommand command = new LookupCommand();
+		for (int i = 0; i < 2; i++) {
+			try {
+				run(command, channel, "!lookup fail");
+			} catch (CommandException e) {
+				// expected
+			}
+		}
+		assertEquals(2, command.executed);
+
+		run(command, channel, "!lookup a");
+		run(command, channel, "!lookup b");
+		run(command, channel, "!lookup c");
+		assertEquals(2, command.getResultCache().size());
+		assertEquals(1, command.getResultCache().getEvictions());
+		run(command, channel, "!lookup a");
+		assertEquals(6, command.executed);
+	}
+
+	@Test
+	public void testOffThreadReplyNotCached() throws Exception {
+		AsyncLookupCommand command = new AsyncLookupCommand();
+		run(command, channel, "!lookup a");
+		run(command, channel, "!lookup a");
+		assertEquals(2, command.executed);
+		assertEquals(Arrays.asList("result 1", "result 2"), channel.getSentMessages());
+		assertEquals(0, command.getResultCache().size());
+	}
+
+	@Test
+	public void testSkippedNotCached() throws Exception {
+		PagedLookupCommand command = new PagedLookupCommand();
+		run(command, channel, "!lookup a");
+		run(command, channel, "!lookup a");
+		assertEquals(2, command.executed);
+		assertEquals(0, command.getResultCache().size());
+	}
+}
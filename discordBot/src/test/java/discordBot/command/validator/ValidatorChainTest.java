@@ -0,0 +1,82 @@
+package discordBot.command.validator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import discordBot.command.CommandContext;
+import discordBot.offline.OfflineChannel;
+import discordBot.offline.OfflineEvents;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+
+public class ValidatorChainTest {
+	private final OfflineChannel channel = new OfflineChannel(1, 2);
+
+	private CommandContext context(String args) {
+		return new CommandContext(null, OfflineEvents.message(channel, 3, "!echo " + args), "!", "echo", 5);
+	}
+
+	private static class Recording extends AbstractValidator {
+		private final int cost;
+		private final boolean result;
+		private final List<Recording> calls;
+
+		private Recording(int cost, boolean result, List<Recording> calls) {
+			super("recording " + cost);
+			this.cost = cost;
+			this.result = result;
+			this.calls = calls;
+		}
+
+		@Override
+		public boolean check(MessageReceivedEvent event) {
+			calls.add(this);
+			return result;
+		}
+
+		@Override
+		public int getCost() {
+			return cost;
+		}
+	}
+
+	@Test
+	public void testFusedRange() {
+		ArgLengthValidator atLeastOne = new ArgLengthValidator(1, 10);
+		ArgLengthValidator atMostTwo = new ArgLengthValidator(0, 2);
+		ValidatorChain chain = ValidatorChain.EMPTY.with(atLeastOne, atMostTwo);
+		assertNull(chain.check(context("a")));
+		assertNull(chain.check(context("a b")));
+		assertSame(atLeastOne, chain.check(context("")));
+		assertSame(atMostTwo, chain.check(context("a b c")));
+	}
+
+	@Test
+	public void testCostOrder() {
+		List<Recording> calls = new ArrayList<Recording>();
+		Recording expensive = new Recording(AbstractValidator.COST_EXPENSIVE, false, calls);
+		Recording cheap = new Recording(AbstractValidator.COST_CHEAP, true, calls);
+		ValidatorChain chain = ValidatorChain.EMPTY.with(expensive, cheap);
+		assertSame(expensive, chain.check(context("a")));
+		assertEquals(2, calls.size());
+		assertSame(cheap, calls.get(0));
+
+		// a wrong argument count stops before any other check
+		calls.clear();
+		chain = chain.with(new ArgLengthValidator(2));
+		assertEquals(ArgLengthValidator.class, chain.check(context("a")).getClass());
+		assertEquals(0, calls.size());
+	}
+
+	@Test
+	public void testCachedFailure() {
+		ArgLengthValidator validator = new ArgLengthValidator(1);
+		assertSame(validator.getFailException(), validator.getFailException());
+		assertEquals(0, validator.getFailException().getStackTrace().length);
+	}
+}
@@ -0,0 +1,166 @@
+package discordBot.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import discordBot.ratelimit.RateLimit;
+
+public class ConfigStoreTest {
+
+	@Test
+	public void testChannelOverGuild() {
+		ConfigStore store = new ConfigStore();
+		store.setGuildPrefix(1, "?");
+		store.setChannelPrefix(2, "$");
+		assertEquals("$", store.getPrefix(1, 2));
+		assertEquals("?", store.getPrefix(1, 3));
+		assertNull(store.getPrefix(0, 3));
+
+		store.setGuildDisabled(1, "play", true);
+		store.setChannelDisabled(2, "ping", true);
+		assertTrue(store.isDisabled(1, 2, "play"));
+		assertTrue(store.isDisabled(1, 2, "ping"));
+		assertFalse(store.isDisabled(1, 3, "ping"));
+
+		store.setGuildCooldown(1, "play", new RateLimit(1, 1, TimeUnit.MINUTES));
+		assertNotNull(store.getCooldown(1, 3, "play"));
+		assertEquals(0, store.getCooldown(1, 3, "play").tryAcquire(5));
+		assertTrue(store.getCooldown(1, 2, "play").tryAcquire(5) > 0);
+		assertNull(store.getCooldown(1, 3, "ping"));
+	}
+
+	@Test
+	public void testReloadAndCompact() throws IOException {
+		Path file = Files.createTempFile("config", ".log");
+		Files.delete(file);
+		try {
+			ConfigStore store = new ConfigStore(file);
+			store.setGuildPrefix(1, "?");
+			store.setChannelPrefix(2, "\u00e9");
+			store.setGuildDisabled(1, "play", true);
+			store.setChannelCooldown(2, "ping", new RateLimit(2, 30, TimeUnit.SECONDS));
+			for (int i = 0; i < 10_000; i++) {
+				store.setChannelPrefix(3, i % 2 == 0 ? "%" : null);
+			}
+			assertTrue(store.getCompactions() > 0);
+			assertEquals(4, store.getLiveRecords());
+			store.close();
+
+			ConfigStore reloaded = new ConfigStore(file);
+			assertEquals("\u00e9", reloaded.getPrefix(1, 2));
+			assertEquals("?", reloaded.getPrefix(1, 3));
+			assertTrue(reloaded.isDisabled(1, 4, "play"));
+			assertEquals(2, reloaded.getCooldown(1, 2, "ping").getLimit().getPermits());
+			assertEquals(2, reloaded.size());
+			reloaded.close();
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	public void testTruncatedRecordIgnored() throws IOException {
+		Path file = Files.createTempFile("config", ".log");
+		Files.delete(file);
+		try {
+			ConfigStore store = new ConfigStore(file);
+			store.setGuildPrefix(1, "?");
+			store.setGuildPrefix(2, "!!");
+			store.close();
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+				channel.truncate(channel.size() - 1);
+			}
+
+			ConfigStore reloaded = new ConfigStore(file);
+			assertEquals("?", reloaded.getGuildPrefix(1));
+			assertNull(reloaded.getGuildPrefix(2));
+			// the next record overwrites the cut one
+			reloaded.setGuildPrefix(3, "$");
+			reloaded.close();
+			assertEquals("$", new ConfigStore(file).getGuildPrefix(3));
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	public void testCutRecordZeroed() throws IOException {
+		Path file = Files.createTempFile("config", ".log");
+		Files.delete(file);
+		try {
+			ConfigStore store = new ConfigStore(file);
+			store.setGuildPrefix(1, "?");
+			store.close();
+			// a crash while a long record was written: its payload, not its length
+			ByteBuffer cut = ByteBuffer.allocate(4 + 9 + 2 + 20);
+			cut.putInt(0).put((byte) 0x11).putLong(9).putShort((short) 20).put((byte) 'x');
+			// where the length of the record after a shorter one will be: a record
+			// removing the prefix of the guild 1
+			cut.putInt(9).put((byte) 0x12).putLong(1);
+			cut.put(new byte[6]).flip();
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+				channel.write(cut);
+			}
+
+			ConfigStore reopened = new ConfigStore(file);
+			reopened.setGuildPrefix(3, "$");
+			// another crash, before close truncates the log
+			ConfigStore reloaded = new ConfigStore(file);
+			assertEquals("?", reloaded.getGuildPrefix(1));
+			assertEquals("$", reloaded.getGuildPrefix(3));
+			assertEquals(2, reloaded.getRecords());
+			reloaded.close();
+			reopened.close();
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	public void testFailedCompactionKeepsTheLog() throws IOException {
+		Path file = Files.createTempFile("config", ".log");
+		Files.delete(file);
+		// the temporary file of the compaction can't be replaced
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+		Path blocker = tmp.resolve("blocker");
+		try {
+			ConfigStore store = new ConfigStore(file);
+			store.setGuildPrefix(1, "?");
+			Files.createDirectories(tmp);
+			Files.createFile(blocker);
+			try {
+				store.compact();
+				fail("the compaction can't succeed");
+			} catch (IOException e) {
+				// expected
+			}
+			// the previous log is still written to
+			store.setGuildPrefix(2, "!!");
+			assertEquals(0, store.getCompactions());
+			store.close();
+
+			ConfigStore reloaded = new ConfigStore(file);
+			assertEquals("?", reloaded.getGuildPrefix(1));
+			assertEquals("!!", reloaded.getGuildPrefix(2));
+			reloaded.close();
+		} finally {
+			Files.deleteIfExists(blocker);
+			Files.deleteIfExists(tmp);
+			Files.deleteIfExists(file);
+		}
+	}
+}
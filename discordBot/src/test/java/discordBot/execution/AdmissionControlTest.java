@@ -0,0 +1,129 @@
+package discordBot.execution;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import discordBot.execution.AdmissionControl.Admission;
+import discordBot.execution.AdmissionControl.Policy;
+
+public class AdmissionControlTest {
+	private final List<String> started = new ArrayList<String>();
+	private final List<String> shed = new ArrayList<String>();
+
+	private Admission offer(AdmissionControl admission, Priority priority, String name) {
+		return admission.offer(priority, () -> started.add(name), () -> shed.add(name));
+	}
+
+	@Test
+	public void testPriorityOrder() {
+		AdmissionControl admission = new AdmissionControl(1, 10, Policy.SHED);
+		assertEquals(Admission.STARTED, offer(admission, Priority.NORMAL, "a"));
+		assertEquals(Admission.WAITING, offer(admission, Priority.LOW, "heavy"));
+		assertEquals(Admission.WAITING, offer(admission, Priority.NORMAL, "b"));
+		assertEquals(Admission.WAITING, offer(admission, Priority.HIGH, "help"));
+		assertEquals(3, admission.getWaiting());
+
+		admission.done(Priority.NORMAL);
+		admission.done(Priority.HIGH);
+		admission.done(Priority.NORMAL);
+		assertEquals(Arrays.asList("a", "help", "b", "heavy"), started);
+		assertEquals(1, admission.getRunning());
+	}
+
+	@Test
+	public void testShedLowestFirst() {
+		AdmissionControl admission = new AdmissionControl(1, 2, Policy.SHED);
+		offer(admission, Priority.NORMAL, "a");
+		offer(admission, Priority.LOW, "heavy1");
+		offer(admission, Priority.LOW, "heavy2");
+		// full: the newest heavy command makes room for help
+		assertEquals(Admission.WAITING, offer(admission, Priority.HIGH, "help"));
+		assertEquals(Arrays.asList("heavy2"), shed);
+		// nothing less important than a heavy command: the new one is shed
+		assertEquals(Admission.SHED, offer(admission, Priority.LOW, "heavy3"));
+		assertEquals(Arrays.asList("heavy2", "heavy3"), shed);
+		assertEquals(2, admission.getShed());
+	}
+
+	@Test
+	public void testDefer() {
+		AdmissionControl admission = new AdmissionControl(1, 1, Policy.DEFER);
+		offer(admission, Priority.NORMAL, "a");
+		offer(admission, Priority.NORMAL, "b");
+		assertEquals(Admission.DEFERRED, offer(admission, Priority.NORMAL, "c"));
+		assertEquals(Admission.DEFERRED, offer(admission, Priority.NORMAL, "d"));
+		// one deferred at most: the oldest is dropped
+		assertEquals(Arrays.asList("c"), shed);
+
+		admission.done(Priority.NORMAL);
+		admission.done(Priority.NORMAL);
+		assertEquals(Arrays.asList("a", "b", "d"), started);
+		assertEquals(0, admission.getWaiting());
+	}
+
+	@Test
+	public void testLowHalfOfTheSlots() {
+		AdmissionControl admission = new AdmissionControl(4, 10, Policy.SHED);
+		assertEquals(Admission.STARTED, offer(admission, Priority.LOW, "heavy1"));
+		assertEquals(Admission.STARTED, offer(admission, Priority.LOW, "heavy2"));
+		assertEquals(Admission.WAITING, offer(admission, Priority.LOW, "heavy3"));
+		assertEquals(Admission.STARTED, offer(admission, Priority.NORMAL, "a"));
+	}
+
+	private Admission offer(AdmissionControl admission, long key, String name) {
+		return admission.offer(key, Priority.NORMAL, () -> started.add(name), () -> shed.add(name));
+	}
+
+	@Test
+	public void testOneSlotPerKey() {
+		AdmissionControl admission = new AdmissionControl(2, 10, 2, Policy.SHED);
+		assertEquals(Admission.STARTED, offer(admission, 1, "a1"));
+		// behind a1, without slot: the other guilds still start
+		assertEquals(Admission.WAITING, offer(admission, 1, "a2"));
+		assertEquals(Admission.WAITING, offer(admission, 1, "a3"));
+		assertEquals(Admission.SHED, offer(admission, 1, "a4"));
+		assertEquals(Admission.STARTED, offer(admission, 2, "b1"));
+		assertEquals(2, admission.getRunning());
+		assertEquals(Arrays.asList("a4"), shed);
+
+		admission.done(1, Priority.NORMAL);
+		admission.done(2, Priority.NORMAL);
+		admission.done(1, Priority.NORMAL);
+		assertEquals(Arrays.asList("a1", "b1", "a2", "a3"), started);
+		admission.done(1, Priority.NORMAL);
+		assertEquals(0, admission.getRunning());
+		assertEquals(0, admission.getWaiting());
+	}
+
+	@Test
+	public void testInlineCommandsDontRecurse() {
+		int commands = 50_000;
+		AdmissionControl admission = new AdmissionControl(1, commands, commands, Policy.SHED);
+		int[] depths = new int[2];
+		List<Integer> order = new ArrayList<Integer>();
+		admission.offer(1, Priority.NORMAL, () -> order.add(0), null);
+		for (int i = 1; i < commands; i++) {
+			int command = i;
+			// run inline by its start, like with ExecutionEngine.direct
+			admission.offer(1, Priority.NORMAL, () -> {
+				order.add(command);
+				if (command == 1 || command == commands - 1) {
+					depths[command == 1 ? 0 : 1] = Thread.currentThread().getStackTrace().length;
+				}
+				admission.done(1, Priority.NORMAL);
+			}, null);
+		}
+		admission.done(1, Priority.NORMAL);
+		assertEquals(commands, order.size());
+		for (int i = 0; i < commands; i++) {
+			assertEquals(i, (int) order.get(i));
+		}
+		assertEquals(depths[0], depths[1]);
+		assertEquals(0, admission.getRunning());
+	}
+}
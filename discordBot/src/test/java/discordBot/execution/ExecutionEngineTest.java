@@ -0,0 +1,118 @@
+package discordBot.execution;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class ExecutionEngineTest {
+
+	@Test
+	public void testFifoPerKey() throws InterruptedException {
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		ExecutionEngine engine = new ExecutionEngine(pool, ExecutionEngine.Ordering.CHANNEL);
+		int keys = 16, tasks = 2_000;
+		List<List<Integer>> seen = new ArrayList<List<Integer>>();
+		CountDownLatch done = new CountDownLatch(keys * tasks);
+		for (int k = 0; k < keys; k++) {
+			seen.add(new ArrayList<Integer>());
+		}
+		for (int i = 0; i < tasks; i++) {
+			for (int k = 0; k < keys; k++) {
+				List<Integer> list = seen.get(k);
+				int value = i;
+				engine.submit(k, () -> {
+					list.add(value);
+					done.countDown();
+				});
+			}
+		}
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		for (List<Integer> list : seen) {
+			assertEquals(tasks, list.size());
+			for (int i = 0; i < tasks; i++) {
+				assertEquals(i, (int) list.get(i));
+			}
+		}
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+		assertEquals(0, engine.activeLanes());
+	}
+
+	@Test
+	public void testErrorDoesNotStopLane() throws InterruptedException {
+		ExecutorService pool = Executors.newSingleThreadExecutor();
+		ExecutionEngine engine = new ExecutionEngine(pool, ExecutionEngine.Ordering.CHANNEL);
+		CountDownLatch done = new CountDownLatch(1);
+		engine.submit(1, () -> {
+			throw new IllegalStateException("expected by the test");
+		});
+		engine.submit(1, done::countDown);
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		pool.shutdown();
+	}
+
+	@Test
+	public void testThrowableDoesNotStopLane() throws InterruptedException {
+		ExecutorService pool = Executors.newSingleThreadExecutor();
+		ExecutionEngine engine = new ExecutionEngine(pool, ExecutionEngine.Ordering.CHANNEL);
+		CountDownLatch done = new CountDownLatch(1);
+		engine.submit(1, () -> {
+			throw new AssertionError("expected by the test");
+		});
+		engine.submit(1, () -> {
+			throw new NoClassDefFoundError("expected by the test");
+		});
+		engine.submit(1, done::countDown);
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+		assertEquals(0, engine.activeLanes());
+	}
+
+	@Test
+	public void testRejectedAfterShutdown() {
+		ExecutorService pool = Executors.newSingleThreadExecutor();
+		ExecutionEngine engine = new ExecutionEngine(pool, ExecutionEngine.Ordering.CHANNEL);
+		engine.shutdown();
+		try {
+			engine.submit(1, () -> fail("never run"));
+			fail("the executor is stopped");
+		} catch (RejectedExecutionException e) {
+			// expected
+		}
+		assertEquals(0, engine.activeLanes());
+	}
+
+	@Test
+	public void testQueuedTasksRunWhenRejected() {
+		List<String> runs = new ArrayList<String>();
+		ExecutionEngine[] engine = new ExecutionEngine[1];
+		Executor stopping = lane -> {
+			if (runs.isEmpty()) {
+				// queued by another thread while the lane is scheduled
+				engine[0].submit(1, () -> runs.add("queued meanwhile"));
+			}
+			throw new RejectedExecutionException("stopped");
+		};
+		engine[0] = new ExecutionEngine(stopping, ExecutionEngine.Ordering.CHANNEL);
+		try {
+			engine[0].submit(1, () -> runs.add("rejected"));
+			fail("the executor is stopped");
+		} catch (RejectedExecutionException e) {
+			// expected
+		}
+		assertEquals("[queued meanwhile]", runs.toString());
+		assertEquals(0, engine[0].activeLanes());
+	}
+}
@@ -0,0 +1,63 @@
+package discordBot.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void testBuckets() {
+		for (long value : new long[] { 0, 1, 15, 16, 17, 31, 32, 1_000, 123_456_789, 1L << 40 }) {
+			int index = LatencyHistogram.index(value);
+			assertTrue(value + " below its bucket", LatencyHistogram.lowerBound(index) <= value);
+			assertTrue(value + " above its bucket", value <= LatencyHistogram.upperBound(index));
+		}
+		// the values past 2^41 go to the last bucket
+		assertEquals(LatencyHistogram.index((1L << 41) - 1), LatencyHistogram.index(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void testPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		Random random = new Random(42);
+		long[] values = new long[100_000];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = (long) (Math.exp(random.nextGaussian() * 2 + 10));
+			histogram.record(values[i]);
+		}
+		Arrays.sort(values);
+		HistogramSnapshot snapshot = histogram.snapshot();
+		assertEquals(values.length, snapshot.getCount());
+		assertEquals(values[values.length - 1], snapshot.getMax());
+		for (double percentile : new double[] { 50, 90, 99, 99.9 }) {
+			long expected = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+			long actual = snapshot.getPercentile(percentile);
+			assertTrue(percentile + ": " + actual + " for " + expected,
+					actual >= expected && actual <= expected * 1.0625 + 1);
+		}
+	}
+
+	@Test
+	public void testSnapshotText() {
+		Metrics metrics = new Metrics();
+		CommandMetrics help = new CommandMetrics("help");
+		metrics.register(help);
+		metrics.message(true);
+		metrics.message(false);
+		metrics.notFound();
+		help.recordRun(1_000, 2_000_000);
+		help.failed();
+		MetricsSnapshot snapshot = metrics.snapshot();
+		assertEquals(1, snapshot.getDispatched());
+		String text = snapshot.toText();
+		assertTrue(text, text.contains("discordbot_messages_total 2\n"));
+		assertTrue(text, text.contains("discordbot_commands_not_found_total 1\n"));
+		assertTrue(text, text.contains("discordbot_command_failed_total{command=\"help\"} 1\n"));
+		assertTrue(text, text.contains("discordbot_command_execute_seconds_count{command=\"help\"} 1\n"));
+	}
+}
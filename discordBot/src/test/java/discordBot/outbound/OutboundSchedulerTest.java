@@ -0,0 +1,60 @@
+package discordBot.outbound;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import discordBot.DiscordHelper;
+import discordBot.offline.OfflineChannel;
+
+public class OutboundSchedulerTest {
+
+	/**
+	 * Wait for the sends, not for pending() to be 0: a batch leaves the bucket
+	 * before it is sent
+	 */
+	private static void awaitSent(OfflineChannel channel, int count) throws InterruptedException {
+		for (int i = 0; i < 100 && channel.getSentCount() < count; i++) {
+			Thread.sleep(10);
+		}
+		// let a wrong extra send show up
+		Thread.sleep(20);
+	}
+
+	@Test
+	public void testBurstMergedInWindow() throws InterruptedException {
+		OutboundScheduler scheduler = new OutboundScheduler(50);
+		OfflineChannel channel = new OfflineChannel(1, 2);
+		for (int i = 0; i < 10; i++) {
+			scheduler.send(channel.getChannel(), "line " + i);
+		}
+		awaitSent(channel, 1);
+		List<String> sent = channel.getSentMessages();
+		assertEquals(1, sent.size());
+		assertTrue(sent.get(0).startsWith("line 0\nline 1\n"));
+		assertEquals(10, scheduler.getMessagesMerged());
+		assertEquals(9, scheduler.getSendsAvoided());
+	}
+
+	@Test
+	public void testLimitAndBlocksKept() throws InterruptedException {
+		OutboundScheduler scheduler = new OutboundScheduler(50);
+		OfflineChannel channel = new OfflineChannel(1);
+		StringBuilder big = new StringBuilder();
+		for (int i = 0; i < 150; i++) {
+			big.append("0123456789");
+		}
+		String block = DiscordHelper.codeBlock(big.toString());
+		scheduler.send(channel.getChannel(), block);
+		scheduler.send(channel.getChannel(), block);
+		scheduler.send(channel.getChannel(), "end");
+		awaitSent(channel, 2);
+		List<String> sent = channel.getSentMessages();
+		assertEquals(2, sent.size());
+		assertEquals(block, sent.get(0));
+		assertEquals(block + "\nend", sent.get(1));
+	}
+}
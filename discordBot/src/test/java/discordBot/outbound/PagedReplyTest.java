@@ -0,0 +1,97 @@
+package discordBot.outbound;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+
+public class PagedReplyTest {
+
+	/**
+	 * "line 0", "line 1"... counting the lines pulled
+	 */
+	private static class Lines implements Iterator<String> {
+		private final int count;
+		private int pulled;
+
+		private Lines(int count) {
+			this.count = count;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return pulled < count;
+		}
+
+		@Override
+		public String next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return "line " + pulled++;
+		}
+	}
+
+	@Test
+	public void testPagesPulledLazily() {
+		Lines lines = new Lines(1_000_000);
+		PagedReply reply = new PagedReply(lines, 40, "\n(more)");
+		// 33 chars for the text: 4 lines of 6 chars and their separators
+		assertEquals("line 0\nline 1\nline 2\nline 3\n(more)", reply.nextPage());
+		assertEquals(5, lines.pulled);
+		assertEquals("line 4\nline 5\nline 6\nline 7\n(more)", reply.nextPage());
+		assertEquals(9, lines.pulled);
+		assertEquals(2, reply.getPages());
+		assertTrue(reply.hasNext());
+	}
+
+	@Test
+	public void testLastPageAndLongLines() {
+		StringBuilder longLine = new StringBuilder();
+		for (int i = 0; i < 25; i++) {
+			longLine.append("word ");
+		}
+		PagedReply reply = new PagedReply(Arrays.asList("a", longLine.toString(), "b", "c").iterator(), 60, "+");
+		assertEquals("a+", reply.nextPage());
+		// the long line is cut over several pages
+		int chunks = 0;
+		StringBuilder rebuilt = new StringBuilder();
+		String page = reply.nextPage();
+		for (; !page.startsWith("b"); page = reply.nextPage()) {
+			assertTrue(page, page.length() <= 60);
+			assertTrue(page.endsWith("+"));
+			rebuilt.append(page, 0, page.length() - 1);
+			chunks++;
+		}
+		assertEquals(3, chunks);
+		assertEquals(longLine.toString().replace(" ", ""), rebuilt.toString().replaceAll("\\s", ""));
+		assertEquals("b\nc", page);
+		assertFalse(reply.hasNext());
+		assertNull(reply.nextPage());
+	}
+
+	@Test
+	public void testSourceClosed() {
+		int[] closed = new int[1];
+		PagedReply whole = new PagedReply(new Lines(3), () -> closed[0]++, 40, "\n(more)");
+		assertEquals("line 0\nline 1\nline 2", whole.nextPage());
+		// closed once the last page is rendered
+		assertEquals(1, closed[0]);
+		assertNull(whole.nextPage());
+
+		PagedReply dropped = new PagedReply(new Lines(100), () -> closed[0]++, 40, "\n(more)");
+		dropped.nextPage();
+		assertEquals(1, closed[0]);
+		dropped.close();
+		dropped.close();
+		assertEquals(2, closed[0]);
+		assertFalse(dropped.hasNext());
+		assertNull(dropped.nextPage());
+	}
+}
@@ -0,0 +1,135 @@
+package discordBot.prefix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Test;
+
+public class PrefixStoreTest {
+
+	@Test
+	public void testGuildFallback() {
+		PrefixStore store = new PrefixStore();
+		assertNull(store.get(1, 2));
+		store.setGuildPrefix(1, "?");
+		assertEquals("?", store.get(1, 2));
+		store.setChannelPrefix(2, "$");
+		assertEquals("$", store.get(1, 2));
+		assertEquals("?", store.get(1, 3));
+		store.setChannelPrefix(2, null);
+		assertEquals("?", store.get(1, 2));
+		assertNull(store.get(0, 3));
+	}
+
+	@Test
+	public void testReloadFromFile() throws IOException {
+		Path file = Files.createTempFile("prefixes", ".log");
+		try {
+			PrefixStore store = new PrefixStore(file);
+			store.setGuildPrefix(1, "?");
+			store.setChannelPrefix(2, "$");
+			store.setChannelPrefix(3, "%");
+			store.setChannelPrefix(3, null);
+			store.close();
+
+			PrefixStore reloaded = new PrefixStore(file);
+			assertEquals("$", reloaded.get(1, 2));
+			assertEquals("?", reloaded.get(1, 3));
+			assertEquals(2, reloaded.size());
+			reloaded.close();
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	public void testNothingEvicted() throws IOException {
+		Path file = Files.createTempFile("prefixes", ".log");
+		try {
+			PrefixStore store = new PrefixStore(file);
+			int channels = 20_000;
+			for (int round = 0; round < 3; round++) {
+				for (long id = 1; id <= channels; id++) {
+					store.setChannelPrefix(id, round + "!");
+				}
+			}
+			assertEquals(channels, store.size());
+			store.close();
+
+			// three records per prefix: compacted at load, without losing any
+			PrefixStore reloaded = new PrefixStore(file);
+			assertEquals(channels, reloaded.size());
+			for (long id = 1; id <= channels; id++) {
+				assertEquals("2!", reloaded.getChannelPrefix(id));
+			}
+			reloaded.close();
+			assertEquals(channels, new PrefixStore(file).size());
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	public void testCutRecordTruncated() throws IOException {
+		Path file = Files.createTempFile("prefixes", ".log");
+		try {
+			PrefixStore store = new PrefixStore(file);
+			store.setGuildPrefix(1, "?");
+			store.setChannelPrefix(2, "$$");
+			store.close();
+			// a crash while the last record was written
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+				channel.truncate(channel.size() - 2);
+			}
+
+			PrefixStore reopened = new PrefixStore(file);
+			assertEquals("?", reopened.get(1, 2));
+			assertEquals(1, reopened.size());
+			reopened.setChannelPrefix(3, "%");
+			StringBuilder tooLong = new StringBuilder();
+			while (tooLong.length() <= 0xFFFF) {
+				tooLong.append("prefix");
+			}
+			try {
+				reopened.setChannelPrefix(4, tooLong.toString());
+				fail("a prefix of more than 64 KiB can't be saved");
+			} catch (IllegalArgumentException e) {
+				assertNull(reopened.getChannelPrefix(4));
+			}
+			reopened.setGuildPrefix(5, "!");
+			reopened.close();
+
+			PrefixStore reloaded = new PrefixStore(file);
+			assertEquals("?", reloaded.get(1, 2));
+			assertEquals("%", reloaded.get(1, 3));
+			assertEquals("!", reloaded.get(5, 6));
+			assertEquals(3, reloaded.size());
+			reloaded.close();
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	public void testUnknownRecordRejected() throws IOException {
+		Path file = Files.createTempFile("prefixes", ".log");
+		try {
+			Files.write(file, new byte[] { 7, 0, 0, 0, 0, 0, 0, 0, 1 });
+			try {
+				new PrefixStore(file);
+				fail("7 isn't a record type");
+			} catch (IOException e) {
+				// expected
+			}
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+}
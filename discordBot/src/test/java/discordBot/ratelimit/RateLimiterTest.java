@@ -0,0 +1,55 @@
+package discordBot.ratelimit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class RateLimiterTest {
+	private long now = 1_000_000_000L;
+
+	private RateLimiter limiter(int permits, long seconds) {
+		return new RateLimiter(new RateLimit(permits, seconds, TimeUnit.SECONDS), 1_600, () -> now);
+	}
+
+	@Test
+	public void testBurstThenRefill() {
+		RateLimiter limiter = limiter(3, 3);
+		for (int i = 0; i < 3; i++) {
+			assertEquals(0, limiter.tryAcquire(42));
+		}
+		long wait = limiter.tryAcquire(42);
+		assertEquals(TimeUnit.SECONDS.toNanos(1), wait);
+		// the other keys have their own bucket
+		assertEquals(0, limiter.tryAcquire(43));
+
+		now += wait;
+		assertEquals(0, limiter.tryAcquire(42));
+		assertTrue(limiter.tryAcquire(42) > 0);
+	}
+
+	@Test
+	public void testRefusedUsesAreFree() {
+		RateLimiter limiter = limiter(1, 1);
+		assertEquals(0, limiter.tryAcquire(42));
+		for (int i = 0; i < 100; i++) {
+			assertTrue(limiter.tryAcquire(42) > 0);
+		}
+		now += TimeUnit.SECONDS.toNanos(1);
+		assertEquals(0, limiter.tryAcquire(42));
+	}
+
+	@Test
+	public void testIdleEviction() {
+		RateLimiter limiter = limiter(2, 1);
+		for (long key = 0; key < 1_000; key++) {
+			limiter.tryAcquire(key);
+		}
+		assertEquals(1_000, limiter.size());
+		now += TimeUnit.SECONDS.toNanos(1);
+		limiter.tryAcquire(5_000);
+		assertEquals(1, limiter.size());
+	}
+}
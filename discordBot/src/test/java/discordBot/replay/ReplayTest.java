@@ -0,0 +1,103 @@
+package discordBot.replay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import discordBot.AbstractBot;
+import discordBot.exceptions.CommandException;
+import discordBot.exceptions.CommandNotFoundException;
+import discordBot.exceptions.ValidatorException;
+import discordBot.execution.ExecutionEngine;
+import net.dv8tion.jda.api.entities.MessageChannel;
+
+public class ReplayTest {
+
+	private static class TestBot extends AbstractBot {
+		private TestBot() throws Exception {
+			super("discordBot.testcommands", "!", false);
+			setExecutionEngine(ExecutionEngine.direct());
+		}
+
+		@Override
+		protected void commandNotFoundException(MessageChannel channel, CommandNotFoundException e) {
+		}
+
+		@Override
+		protected void commandException(MessageChannel channel, CommandException e) {
+		}
+
+		@Override
+		protected void validatorException(MessageChannel channel, ValidatorException e) {
+		}
+	}
+
+	@Test
+	public void testRecordAndRead() throws IOException {
+		Path log = Files.createTempFile("messages", ".log");
+		Files.delete(log);
+		try {
+			try (MessageRecorder recorder = new MessageRecorder(log)) {
+				recorder.record(1_000, 2, 3, 4, false, "!echo h\u00e9h\u00e9");
+			}
+			// reopened, appended after the first message
+			try (MessageRecorder recorder = new MessageRecorder(log)) {
+				recorder.record(2_000, 0, 5, 6, true, "");
+			}
+			List<RecordedMessage> messages = MessageLogReader.readAll(log);
+			assertEquals(2, messages.size());
+			RecordedMessage first = messages.get(0);
+			assertEquals(1_000, first.getTime());
+			assertEquals(2, first.getGuildId());
+			assertEquals(3, first.getChannelId());
+			assertEquals(4, first.getAuthorId());
+			assertEquals(false, first.isBot());
+			assertEquals("!echo h\u00e9h\u00e9", first.getContent());
+			assertEquals(true, messages.get(1).isBot());
+		} finally {
+			Files.deleteIfExists(log);
+		}
+	}
+
+	@Test
+	public void testTruncatedLog() throws IOException {
+		Path log = Files.createTempFile("messages", ".log");
+		Files.delete(log);
+		try {
+			try (MessageRecorder recorder = new MessageRecorder(log)) {
+				recorder.record(1_000, 2, 3, 4, false, "!echo a");
+				recorder.record(1_001, 2, 3, 4, false, "!echo b");
+			}
+			byte[] bytes = Files.readAllBytes(log);
+			Files.write(log, Arrays.copyOf(bytes, bytes.length - 3));
+			try (MessageLogReader reader = new MessageLogReader(log)) {
+				assertEquals("!echo a", reader.next().getContent());
+				assertNull(reader.next());
+			}
+		} finally {
+			Files.deleteIfExists(log);
+		}
+	}
+
+	@Test
+	public void testReplay() throws Exception {
+		List<RecordedMessage> messages = Arrays.asList(
+				new RecordedMessage(0, 2, 3, 4, false, "!echo a"),
+				new RecordedMessage(1, 2, 3, 4, false, "hello"),
+				new RecordedMessage(2, 0, 5, 4, false, "!nope"),
+				new RecordedMessage(3, 2, 3, 7, true, "!echo from a bot"));
+		AbstractBot bot = new TestBot();
+		Replay.Report report = new Replay(bot).run(messages, 0);
+		assertEquals(4, report.getMessages());
+		assertEquals(4, report.getLatency().getCount());
+		assertEquals(1, bot.getMetrics().snapshot().getDispatched());
+		assertEquals(1, bot.getMetrics().snapshot().getNotFound());
+	}
+}
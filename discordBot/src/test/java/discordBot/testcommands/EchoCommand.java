@@ -0,0 +1,20 @@
+package discordBot.testcommands;
+
+import discordBot.AbstractBot;
+import discordBot.command.AbstractCommand;
+import discordBot.command.CommandContext;
+
+/**
+ * Answer the arguments of the command
+ */
+public class EchoCommand extends AbstractCommand {
+
+	public EchoCommand() {
+		super("echo", "Repeat the arguments", "echo <text>", "send the text back");
+	}
+
+	@Override
+	protected void execute(CommandContext context) {
+		AbstractBot.message(context.getChannel(), context.getArgs().toString());
+	}
+}
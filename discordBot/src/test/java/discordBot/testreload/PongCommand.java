@@ -0,0 +1,20 @@
+package discordBot.testreload;
+
+import discordBot.AbstractBot;
+import discordBot.command.AbstractCommand;
+import discordBot.command.CommandContext;
+
+/**
+ * Answer "pong", the command of the package loaded by the reload test
+ */
+public class PongCommand extends AbstractCommand {
+
+	public PongCommand() {
+		super("pong", "Answer pong", "pong", "answer pong");
+	}
+
+	@Override
+	protected void execute(CommandContext context) {
+		AbstractBot.message(context.getChannel(), "pong");
+	}
+}
@@ -0,0 +1,101 @@
+package discordBot.timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.UTFDataFormatException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class TimerStoreTest {
+
+	@Test
+	public void testSurvivesRestart() throws Exception {
+		Path file = Files.createTempFile("timers", ".log");
+		TimerWheel timer = new TimerWheel(5, TimeUnit.MILLISECONDS, 64, null);
+		try {
+			TimerStore store = new TimerStore(file);
+			store.attach(timer);
+			long reminder = store.schedule("remind", "1;2;drink water", 1, TimeUnit.HOURS);
+			long mute = store.schedule("unmute", "3", 2, TimeUnit.HOURS);
+			store.schedule("remind", "1;2;sleep", 3, TimeUnit.HOURS);
+			assertTrue(store.cancel(mute));
+			assertFalse(store.cancel(mute));
+			assertEquals(2, store.getPending());
+			assertEquals(2, timer.getPending());
+			store.close();
+
+			// the bot restarts: the pending tasks are loaded, not the cancelled one
+			TimerStore reopened = new TimerStore(file);
+			assertEquals(2, reopened.getPending());
+			assertEquals(2, reopened.getRecords());
+			List<String> reminded = new CopyOnWriteArrayList<String>();
+			CountDownLatch done = new CountDownLatch(1);
+			reopened.setHandler("remind", payload -> {
+				reminded.add(payload);
+				done.countDown();
+			});
+			TimerWheel later = new TimerWheel(5, TimeUnit.MILLISECONDS, 64, null);
+			try {
+				reopened.attach(later);
+				assertTrue(reopened.cancel(reminder + 2));
+				long next = reopened.schedule("remind", "now", 0, TimeUnit.MILLISECONDS);
+				assertTrue(next > reminder + 2);
+				assertTrue(done.await(5, TimeUnit.SECONDS));
+				assertEquals("[now]", reminded.toString());
+				// the task is done once its handler returned
+				long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+				while (reopened.getPending() > 1 && System.nanoTime() < end) {
+					Thread.sleep(5);
+				}
+				assertEquals(1, reopened.getPending());
+			} finally {
+				later.stop();
+				reopened.close();
+			}
+		} finally {
+			timer.stop();
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	public void testFailedRecordNotWritten() throws Exception {
+		Path file = Files.createTempFile("timers", ".log");
+		TimerWheel timer = new TimerWheel(5, TimeUnit.MILLISECONDS, 64, null);
+		try {
+			TimerStore store = new TimerStore(file);
+			store.attach(timer);
+			store.schedule("remind", "before", 1, TimeUnit.HOURS);
+			StringBuilder tooLong = new StringBuilder();
+			while (tooLong.length() <= 0xFFFF) {
+				tooLong.append("payload ");
+			}
+			try {
+				store.schedule("remind", tooLong.toString(), 1, TimeUnit.HOURS);
+				fail("a payload of more than 64 KiB can't be saved");
+			} catch (UTFDataFormatException e) {
+				// expected: nothing of its record must reach the log
+			}
+			store.schedule("remind", "after", 1, TimeUnit.HOURS);
+			assertEquals(2, store.getPending());
+			assertEquals(2, store.getRecords());
+			store.close();
+
+			TimerStore reopened = new TimerStore(file);
+			assertEquals(2, reopened.getPending());
+			reopened.close();
+		} finally {
+			timer.stop();
+			Files.deleteIfExists(file);
+		}
+	}
+}
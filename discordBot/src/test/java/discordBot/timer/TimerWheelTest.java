@@ -0,0 +1,101 @@
+package discordBot.timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class TimerWheelTest {
+
+	@Test
+	public void testOrderAndCancel() throws Exception {
+		// 8 buckets of 5 ms: the tasks wait for several turns
+		TimerWheel timer = new TimerWheel(5, TimeUnit.MILLISECONDS, 6, null);
+		try {
+			assertEquals(8, timer.getWheelSize());
+			List<String> runs = new CopyOnWriteArrayList<String>();
+			CountDownLatch done = new CountDownLatch(3);
+			long start = System.nanoTime();
+			timer.schedule(() -> {
+				runs.add("late");
+				done.countDown();
+			}, 300, TimeUnit.MILLISECONDS);
+			timer.schedule(() -> {
+				runs.add("soon");
+				done.countDown();
+			}, 100, TimeUnit.MILLISECONDS);
+			TimerWheel.Timeout cancelled = timer.schedule(() -> runs.add("cancelled"), 200, TimeUnit.MILLISECONDS);
+			assertEquals(3, timer.getPending());
+			assertTrue(cancelled.cancel());
+			assertFalse(cancelled.cancel());
+			assertEquals(2, timer.getPending());
+			timer.schedule(() -> {
+				throw new IllegalStateException("expected by the test");
+			}, 0, TimeUnit.MILLISECONDS);
+			timer.schedule(done::countDown, -5, TimeUnit.MILLISECONDS);
+
+			assertTrue(done.await(5, TimeUnit.SECONDS));
+			assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(300));
+			assertEquals(0, timer.getPending());
+			assertEquals(4, timer.getExpired());
+			assertEquals("[soon, late]", runs.toString());
+			assertTrue(cancelled.isCancelled());
+		} finally {
+			timer.stop();
+		}
+	}
+
+	@Test
+	public void testErrorDoesNotStopTimer() throws Exception {
+		// no executor: the tasks run on the timer thread
+		TimerWheel timer = new TimerWheel(5, TimeUnit.MILLISECONDS, 64, null);
+		try {
+			CountDownLatch done = new CountDownLatch(1);
+			timer.schedule(() -> {
+				throw new AssertionError("expected by the test");
+			}, 0, TimeUnit.MILLISECONDS);
+			timer.schedule(done::countDown, 50, TimeUnit.MILLISECONDS);
+			assertTrue(done.await(5, TimeUnit.SECONDS));
+			assertEquals(2, timer.getExpired());
+		} finally {
+			timer.stop();
+		}
+	}
+
+	@Test
+	public void testManyTimers() throws Exception {
+		TimerWheel timer = new TimerWheel(1, TimeUnit.MILLISECONDS, 64, null);
+		try {
+			int count = 100_000;
+			AtomicInteger runs = new AtomicInteger();
+			TimerWheel.Timeout[] timeouts = new TimerWheel.Timeout[count];
+			for (int i = 0; i < count; i++) {
+				timeouts[i] = timer.schedule(runs::incrementAndGet, i % 200, TimeUnit.MILLISECONDS);
+			}
+			// the first tasks may expire before they are cancelled
+			int cancelled = 0;
+			for (int i = 1; i < count; i += 2) {
+				if (timeouts[i].cancel()) {
+					cancelled++;
+				}
+			}
+			assertTrue(cancelled > 0);
+			long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			while (timer.getPending() > 0 && System.nanoTime() < end) {
+				Thread.sleep(10);
+			}
+			assertEquals(0, timer.getPending());
+			assertEquals(count - cancelled, runs.get());
+			assertEquals(count - cancelled, timer.getExpired());
+		} finally {
+			timer.stop();
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package discordBot.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ConcurrentLongMapTest {
+
+	@Test
+	public void testSameAsHashMap() {
+		ConcurrentLongMap<Long> map = new ConcurrentLongMap<Long>();
+		Map<Long, Long> expected = new HashMap<Long, Long>();
+		Random random = new Random(42);
+		for (int i = 0; i < 100_000; i++) {
+			long key = random.nextInt(2_000);
+			if (random.nextInt(3) == 0) {
+				assertEquals(expected.remove(key), map.remove(key));
+			} else {
+				assertEquals(expected.put(key, (long) i), map.put(key, (long) i));
+			}
+		}
+		assertEquals(expected.size(), map.size());
+		for (long key = 0; key < 2_000; key++) {
+			assertEquals(expected.get(key), map.get(key));
+		}
+	}
+
+	@Test
+	public void testBounded() {
+		long[] evicted = new long[1];
+		ConcurrentLongMap<String> map = new ConcurrentLongMap<String>(1_000, (key, value) -> evicted[0]++);
+		for (long key = 0; key < 100_000; key++) {
+			map.put(key, "prefix");
+			assertTrue(map.size() <= 1_000);
+		}
+		assertEquals(100_000 - map.size(), map.evictions());
+		assertEquals(map.evictions(), evicted[0]);
+		assertFalse(map.remove(99_999, "another instance"));
+		assertTrue(map.remove(99_999, map.get(99_999)));
+	}
+
+	@Test
+	public void testRecentlyReadSurvive() {
+		ConcurrentLongMap<String> map = new ConcurrentLongMap<String>(1_600);
+		map.put(-1, "hot");
+		for (long key = 0; key < 100_000; key++) {
+			map.get(-1);
+			map.put(key, "cold");
+		}
+		assertEquals("hot", map.get(-1));
+		assertNull(map.get(0));
+	}
+}